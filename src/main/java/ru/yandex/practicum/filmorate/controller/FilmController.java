@@ -2,15 +2,30 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.FilmSearch;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsStream;
+import ru.yandex.practicum.filmorate.service.SimilarFilms;
+import ru.yandex.practicum.filmorate.util.NdjsonWriter;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Контроллер для работы с фильмами.
@@ -26,7 +41,17 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmController {
+    /**
+     * Заголовок ответа с курсором следующей страницы.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FilmService filmService;
+    private final PopularFilmsCache popularFilmsCache;
+    private final NdjsonWriter ndjsonWriter;
+    private final PopularFilmsStream popularFilmsStream;
+    private final SimilarFilms similarFilms;
+    private final FilmSearch filmSearch;
 
     /**
      * Возвращает коллекцию всех фильмов.
@@ -36,11 +61,87 @@ public class FilmController {
      *
      * @return коллекция фильмов
      */
-    @GetMapping
+    @GetMapping(params = {"!limit", "!after", "!from", "!to", "!sort"})
     @ResponseStatus(HttpStatus.OK)
     public Collection<Film> findAll() {
-        log.debug("Получен список фильмов, количество = : {}", filmService.findAll().size());
-        return filmService.findAll();
+        Collection<Film> films = filmService.findAll();
+        log.debug("Получен список фильмов, количество = : {}", films.size());
+        return films;
+    }
+
+    /**
+     * Возвращает страницу фильмов, упорядоченных по идентификатору, или,
+     * если задан диапазон дат {@code from}–{@code to} либо {@code sort=releaseDate}
+     * ({@code -releaseDate} — сначала новые), — по дате релиза.
+     * <p>
+     * Если за страницей есть ещё фильмы, идентификатор её последнего фильма
+     * передаётся в заголовке {@value #NEXT_CURSOR_HEADER} и используется
+     * как параметр {@code after} для запроса следующей страницы.
+     *
+     * @param limit размер страницы
+     * @param after идентификатор последнего фильма предыдущей страницы
+     * @param from  первая дата релиза включительно
+     * @param to    последняя дата релиза включительно
+     * @param sort  порядок фильмов по дате релиза
+     * @return страница фильмов
+     */
+    @GetMapping
+    public ResponseEntity<List<Film>> findPage(
+            @RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final Long after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+            @RequestParam(required = false) final String sort) {
+        Page<Film> page = (from == null && to == null && sort == null)
+                ? filmService.findPage(after, limit)
+                : filmService.findByReleaseDate(from, to, sort, after, limit);
+        log.debug("Получена страница фильмов после id = {}, количество = {}", after, page.items().size());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Ищет фильмы по словам из названия и описания.
+     * <p>
+     * Фильм должен содержать все слова запроса в любой грамматической форме;
+     * последнее слово может быть недописанным.
+     *
+     * @param query запрос
+     * @param count количество фильмов
+     * @return найденные фильмы, самые подходящие первыми
+     */
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam("q") final String query,
+                             @RequestParam(required = false) final Integer count) {
+        List<Film> films = filmSearch.find(query, count);
+        log.debug("По запросу «{}» найдено фильмов: {}", query, films.size());
+        return films;
+    }
+
+    /**
+     * Выгружает все фильмы в формате NDJSON.
+     * <p>
+     * Фильмы записываются в ответ по одному по мере чтения из хранилища
+     * (из базы данных — курсором), поэтому расход памяти не зависит от их количества.
+     *
+     * @return поток фильмов, по одному JSON-объекту на строку
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.debug("Запрошена выгрузка фильмов");
+        StreamingResponseBody body = out -> {
+            long count;
+            try (Stream<Film> films = filmService.streamAll()) {
+                count = ndjsonWriter.write(films::iterator, out);
+            }
+            log.debug("Выгружено фильмов: {}", count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -98,17 +199,74 @@ public class FilmController {
         log.debug("Пользователь id = {} дизлайкнул фильм id = {}", userId, id);
     }
 
+    /**
+     * Применяет пакет операций с лайками одним запросом.
+     * <p>
+     * Ответ содержит результат каждой операции в порядке следования;
+     * ошибка в одной операции не отменяет остальные.
+     *
+     * @param operations операции вида {@code {"filmId": 1, "userId": 2, "action": "like"}}
+     * @return результаты операций
+     */
+    @PostMapping("/likes/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<LikeResult> applyLikes(@RequestBody final List<LikeOperation> operations) {
+        List<LikeResult> results = filmService.applyLikes(operations);
+        log.debug("Применён пакет из {} операций с лайками", results.size());
+        return results;
+    }
+
     /**
      * Возвращает список популярных фильмов.
+     * <p>
+     * Ответ берётся готовым из {@link PopularFilmsCache} вместе с ETag;
+     * если он совпадает с {@code If-None-Match}, возвращается 304 без тела.
      *
      * @param count количество фильмов для отображения; если не указано,
      * может использоваться значение по умолчанию
-     * @return список популярных фильмов, отсортированных по количеству лайков
+     * @return список популярных фильмов, отсортированных по количеству лайков, в JSON
      */
     @GetMapping({"/popular"})
-    @ResponseStatus(HttpStatus.OK)
-    public List<Film> popularFilms(@RequestParam("count") Integer count) {
+    public ResponseEntity<byte[]> popularFilms(@RequestParam("count") Integer count) {
+        PopularFilmsCache.Response response = popularFilmsCache.get(count);
         log.debug("Получен список из первых {} фильмов по количеству лайков", count);
-        return filmService.popularFilms(count);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .body(response.json());
+    }
+
+    /**
+     * Подписывает на изменения списка популярных фильмов (Server-Sent Events).
+     * <p>
+     * Первое событие {@code top} содержит текущий список; следующие приходят,
+     * только когда меняется состав или порядок фильмов в нём, — целиком
+     * ({@code top}) или, если {@code changes=true}, в виде изменения ({@code change}).
+     *
+     * @param count   количество фильмов в списке
+     * @param changes отправлять только изменения списка
+     * @return поток событий
+     */
+    @GetMapping(value = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter popularFilmsStream(@RequestParam(required = false) final Integer count,
+                                         @RequestParam(defaultValue = "false") final boolean changes) {
+        log.debug("Подписка на изменения первых {} популярных фильмов", count);
+        return popularFilmsStream.subscribe(count, changes);
+    }
+
+    /**
+     * Возвращает фильмы, которые чаще всего лайкали те же пользователи,
+     * что и данный фильм.
+     *
+     * @param id    идентификатор фильма
+     * @param count количество фильмов
+     * @return похожие фильмы, самые похожие первыми
+     */
+    @GetMapping("/{id}/similar")
+    public List<Film> similarFilms(@PathVariable final Long id,
+                                   @RequestParam(required = false) final Integer count) {
+        List<Film> films = similarFilms.find(id, count);
+        log.debug("Получено {} фильмов, похожих на фильм id = {}", films.size(), id);
+        return films;
     }
 }
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+
+import java.io.InputStream;
+
+/**
+ * Контроллер массового импорта фильмов и пользователей.
+ * <p>
+ * Тело запроса — массив JSON ({@code application/json}) или
+ * по одному объекту на строку ({@code application/x-ndjson}).
+ * Тело читается потоком и в память целиком не загружается.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+public class ImportController {
+    private final BulkImportService bulkImportService;
+
+    /**
+     * Импортирует фильмы.
+     *
+     * @param body фильмы в формате JSON или NDJSON
+     * @return отчёт с количеством добавленных фильмов и ошибками по позициям
+     */
+    @PostMapping(value = "/films/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public ImportReport importFilms(final InputStream body) {
+        ImportReport report = bulkImportService.importFilms(body);
+        log.debug("Импортировано фильмов: {}, отклонено: {}", report.imported(), report.rejected());
+        return report;
+    }
+
+    /**
+     * Импортирует пользователей.
+     *
+     * @param body пользователи в формате JSON или NDJSON
+     * @return отчёт с количеством добавленных пользователей и ошибками по позициям
+     */
+    @PostMapping(value = "/users/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public ImportReport importUsers(final InputStream body) {
+        ImportReport report = bulkImportService.importUsers(body);
+        log.debug("Импортировано пользователей: {}, отклонено: {}", report.imported(), report.rejected());
+        return report;
+    }
+}
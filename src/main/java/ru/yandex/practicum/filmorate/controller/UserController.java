@@ -3,14 +3,21 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.util.NdjsonWriter;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Контроллер для управления пользователями.
@@ -21,19 +28,71 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class UserController {
+    /**
+     * Заголовок ответа с курсором следующей страницы.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
+    private final NdjsonWriter ndjsonWriter;
 
     /**
      * Получение всех пользователей.
      *
      * @return коллекция всех пользователей
      */
-    @GetMapping
+    @GetMapping(params = {"!limit", "!after"})
     @ResponseStatus(HttpStatus.OK)
     public Collection<User> findAll() {
         return userService.findAll();
     }
 
+    /**
+     * Получение страницы пользователей, упорядоченных по id.
+     * <p>
+     * Если за страницей есть ещё пользователи, id её последнего пользователя
+     * передаётся в заголовке {@value #NEXT_CURSOR_HEADER} и используется
+     * как параметр {@code after} для запроса следующей страницы.
+     *
+     * @param limit размер страницы
+     * @param after id последнего пользователя предыдущей страницы
+     * @return страница пользователей
+     */
+    @GetMapping
+    public ResponseEntity<List<User>> findPage(@RequestParam(required = false) final Integer limit,
+                                               @RequestParam(required = false) final Long after) {
+        Page<User> page = userService.findPage(after, limit);
+        log.debug("Получена страница пользователей после id = {}, количество = {}", after, page.items().size());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Выгружает всех пользователей в формате NDJSON.
+     * <p>
+     * Пользователи записываются в ответ по одному по мере чтения из хранилища
+     * (из базы данных — курсором), поэтому расход памяти не зависит от их количества.
+     *
+     * @return поток пользователей, по одному JSON-объекту на строку
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.debug("Запрошена выгрузка пользователей");
+        StreamingResponseBody body = out -> {
+            long count;
+            try (Stream<User> users = userService.streamAll()) {
+                count = ndjsonWriter.write(users::iterator, out);
+            }
+            log.debug("Выгружено пользователей: {}", count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Добавление нового пользователя.
      *
@@ -90,6 +149,30 @@ public class UserController {
         return userService.deleteFriend(id, friendId);
     }
 
+    /**
+     * Находит пользователя по логину без учёта регистра.
+     *
+     * @param login логин
+     * @return найденный пользователь
+     */
+    @GetMapping("/by-login/{login}")
+    public User findByLogin(@PathVariable final String login) {
+        log.debug("Получен пользователь по логину {}", login);
+        return userService.findByLogin(login);
+    }
+
+    /**
+     * Находит пользователя по электронной почте без учёта регистра.
+     *
+     * @param email электронная почта
+     * @return найденный пользователь
+     */
+    @GetMapping("/by-email/{email}")
+    public User findByEmail(@PathVariable final String email) {
+        log.debug("Получен пользователь по электронной почте {}", email);
+        return userService.findByEmail(email);
+    }
+
     /**
      * Получает список друзей пользователя с идентификатором {@code id}.
      *
@@ -103,6 +186,22 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    /**
+     * Получает рекомендованных друзей пользователя с идентификатором {@code id}:
+     * пользователей, с которыми у него больше всего общих друзей.
+     *
+     * @param id идентификатор пользователя
+     * @param count количество рекомендаций
+     * @return рекомендации с количеством общих друзей, лучшие первыми
+     */
+    @GetMapping({"/{id}/friends/recommendations"})
+    @ResponseStatus(HttpStatus.OK)
+    public List<FriendRecommendation> recommendFriends(@PathVariable final Long id,
+                                                       @RequestParam(required = false) final Integer count) {
+        log.debug("Получены рекомендации друзей для пользователя с id = {}", id);
+        return userService.recommendFriends(id, count);
+    }
+
     /**
      * Получает список общих друзей (пересечение списков друзей)
      * пользователей с идентификаторами {@code id} и {@code otherId}.
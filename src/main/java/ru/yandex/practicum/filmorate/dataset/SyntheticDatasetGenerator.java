@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Заполняет хранилища синтетическим набором данных с распределениями,
+ * похожими на реальные.
+ * <p>
+ * Популярность пользователей (кого добавляют в друзья), популярность
+ * фильмов и активность пользователей (кто ставит лайки) подчиняются закону
+ * Ципфа: немногие пользователи и фильмы собирают большую часть дружб
+ * и лайков. Ранги распределений отображаются на идентификаторы через
+ * перестановку, поэтому популярные записи не сосредоточены в начале.
+ * <p>
+ * Набор данных полностью определяется параметрами, включая seed:
+ * генерация идёт в одном потоке от одного генератора случайных чисел.
+ * Пользователи, фильмы и дружбы добавляются в хранилища пакетами
+ * по {@value #CHUNK_SIZE}, лайки передаются пакетами того же размера.
+ */
+public final class SyntheticDatasetGenerator {
+    /** Размер пакета добавляемых записей и лайков. */
+    public static final int CHUNK_SIZE = 10_000;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1950, 1, 1);
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1950, 1, 1);
+
+    private final SyntheticDatasetProperties properties;
+
+    public SyntheticDatasetGenerator(final SyntheticDatasetProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Добавляет пользователей, фильмы, дружбы и лайки.
+     *
+     * @param userStorage хранилище пользователей; через него же добавляются дружбы
+     * @param filmStorage хранилище фильмов
+     * @param likes       получатель пакетов лайков, например
+     *                    {@code FilmService::applyLikes} или {@code LikeStorage::applyBatch}
+     * @return сводка о сгенерированных данных
+     */
+    public Summary generate(final UserStorage userStorage, final FilmStorage filmStorage,
+                            final Consumer<List<LikeOperation>> likes) {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(properties.seed());
+
+        long[] userIds = addUsers(userStorage, random);
+        long[] filmIds = addFilms(filmStorage, random);
+        long friendships = addFriendships(userStorage, userIds, random);
+        long likeCount = addLikes(likes, userIds, filmIds, random);
+
+        return new Summary(userIds.length, filmIds.length, friendships, likeCount,
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private long[] addUsers(final UserStorage userStorage, final SplittableRandom random) {
+        long[] ids = new long[properties.users()];
+        for (int from = 0; from < ids.length; from += CHUNK_SIZE) {
+            int to = Math.min(ids.length, from + CHUNK_SIZE);
+            List<User> users = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                users.add(User.builder()
+                        .email("user" + i + "@synthetic.example")
+                        .login("user" + i)
+                        .name("User " + i)
+                        .birthday(FIRST_BIRTHDAY.plusDays(random.nextInt(20_000)))
+                        .build());
+            }
+            List<User> added = userStorage.addAll(users);
+            for (int i = 0; i < added.size(); i++) {
+                ids[from + i] = added.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    private long[] addFilms(final FilmStorage filmStorage, final SplittableRandom random) {
+        long[] ids = new long[properties.films()];
+        for (int from = 0; from < ids.length; from += CHUNK_SIZE) {
+            int to = Math.min(ids.length, from + CHUNK_SIZE);
+            List<Film> films = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                films.add(Film.builder()
+                        .name("Film " + i)
+                        .description("Synthetic film " + i)
+                        .releaseDate(FIRST_RELEASE.plusDays(random.nextInt(27_000)))
+                        .duration(80 + random.nextInt(100))
+                        .build());
+            }
+            List<Film> added = filmStorage.addAll(films);
+            for (int i = 0; i < added.size(); i++) {
+                ids[from + i] = added.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    private long addFriendships(final UserStorage userStorage, final long[] userIds,
+                                final SplittableRandom random) {
+        if (userIds.length < 2) {
+            return 0;
+        }
+        ZipfSampler popularity = new ZipfSampler(userIds.length, properties.friendExponent());
+        Permutation permutation = new Permutation(userIds.length, random);
+        long added = 0;
+        long total = properties.friendships();
+        for (long done = 0; done < total; done += CHUNK_SIZE) {
+            int size = (int) Math.min(CHUNK_SIZE, total - done);
+            long[] users = new long[size];
+            long[] friends = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                long userId = userIds[random.nextInt(userIds.length)];
+                long friendId = userIds[permutation.apply(popularity.sample(random))];
+                if (userId != friendId) {
+                    users[count] = userId;
+                    friends[count++] = friendId;
+                }
+            }
+            userStorage.loadFriendships(Arrays.copyOf(users, count), Arrays.copyOf(friends, count));
+            added += count;
+        }
+        return added;
+    }
+
+    private long addLikes(final Consumer<List<LikeOperation>> likes, final long[] userIds, final long[] filmIds,
+                          final SplittableRandom random) {
+        if (userIds.length == 0 || filmIds.length == 0) {
+            return 0;
+        }
+        ZipfSampler popularity = new ZipfSampler(filmIds.length, properties.filmExponent());
+        ZipfSampler activity = new ZipfSampler(userIds.length, properties.activityExponent());
+        Permutation filmPermutation = new Permutation(filmIds.length, random);
+        Permutation userPermutation = new Permutation(userIds.length, random);
+        long total = properties.likes();
+        for (long done = 0; done < total; done += CHUNK_SIZE) {
+            int size = (int) Math.min(CHUNK_SIZE, total - done);
+            List<LikeOperation> operations = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                operations.add(new LikeOperation(
+                        filmIds[filmPermutation.apply(popularity.sample(random))],
+                        userIds[userPermutation.apply(activity.sample(random))],
+                        LikeOperation.Action.LIKE));
+            }
+            likes.accept(operations);
+        }
+        return total;
+    }
+
+    /**
+     * Сводка о сгенерированном наборе данных.
+     *
+     * @param users       количество добавленных пользователей
+     * @param films       количество добавленных фильмов
+     * @param friendships количество вызовов добавления дружбы, включая повторы
+     * @param likes       количество операций лайка, включая повторы
+     * @param elapsed     время генерации
+     */
+    public record Summary(int users, int films, long friendships, long likes, Duration elapsed) {
+    }
+
+    /**
+     * Перестановка индексов {@code 0..n-1}, задаваемая умножением
+     * на взаимно простой с {@code n} множитель и сдвигом.
+     */
+    private static final class Permutation {
+        private final long n;
+        private final long multiplier;
+        private final long offset;
+
+        Permutation(final long n, final SplittableRandom random) {
+            this.n = n;
+            long candidate = n == 1 ? 1 : 1 + random.nextLong(n - 1);
+            while (gcd(candidate, n) != 1) {
+                candidate++;
+            }
+            this.multiplier = candidate;
+            this.offset = random.nextLong(n);
+        }
+
+        /**
+         * Отображает ранг {@code 1..n} в индекс массива.
+         */
+        int apply(final long rank) {
+            return (int) (((rank - 1) * multiplier + offset) % n);
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Заполняет хранилища синтетическим набором данных при запуске
+ * с профилем {@code synthetic}.
+ * <p>
+ * Генерация выполняется до запуска веб-сервера, поэтому первые запросы
+ * уже видят полный набор данных. Если в хранилище уже есть пользователи
+ * (например, восстановленные из журнала), набор данных не генерируется.
+ */
+@Slf4j
+@Component
+@Profile("synthetic")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SyntheticDatasetProperties.class)
+public class SyntheticDatasetLoader implements SmartLifecycle {
+    private final SyntheticDatasetProperties properties;
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!userStorage.findPage(null, 1).isEmpty()) {
+            log.info("Хранилище не пустое, синтетический набор данных не генерируется");
+            return;
+        }
+
+        log.info("Генерация синтетического набора данных: {}", properties);
+        SyntheticDatasetGenerator.Summary summary = new SyntheticDatasetGenerator(properties)
+                .generate(userStorage, filmStorage, filmService::applyLikes);
+        log.info("Синтетический набор данных сгенерирован за {} мс: {} пользователей, {} фильмов, "
+                        + "{} дружб и {} лайков с повторами",
+                summary.elapsed().toMillis(), summary.users(), summary.films(),
+                summary.friendships(), summary.likes());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Раньше всех остальных компонентов, в том числе веб-сервера.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
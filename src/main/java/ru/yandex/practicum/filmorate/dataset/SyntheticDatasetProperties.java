@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Параметры синтетического набора данных ({@code filmorate.synthetic.*}).
+ *
+ * @param seed               начальное значение генератора; один и тот же seed
+ *                           даёт один и тот же набор данных
+ * @param users              количество пользователей
+ * @param films              количество фильмов
+ * @param friendships        сколько раз добавляется дружба; повторы и петли
+ *                           отбрасываются, поэтому дружб получается меньше
+ * @param likes              сколько раз ставится лайк; повторные лайки
+ *                           не учитываются, поэтому лайков получается меньше
+ * @param friendExponent     показатель распределения Ципфа для популярности пользователей
+ * @param filmExponent       показатель распределения Ципфа для популярности фильмов
+ * @param activityExponent   показатель распределения Ципфа для активности пользователей,
+ *                           то есть того, как часто пользователь ставит лайки
+ */
+@ConfigurationProperties("filmorate.synthetic")
+public record SyntheticDatasetProperties(
+        @DefaultValue("42") long seed,
+        @DefaultValue("100000") int users,
+        @DefaultValue("10000") int films,
+        @DefaultValue("1000000") long friendships,
+        @DefaultValue("1000000") long likes,
+        @DefaultValue("1.0") double friendExponent,
+        @DefaultValue("1.1") double filmExponent,
+        @DefaultValue("0.8") double activityExponent) {
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Выборка рангов {@code 1..n} по закону Ципфа: вероятность ранга {@code k}
+ * пропорциональна {@code 1 / k^exponent}.
+ * <p>
+ * Используется метод отбора с обращением (rejection-inversion,
+ * W. Hörmann, G. Derflinger): выборка занимает O(1) времени и памяти
+ * независимо от {@code n}, без таблиц накопленных вероятностей.
+ * Объект неизменяемый; источник случайных чисел передаётся в каждый вызов.
+ */
+public final class ZipfSampler {
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * @param n        количество рангов, не меньше 1
+     * @param exponent показатель степени, не меньше 0; 0 — равномерное распределение
+     */
+    public ZipfSampler(long n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Количество рангов должно быть положительным: " + n);
+        }
+        if (!(exponent >= 0)) {
+            throw new IllegalArgumentException("Показатель степени не может быть отрицательным: " + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Возвращает случайный ранг от 1 до {@code n}; ранг 1 самый частый.
+     */
+    public long sample(RandomGenerator random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(x * (1 - exponent), -1);
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x / 2 * (1 + x / 3 * (1 + x / 4));
+    }
+
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Генерация синтетических наборов данных для нагрузочного тестирования и бенчмарков.
+ */
+package ru.yandex.practicum.filmorate.dataset;
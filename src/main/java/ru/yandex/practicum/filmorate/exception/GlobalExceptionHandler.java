@@ -1,5 +1,8 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -22,9 +25,13 @@ import java.util.stream.Collectors;
  * <p>
  * Все обработчики возвращают структурированный ответ с информацией об ошибке,
  * временем и соответствующим HTTP статусом.
+ * <p>
+ * Каждая обработанная ошибка увеличивает счётчик {@code filmorate.errors}
+ * с тегами типа исключения и HTTP статуса.
  */
 @RestControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class GlobalExceptionHandler extends RuntimeException {
     /**
      * Константы для статусов HTTP 404 (Bad BAD_REQUEST),
@@ -34,6 +41,8 @@ public class GlobalExceptionHandler extends RuntimeException {
     private static final int HTTP_STATUS_NOT_FOUND = 404;
     private static final int HTTP_STATUS_INTERNAL_SERVER_ERROR = 500;
 
+    private final transient MeterRegistry meterRegistry;
+
     /**
      * Обрабатывает исключения, возникающие при неправильных аргументах метода.
      *
@@ -56,6 +65,7 @@ public class GlobalExceptionHandler extends RuntimeException {
 
         body.put("errorMessages", errors);
         log.warn(String.valueOf(errors));
+        countError(ex, HttpStatus.BAD_REQUEST);
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
@@ -74,6 +84,7 @@ public class GlobalExceptionHandler extends RuntimeException {
         body.put("error", ex.getMessage());
 
         log.warn(ex.getMessage());
+        countError(ex, HttpStatus.NOT_FOUND);
         return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
     }
 
@@ -92,6 +103,7 @@ public class GlobalExceptionHandler extends RuntimeException {
         body.put("error", ex.getMessage());
 
         log.warn(ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
@@ -110,6 +122,22 @@ public class GlobalExceptionHandler extends RuntimeException {
         body.put("status", HTTP_STATUS_BAD_REQUEST);
         body.put("errorMessages", ex.getErrors());
 
+        countError(ex, HttpStatus.BAD_REQUEST);
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Увеличивает счётчик ошибок для типа исключения и статуса ответа.
+     *
+     * @param ex     обработанное исключение
+     * @param status HTTP статус ответа
+     */
+    private void countError(final Exception ex, final HttpStatus status) {
+        Counter.builder("filmorate.errors")
+                .description("Ошибки, возвращённые клиентам")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
 }
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Записывает сообщения Logbook в журнал в отдельном потоке.
+ * <p>
+ * Поток запроса только кладёт готовое сообщение в ограниченную очередь
+ * и не ждёт вывода журнала. Если очередь заполнена, сообщение
+ * отбрасывается и учитывается счётчиком {@code filmorate.request.log.dropped}:
+ * при всплеске нагрузки журнал теряет записи, а запросы не замедляются.
+ * <p>
+ * Сообщения пишутся тем же логгером и с тем же уровнем {@code TRACE},
+ * что и у стандартного писателя Logbook, поэтому включаются и выключаются
+ * той же настройкой {@code logging.level.org.zalando.logbook}.
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter {
+    /** Сколько сообщений поток записи забирает из очереди за раз. */
+    private static final int DRAIN_BATCH = 256;
+    private static final Logger LOGBOOK = LoggerFactory.getLogger("org.zalando.logbook.Logbook");
+
+    private final BlockingQueue<String> queue;
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Создаёт писатель и запускает поток записи.
+     *
+     * @param queueCapacity ёмкость очереди сообщений
+     * @param meterRegistry реестр метрик для счётчика отброшенных сообщений
+     */
+    public AsyncHttpLogWriter(final int queueCapacity, final MeterRegistry meterRegistry) {
+        this(queueCapacity, meterRegistry, BackgroundThreads.PLATFORM);
+    }
+
+    /**
+     * Создаёт писатель и запускает поток записи заданного вида.
+     *
+     * @param queueCapacity ёмкость очереди сообщений
+     * @param meterRegistry реестр метрик для счётчика отброшенных сообщений
+     * @param threads       вид потока записи
+     */
+    public AsyncHttpLogWriter(final int queueCapacity, final MeterRegistry meterRegistry,
+                              final BackgroundThreads threads) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = Counter.builder("filmorate.request.log.dropped")
+                .description("Сообщения журнала запросов, отброшенные из-за переполнения очереди")
+                .register(meterRegistry);
+        this.writer = threads.start("request-log-writer", this::drain);
+    }
+
+    @Override
+    public boolean isActive() {
+        return LOGBOOK.isTraceEnabled();
+    }
+
+    @Override
+    public void write(final Precorrelation precorrelation, final String request) {
+        enqueue(request);
+    }
+
+    @Override
+    public void write(final Correlation correlation, final String response) {
+        enqueue(response);
+    }
+
+    /**
+     * Останавливает поток записи, дописав сообщения, которые уже в очереди.
+     */
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(final String message) {
+        if (closed || !queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(DRAIN_BATCH);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, DRAIN_BATCH - 1);
+            writeAll(batch);
+        }
+        queue.drainTo(batch);
+        writeAll(batch);
+    }
+
+    private void writeAll(final List<String> batch) {
+        try {
+            for (String message : batch) {
+                LOGBOOK.trace(message);
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи журнала запросов", e);
+        }
+        batch.clear();
+    }
+}
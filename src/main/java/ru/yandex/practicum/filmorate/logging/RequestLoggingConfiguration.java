@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Выборочное и асинхронное журналирование запросов.
+ * <p>
+ * Заменяет компоненты автоконфигурации Logbook: условие журналирования
+ * запроса ({@code requestCondition}) и, если включено
+ * {@code filmorate.request-logging.async}, писатель журнала.
+ * Исключения путей из {@code logbook.predicate.exclude} Logbook
+ * по-прежнему применяет сам.
+ */
+@Configuration
+@EnableConfigurationProperties(RequestLoggingProperties.class)
+public class RequestLoggingConfiguration {
+
+    /**
+     * Журналирует случайную долю запросов {@code filmorate.request-logging.sample-rate}.
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(final RequestLoggingProperties properties) {
+        double sampleRate = properties.sampleRate();
+        if (sampleRate >= 1) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Писатель журнала с фоновым потоком и ограниченной очередью.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "filmorate.request-logging.async", havingValue = "true")
+    public HttpLogWriter asyncHttpLogWriter(final RequestLoggingProperties properties,
+                                            final MeterRegistry meterRegistry,
+                                            final BackgroundThreads threads) {
+        return new AsyncHttpLogWriter(properties.queueCapacity(), meterRegistry, threads);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки журналирования запросов ({@code filmorate.request-logging.*}).
+ * <p>
+ * Ограничение размера тел и исключение путей настраиваются штатными
+ * параметрами Logbook: {@code logbook.write.max-body-size}
+ * и {@code logbook.predicate.exclude}.
+ *
+ * @param sampleRate    доля журналируемых запросов от 0 до 1; остальные
+ *                      запросы Logbook пропускает целиком, не буферизуя тела
+ * @param async         записывать ли журнал в отдельном потоке
+ * @param queueCapacity сколько записей может ждать фоновой записи; записи
+ *                      сверх этого отбрасываются, а не задерживают запрос
+ */
+@ConfigurationProperties("filmorate.request-logging")
+public record RequestLoggingProperties(
+        @DefaultValue("1.0") double sampleRate,
+        @DefaultValue("false") boolean async,
+        @DefaultValue("10000") int queueCapacity) {
+}
@@ -0,0 +1,4 @@
+/**
+ * Журналирование HTTP-запросов и ответов через Logbook.
+ */
+package ru.yandex.practicum.filmorate.logging;
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Рекомендованный друг.
+ *
+ * @param user          пользователь, которого рекомендуется добавить в друзья
+ * @param mutualFriends количество общих друзей, найденных при обходе
+ */
+public record FriendRecommendation(User user, int mutualFriends) {
+}
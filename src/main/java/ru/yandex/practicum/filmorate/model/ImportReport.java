@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Отчёт о массовом импорте.
+ *
+ * @param imported количество добавленных записей
+ * @param rejected количество отклонённых записей
+ * @param errors   ошибки отклонённых записей; в отчёт попадают
+ *                 только первые из них, общее количество — в {@code rejected}
+ */
+public record ImportReport(long imported, long rejected, List<ImportError> errors) {
+
+    /**
+     * Ошибка одной записи импорта.
+     *
+     * @param position порядковый номер записи во входных данных, начиная с 0
+     * @param messages сообщения об ошибках
+     */
+    public record ImportError(long position, List<String> messages) {
+    }
+}
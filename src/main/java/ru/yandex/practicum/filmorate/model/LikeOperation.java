@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Операция пакетного изменения лайков.
+ *
+ * @param filmId идентификатор фильма
+ * @param userId идентификатор пользователя
+ * @param action действие: поставить или убрать лайк
+ */
+public record LikeOperation(Long filmId, Long userId, Action action) {
+
+    /**
+     * Действие с лайком.
+     */
+    public enum Action {
+        /** Поставить лайк. */
+        @JsonProperty("like")
+        LIKE,
+        /** Убрать лайк. */
+        @JsonProperty("unlike")
+        UNLIKE
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Результат одной операции пакетного изменения лайков.
+ *
+ * @param filmId идентификатор фильма
+ * @param userId идентификатор пользователя
+ * @param action выполненное действие
+ * @param status итог операции
+ * @param error  причина, по которой операция не выполнена; null при успехе
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LikeResult(Long filmId, Long userId, LikeOperation.Action action, Status status, String error) {
+
+    /**
+     * Итог операции с лайком.
+     */
+    public enum Status {
+        /** Лайк поставлен или убран. */
+        @JsonProperty("applied")
+        APPLIED,
+        /** Лайк уже был в нужном состоянии. */
+        @JsonProperty("unchanged")
+        UNCHANGED,
+        /** Операция задана не полностью. */
+        @JsonProperty("invalid")
+        INVALID,
+        /** Фильм или пользователь не найден. */
+        @JsonProperty("not_found")
+        NOT_FOUND
+    }
+
+    /**
+     * Создаёт результат операции без ошибки.
+     */
+    public static LikeResult of(final LikeOperation operation, final Status status) {
+        return new LikeResult(operation.filmId(), operation.userId(), operation.action(), status, null);
+    }
+
+    /**
+     * Создаёт результат невыполненной операции.
+     */
+    public static LikeResult failed(final LikeOperation operation, final Status status, final String error) {
+        return new LikeResult(operation.filmId(), operation.userId(), operation.action(), status, error);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Страница элементов, полученная по курсору.
+ *
+ * @param items      элементы страницы
+ * @param nextCursor курсор следующей страницы (id последнего элемента);
+ *                   null, если страница последняя
+ * @param <T>        тип элементов
+ */
+public record Page<T>(List<T> items, Long nextCursor) {
+    /** Размер страницы по умолчанию. */
+    public static final int DEFAULT_SIZE = 100;
+    /** Максимальный размер страницы. */
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * Возвращает размер страницы по запрошенному.
+     *
+     * @param limit запрошенный размер; если null или меньше либо равен нулю,
+     *              используется {@value #DEFAULT_SIZE}, больше {@value #MAX_SIZE} — ограничивается им
+     * @return размер страницы
+     */
+    public static int size(final Integer limit) {
+        return (limit == null || limit <= 0) ? DEFAULT_SIZE : Math.min(limit, MAX_SIZE);
+    }
+
+    /**
+     * Собирает страницу из выборки на один элемент больше страницы:
+     * лишний элемент отрезается, и если он был, курсором служит id
+     * последнего элемента страницы.
+     *
+     * @param items выборка не больше чем из {@code size + 1} элементов
+     * @param size  размер страницы
+     * @param id    идентификатор элемента
+     * @param <T>   тип элементов
+     * @return страница с курсором следующей страницы
+     */
+    public static <T> Page<T> of(final List<T> items, final int size, final ToLongFunction<T> id) {
+        if (items.size() <= size) {
+            return new Page<>(items, null);
+        }
+
+        List<T> page = items.subList(0, size);
+        return new Page<>(page, id.applyAsLong(page.get(size - 1)));
+    }
+}
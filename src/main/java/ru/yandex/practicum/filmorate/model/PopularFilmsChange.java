@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Изменение списка популярных фильмов с момента предыдущего события.
+ *
+ * @param ids     идентификаторы фильмов нового списка в порядке популярности
+ * @param added   фильмы, вошедшие в список
+ * @param removed идентификаторы фильмов, выбывших из списка
+ */
+public record PopularFilmsChange(List<Long> ids, List<Film> added, List<Long> removed) {
+}
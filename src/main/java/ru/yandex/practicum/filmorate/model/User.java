@@ -8,9 +8,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.experimental.FieldDefaults;
 
+import ru.yandex.practicum.filmorate.util.SortedIdSet;
+
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Модель пользователя с валидацией.
@@ -46,9 +46,13 @@ public class User {
 
     /**
      * Множество идентификаторов друзей пользователя.
+     * <p>
+     * Множество потокобезопасно: его можно обходить параллельно с изменением.
+     * Идентификаторы хранятся отсортированными, что позволяет быстро
+     * находить общих друзей.
      */
     @Builder.Default
-    Set<Long> friends = new HashSet<>();
+    SortedIdSet friends = new SortedIdSet();
 
     /**
      * Добавляет идентификатор друга в множество друзей пользователя.
@@ -57,7 +61,7 @@ public class User {
      */
     public void addFriend(Long friendId) {
         if (friends == null) {
-            friends = new HashSet<>();
+            friends = new SortedIdSet();
         }
         friends.add(friendId);
     }
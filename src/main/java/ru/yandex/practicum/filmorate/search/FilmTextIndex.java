@@ -0,0 +1,502 @@
+package ru.yandex.practicum.filmorate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названию и описанию фильмов с ранжированием BM25.
+ * <p>
+ * Словарь — хеш-таблица от основы слова к списку фильмов (постингам):
+ * id фильмов по возрастанию и частота основы в фильме. Отдельно хранится
+ * упорядоченное множество основ: поиск по префиксу — его диапазон
+ * от префикса до последней начинающейся с него основы. Слово в названии весит {@value #NAME_WEIGHT}
+ * слова в описании (BM25F с весами полей).
+ * <p>
+ * Фильм должен содержать все слова запроса. Последнее слово запроса,
+ * если после него нет пробела, считается недописанным: кроме его основы
+ * подходят основы, начинающиеся с него, — не больше {@code maxPrefixTerms}
+ * первых по алфавиту. Кандидаты берутся из самого короткого списка,
+ * остальные слова проверяются двоичным поиском в своих списках, поэтому
+ * время запроса определяется самым редким словом.
+ * <p>
+ * Для фильма хранятся ссылки на проиндексированные название и описание:
+ * при изменении фильма по ним удаляются прежние постинги. Строки в памяти
+ * общие с хранилищем, поэтому {@link #sizeInBytes()} учитывает только ссылки.
+ * Индекс рассчитан на последовательные id фильмов, как их выдают хранилища:
+ * данные фильма лежат в массивах по id.
+ * <p>
+ * Изменения выполняются под исключительной блокировкой, поиск —
+ * под общей.
+ */
+public class FilmTextIndex {
+    /** Вес слова в названии относительно слова в описании. */
+    static final int NAME_WEIGHT = 3;
+    /** Параметры BM25. */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /** Префиксы короче не раскрываются. */
+    private static final int MIN_PREFIX = 2;
+    /** Оценка памяти записей словаря и упорядоченного множества и строки основы без символов, байт. */
+    private static final int TERM_OVERHEAD = 48 + 40 + 40;
+    /** Оценка памяти постингов без массивов, байт. */
+    private static final int POSTINGS_OVERHEAD = 24 + 2 * 16;
+
+    private final RussianAnalyzer analyzer;
+    private final int maxPrefixTerms;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final NavigableSet<String> sortedTerms = new TreeSet<>();
+    private String[] names = new String[16];
+    private String[] descriptions = new String[16];
+    private int[] lengths = new int[16];
+    private int documents;
+    private long totalLength;
+    private long termBytes;
+    private long postingBytes;
+
+    /**
+     * Создаёт пустой индекс.
+     *
+     * @param analyzer       анализатор текста
+     * @param maxPrefixTerms сколько основ подставляется вместо недописанного слова
+     */
+    public FilmTextIndex(final RussianAnalyzer analyzer, final int maxPrefixTerms) {
+        this.analyzer = analyzer;
+        this.maxPrefixTerms = maxPrefixTerms;
+    }
+
+    /**
+     * Добавляет фильм или заменяет его прежнюю версию.
+     *
+     * @param id          id фильма
+     * @param name        название
+     * @param description описание
+     */
+    public void put(final long id, final String name, final String description) {
+        if (id <= 0 || id >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Недопустимый id фильма: " + id);
+        }
+        int doc = (int) id;
+        Map<String, Integer> frequencies = frequencies(name, description);
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(doc);
+            if (names[doc] != null || descriptions[doc] != null) {
+                if (sameText(doc, name, description)) {
+                    return;
+                }
+                remove(doc);
+            }
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings postings = terms.get(entry.getKey());
+                if (postings == null) {
+                    postings = new Postings();
+                    terms.put(entry.getKey(), postings);
+                    sortedTerms.add(entry.getKey());
+                    termBytes += TERM_OVERHEAD + entry.getKey().length();
+                    postingBytes += POSTINGS_OVERHEAD;
+                }
+                postingBytes += postings.put(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            names[doc] = name == null ? "" : name;
+            descriptions[doc] = description == null ? "" : description;
+            lengths[doc] = length;
+            documents++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет фильмы, содержащие все слова запроса, лучшие первыми.
+     *
+     * @param query запрос
+     * @param limit сколько фильмов вернуть
+     * @return id фильмов по убыванию релевантности, при равенстве — по возрастанию id
+     */
+    public long[] search(final String query, final int limit) {
+        List<String> tokens = analyzer.tokens(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        boolean prefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            List<Postings[]> clauses = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                Postings[] clause = clause(tokens.get(i), prefix && i == tokens.size() - 1);
+                if (clause.length == 0) {
+                    return new long[0];
+                }
+                clauses.add(clause);
+            }
+            clauses.sort((a, b) -> Long.compare(size(a), size(b)));
+
+            double averageLength = (double) totalLength / documents;
+            Scores candidates = candidates(clauses.get(0), averageLength);
+            for (int i = 1; i < clauses.size() && candidates.size > 0; i++) {
+                candidates.intersect(clauses.get(i), this, averageLength);
+            }
+            return candidates.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество проиндексированных фильмов.
+     */
+    public int documents() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество основ в словаре.
+     */
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Оценивает память индекса: словарь, постинги и массивы данных фильмов.
+     * Тексты фильмов не учитываются — они общие с хранилищем.
+     *
+     * @return оценка в байтах
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return termBytes + postingBytes + 16L * 3 + (long) names.length * (4 + 4 + 4);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Integer> frequencies(final String name, final String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        analyzer.analyze(name, term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        analyzer.analyze(description, term -> frequencies.merge(term, 1, Integer::sum));
+        return frequencies;
+    }
+
+    private boolean sameText(final int doc, final String name, final String description) {
+        return names[doc].equals(name == null ? "" : name)
+                && descriptions[doc].equals(description == null ? "" : description);
+    }
+
+    private void remove(final int doc) {
+        for (String term : frequencies(names[doc], descriptions[doc]).keySet()) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                continue;
+            }
+            postingBytes += postings.remove(doc);
+            if (postings.size == 0) {
+                terms.remove(term);
+                sortedTerms.remove(term);
+                termBytes -= TERM_OVERHEAD + term.length();
+                postingBytes -= POSTINGS_OVERHEAD + postings.capacityBytes();
+            }
+        }
+        documents--;
+        totalLength -= lengths[doc];
+        names[doc] = null;
+        descriptions[doc] = null;
+        lengths[doc] = 0;
+    }
+
+    private void ensureCapacity(final int doc) {
+        if (doc < names.length) {
+            return;
+        }
+        int capacity = Math.max(doc + 1, (int) Math.min(Integer.MAX_VALUE - 8, names.length * 2L));
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    private Postings[] clause(final String token, final boolean prefix) {
+        String stem = analyzer.stem(token);
+        List<Postings> postings = new ArrayList<>();
+        Postings exact = terms.get(stem);
+        if (exact != null) {
+            postings.add(exact);
+        }
+        if (prefix && token.length() >= MIN_PREFIX) {
+            int expanded = 0;
+            for (String term : sortedTerms.subSet(token, true, token + Character.MAX_VALUE, false)) {
+                if (expanded++ == maxPrefixTerms) {
+                    break;
+                }
+                if (!term.equals(stem)) {
+                    postings.add(terms.get(term));
+                }
+            }
+        }
+        return postings.toArray(new Postings[0]);
+    }
+
+    private static long size(final Postings[] clause) {
+        long size = 0;
+        for (Postings postings : clause) {
+            size += postings.size;
+        }
+        return size;
+    }
+
+    private Scores candidates(final Postings[] clause, final double averageLength) {
+        if (clause.length == 1) {
+            Postings postings = clause[0];
+            Scores scores = new Scores(postings.size);
+            double idf = idf(postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                scores.add(postings.docs[i], score(idf, postings.frequencies[i], postings.docs[i], averageLength));
+            }
+            return scores;
+        }
+
+        // Несколько основ одного слова: фильм получает лучшую из их оценок.
+        long[] keys = new long[(int) size(clause)];
+        int n = 0;
+        for (Postings postings : clause) {
+            double idf = idf(postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                float score = (float) score(idf, postings.frequencies[i], postings.docs[i], averageLength);
+                keys[n++] = (long) postings.docs[i] << Integer.SIZE | Float.floatToIntBits(score);
+            }
+        }
+        Arrays.sort(keys);
+        Scores scores = new Scores(n);
+        for (int i = 0; i < n; i++) {
+            if (i + 1 < n && keys[i + 1] >>> Integer.SIZE == keys[i] >>> Integer.SIZE) {
+                continue;
+            }
+            scores.add((int) (keys[i] >>> Integer.SIZE), Float.intBitsToFloat((int) keys[i]));
+        }
+        return scores;
+    }
+
+    private double idf(final int documentFrequency) {
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double score(final double idf, final int frequency, final int doc, final double averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengths[doc] / averageLength));
+    }
+
+    /**
+     * Фильмы, содержащие основу: id по возрастанию и частоты.
+     */
+    private static final class Postings {
+        private int[] docs = new int[1];
+        private int[] frequencies = new int[1];
+        private int size;
+
+        /**
+         * Добавляет фильм; фильмы обычно добавляются по возрастанию id,
+         * и вставка сводится к записи в конец.
+         *
+         * @return изменение памяти массивов, байт
+         */
+        long put(final int doc, final int frequency) {
+            int i = size > 0 && docs[size - 1] < doc ? -size - 1 : Arrays.binarySearch(docs, 0, size, doc);
+            if (i >= 0) {
+                frequencies[i] = frequency;
+                return 0;
+            }
+            i = -i - 1;
+            long grown = 0;
+            if (size == docs.length) {
+                long before = capacityBytes();
+                int capacity = size + Math.max(1, size >> 1);
+                docs = Arrays.copyOf(docs, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                grown = capacityBytes() - before;
+            }
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(frequencies, i, frequencies, i + 1, size - i);
+            docs[i] = doc;
+            frequencies[i] = frequency;
+            size++;
+            return grown;
+        }
+
+        /**
+         * Удаляет фильм.
+         *
+         * @return изменение памяти массивов, байт
+         */
+        long remove(final int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) {
+                return 0;
+            }
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+            size--;
+            return 0;
+        }
+
+        int frequency(final int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            return i < 0 ? 0 : frequencies[i];
+        }
+
+        long capacityBytes() {
+            return (long) docs.length * (Integer.BYTES + Integer.BYTES);
+        }
+    }
+
+    /**
+     * Кандидаты в результаты с накопленными оценками, по возрастанию id.
+     */
+    private static final class Scores {
+        private final int[] docs;
+        private final double[] scores;
+        private int size;
+
+        Scores(final int capacity) {
+            docs = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        void add(final int doc, final double score) {
+            docs[size] = doc;
+            scores[size++] = score;
+        }
+
+        /**
+         * Оставляет кандидатов, содержащих слово, и добавляет лучшую оценку его основ.
+         */
+        void intersect(final Postings[] clause, final FilmTextIndex index, final double averageLength) {
+            double[] idf = new double[clause.length];
+            for (int j = 0; j < clause.length; j++) {
+                idf[j] = index.idf(clause[j].size);
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                double best = 0;
+                for (int j = 0; j < clause.length; j++) {
+                    int frequency = clause[j].frequency(docs[i]);
+                    if (frequency > 0) {
+                        best = Math.max(best, index.score(idf[j], frequency, docs[i], averageLength));
+                    }
+                }
+                if (best > 0) {
+                    docs[kept] = docs[i];
+                    scores[kept++] = scores[i] + best;
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Возвращает id лучших кандидатов.
+         */
+        long[] top(final int limit) {
+            if (size > 4L * limit) {
+                return topBySelection(limit);
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            int count = Math.min(limit, size);
+            Arrays.sort(order, (a, b) -> scores[a] != scores[b]
+                    ? Double.compare(scores[b], scores[a])
+                    : Integer.compare(docs[a], docs[b]));
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = docs[order[i]];
+            }
+            return result;
+        }
+
+        private long[] topBySelection(final int limit) {
+            // Куча худших из лучших: в корне кандидат с наименьшей оценкой, при равенстве — с большим id.
+            int[] heap = new int[limit];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n < limit) {
+                    heap[n] = i;
+                    siftUp(heap, n++);
+                } else if (better(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, n);
+                }
+            }
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = heap[i];
+            }
+            Arrays.sort(order, (a, b) -> better(a, b) ? -1 : better(b, a) ? 1 : 0);
+            long[] result = new long[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = docs[order[i]];
+            }
+            return result;
+        }
+
+        private boolean better(final int a, final int b) {
+            return scores[a] != scores[b] ? scores[a] > scores[b] : docs[a] < docs[b];
+        }
+
+        private void siftUp(final int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (!better(heap[parent], heap[i])) {
+                    break;
+                }
+                swap(heap, parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(final int[] heap, final int n) {
+            int i = 0;
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < n && better(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < n && better(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(heap, i, worst);
+                i = worst;
+            }
+        }
+
+        private static void swap(final int[] heap, final int i, final int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+}
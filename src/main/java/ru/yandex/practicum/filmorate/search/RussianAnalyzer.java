@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Анализатор текста для поиска: разбивает текст на слова, приводит их
+ * к нижнему регистру, заменяет «ё» на «е», отбрасывает служебные слова
+ * и отсекает у русских слов окончания.
+ * <p>
+ * Отсечение окончаний — лёгкое (в духе стеммера Ж. Савоя): снимается одно
+ * самое длинное подходящее падежное окончание так, чтобы основа осталась
+ * не короче {@value #MIN_STEM} букв, затем мягкий знак или конечное «и»
+ * и удвоенное «н». Формы одного слова — «матрица», «матрицы», «матрицей» —
+ * дают одну основу, а разные слова почти не склеиваются. Слова латиницей
+ * и числа не изменяются.
+ */
+public final class RussianAnalyzer {
+    /** Минимальная длина основы после отсечения окончания. */
+    private static final int MIN_STEM = 3;
+    /** Слова длиннее отбрасываются: это не слова, а, например, ссылки. */
+    private static final int MAX_TOKEN = 40;
+    /** Окончания по убыванию длины. */
+    private static final String[][] ENDINGS = {
+            {"иями", "оями"},
+            {"иям", "иях", "оях", "ями", "оям", "ами", "его", "ему", "ими", "ого", "ому", "ыми", "оев"},
+            {"ая", "яя", "ях", "юю", "ах", "ею", "их", "ия", "ию", "ою", "ую", "ям", "ых", "ея", "ам", "ем",
+                "ей", "ев", "ий", "им", "ое", "ой", "ом", "ов", "ые", "ый", "ым", "ми"},
+            {"а", "е", "и", "о", "у", "й", "ы", "я", "ь"}
+    };
+    private static final Set<String> STOP_WORDS = Set.of(
+            "а", "без", "бы", "в", "во", "вот", "все", "вы", "да", "для", "до", "его", "ее",
+            "ей", "если", "есть", "еще", "же", "за", "и", "из", "или", "им", "их", "к", "как", "ко",
+            "ли", "мы", "на", "над", "не", "нее", "нет", "ни", "но", "о", "об", "от", "по", "под",
+            "при", "про", "с", "со", "так", "то", "ты", "у", "уже", "что", "это", "я",
+            "a", "an", "and", "at", "by", "for", "in", "is", "of", "on", "or", "the", "to");
+
+    /**
+     * Передаёт основы слов текста в порядке следования, без служебных слов.
+     *
+     * @param text  текст; {@code null} считается пустым
+     * @param terms получатель основ
+     */
+    public void analyze(final String text, final Consumer<String> terms) {
+        tokenize(text, token -> terms.accept(stem(token)));
+    }
+
+    /**
+     * Возвращает нормализованные слова текста без отсечения окончаний.
+     *
+     * @param text текст; {@code null} считается пустым
+     * @return слова в нижнем регистре без служебных слов
+     */
+    public List<String> tokens(final String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * Отсекает окончание нормализованного слова.
+     *
+     * @param token слово в нижнем регистре
+     * @return основа слова
+     */
+    public String stem(final String token) {
+        if (!isCyrillic(token.charAt(0))) {
+            return token;
+        }
+        int length = token.length();
+        char last = token.charAt(length - 1);
+        endings:
+        for (String[] endings : ENDINGS) {
+            for (String ending : endings) {
+                if (ending.charAt(ending.length() - 1) == last
+                        && length - ending.length() >= MIN_STEM && token.endsWith(ending)) {
+                    length -= ending.length();
+                    break endings;
+                }
+            }
+        }
+        if (length > MIN_STEM && (token.charAt(length - 1) == 'ь' || token.charAt(length - 1) == 'и')) {
+            length--;
+        }
+        if (length > MIN_STEM && token.charAt(length - 1) == 'н' && token.charAt(length - 2) == 'н') {
+            length--;
+        }
+        return length == token.length() ? token : token.substring(0, length);
+    }
+
+    private static void tokenize(final String text, final Consumer<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        char[] token = new char[MAX_TOKEN];
+        int length = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length < MAX_TOKEN) {
+                    c = Character.toLowerCase(c);
+                    token[length] = c == 'ё' ? 'е' : c;
+                }
+                length++;
+            } else if (length > 0) {
+                if (length <= MAX_TOKEN) {
+                    String word = new String(token, 0, length);
+                    if (!STOP_WORDS.contains(word)) {
+                        tokens.accept(word);
+                    }
+                }
+                length = 0;
+            }
+        }
+    }
+
+    private static boolean isCyrillic(final char c) {
+        return c >= 'а' && c <= 'я';
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Полнотекстовый поиск фильмов: анализатор русского текста и обратный индекс.
+ */
+package ru.yandex.practicum.filmorate.search;
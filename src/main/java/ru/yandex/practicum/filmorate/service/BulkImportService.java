@@ -0,0 +1,233 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserKeys;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Сервис массового импорта фильмов и пользователей.
+ * <p>
+ * Принимает массив JSON или поток NDJSON и обрабатывает его частями
+ * по {@value #CHUNK_SIZE} записей: часть читается из потока, проверяется
+ * параллельно в отдельном {@link ForkJoinPool} теми же правилами, что и
+ * одиночное добавление, после чего корректные записи добавляются в хранилище
+ * одним пакетом. Расход памяти поэтому не зависит от размера входных данных.
+ * <p>
+ * После параллельной проверки записи части проходят последовательную
+ * проверку по порядку входных данных — например, на повтор почты или логина
+ * внутри части, — так что из повторяющихся записей отклоняются все, кроме первой.
+ * <p>
+ * Некорректная запись не прерывает импорт, а попадает в отчёт
+ * с номером позиции во входных данных. Синтаксическая ошибка JSON
+ * прерывает импорт: записи после неё прочитать нельзя.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+    /** Количество записей, которые проверяются и добавляются за один раз. */
+    static final int CHUNK_SIZE = 10_000;
+    /** Максимальное количество ошибок в отчёте. */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final UserStorage userStorage;
+    private final ForkJoinPool validationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Импортирует фильмы.
+     *
+     * @param input массив JSON или NDJSON с фильмами
+     * @return отчёт об импорте
+     */
+    public ImportReport importFilms(final InputStream input) {
+        return importRecords(input, Film.class, filmService::checkFilm, () -> film -> {
+        }, filmService::addAll);
+    }
+
+    /**
+     * Импортирует пользователей. Пустое имя заменяется логином; пользователи
+     * с уже занятыми почтой или логином отклоняются, как и пользователи,
+     * повторяющие почту или логин более ранней записи той же части.
+     *
+     * @param input массив JSON или NDJSON с пользователями
+     * @return отчёт об импорте
+     */
+    public ImportReport importUsers(final InputStream input) {
+        return importRecords(input, User.class, user -> {
+            userService.checkName(user);
+            userService.checkAvailable(user);
+        }, BulkImportService::uniqueKeys, userStorage::addAll);
+    }
+
+    /**
+     * Возвращает проверку одной части: почта и логин не должны повторять
+     * почту или логин более ранней принятой записи без учёта регистра и пробелов.
+     * Отклонённая запись свои почту и логин не занимает.
+     */
+    private static Consumer<User> uniqueKeys() {
+        Set<String> emails = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+        return user -> {
+            String email = UserKeys.normalize(user.getEmail());
+            String login = UserKeys.normalize(user.getLogin());
+            if (emails.contains(email)) {
+                throw new ValidationException(String.format(
+                        "Электронная почта %s повторяется в данных импорта", user.getEmail()));
+            }
+            if (logins.contains(login)) {
+                throw new ValidationException(String.format("Логин %s повторяется в данных импорта", user.getLogin()));
+            }
+            emails.add(email);
+            logins.add(login);
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        validationPool.shutdown();
+    }
+
+    private <T> ImportReport importRecords(final InputStream input,
+                                           final Class<T> type,
+                                           final Consumer<T> check,
+                                           final Supplier<Consumer<T>> chunkCheck,
+                                           final Function<List<T>, List<T>> addAll) {
+        Report report = new Report();
+        try (MappingIterator<T> records = objectMapper.readerFor(type).readValues(input)) {
+            long position = 0;
+            List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+            long[] positions = new long[CHUNK_SIZE];
+            while (true) {
+                T record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    record = records.nextValue();
+                } catch (JsonParseException e) {
+                    throw new ConditionsNotMetException(
+                            String.format("Некорректный JSON после записи %d: %s", position, e.getOriginalMessage()));
+                } catch (IOException | RuntimeJsonMappingException e) {
+                    report.reject(position++, List.of("Некорректная запись: " + e.getMessage()));
+                    continue;
+                }
+
+                positions[chunk.size()] = position++;
+                chunk.add(record);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, positions, check, chunkCheck.get(), addAll, report);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            importChunk(chunk, positions, check, chunkCheck.get(), addAll, report);
+        } catch (IOException e) {
+            throw new ConditionsNotMetException("Не удалось прочитать данные импорта: " + e.getMessage());
+        }
+
+        report.errors.sort(Comparator.comparingLong(ImportReport.ImportError::position));
+        return new ImportReport(report.imported, report.rejected, report.errors);
+    }
+
+    /**
+     * Проверяет часть записей параллельно, затем последовательно по порядку
+     * и добавляет корректные одним пакетом.
+     *
+     * @param positions  позиции записей части во входных данных
+     * @param chunkCheck проверка, которая видит записи части по порядку
+     */
+    private <T> void importChunk(final List<T> chunk,
+                                 final long[] positions,
+                                 final Consumer<T> check,
+                                 final Consumer<T> chunkCheck,
+                                 final Function<List<T>, List<T>> addAll,
+                                 final Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<List<String>> errors = validationPool.submit(() -> IntStream.range(0, chunk.size())
+                        .parallel()
+                        .mapToObj(i -> validate(chunk.get(i), check))
+                        .toList())
+                .join();
+
+        List<T> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            List<String> messages = errors.get(i);
+            if (messages.isEmpty()) {
+                messages = check(chunk.get(i), chunkCheck);
+            }
+            if (messages.isEmpty()) {
+                valid.add(chunk.get(i));
+            } else {
+                report.reject(positions[i], messages);
+            }
+        }
+        if (!valid.isEmpty()) {
+            addAll.apply(valid);
+            report.imported += valid.size();
+        }
+    }
+
+    private <T> List<String> validate(final T record, final Consumer<T> check) {
+        List<String> messages = validator.validate(record).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        return messages.isEmpty() ? check(record, check) : messages;
+    }
+
+    private static <T> List<String> check(final T record, final Consumer<T> check) {
+        try {
+            check.accept(record);
+            return List.of();
+        } catch (ValidationException e) {
+            return e.getErrors();
+        }
+    }
+
+    /**
+     * Накапливаемые итоги импорта.
+     */
+    private static final class Report {
+        private final List<ImportReport.ImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        private void reject(final long position, final List<String> messages) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.ImportError(position, messages));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Получатель изменений фильмов, зарегистрированный в {@link FilmService}.
+ * <p>
+ * Вызывается синхронно в потоке, сохранившем фильм, после того
+ * как фильм добавлен в хранилище или обновлён в нём.
+ */
+@FunctionalInterface
+public interface FilmListener {
+
+    /**
+     * Сообщает о сохранении фильма.
+     *
+     * @param film фильм в том виде, в каком он сохранён, с id
+     */
+    void filmSaved(Film film);
+}
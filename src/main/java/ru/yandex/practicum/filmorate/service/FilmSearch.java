@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.search.FilmTextIndex;
+import ru.yandex.practicum.filmorate.search.RussianAnalyzer;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск фильмов по названию и описанию.
+ * <p>
+ * Запрос обслуживает {@link FilmTextIndex} в памяти процесса. Индекс
+ * строится по всем фильмам хранилища при запуске — после генерации
+ * синтетических данных и до запуска веб-сервера, — а затем обновляется
+ * по одному фильму: {@link FilmService} сообщает о каждом добавленном
+ * и изменённом фильме.
+ * <p>
+ * Задержка поиска публикуется таймером {@code filmorate.films.search},
+ * оценка памяти индекса и размер словаря — метриками
+ * {@code filmorate.films.search.index.bytes} и {@code filmorate.films.search.index.terms}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(FilmSearchProperties.class)
+public class FilmSearch implements SmartLifecycle {
+    /** Количество фильмов по умолчанию. */
+    private static final int DEFAULT_COUNT = 10;
+
+    private final FilmStorage filmStorage;
+    private final FilmSearchProperties properties;
+    private final FilmTextIndex index;
+    private final Timer timer;
+    private volatile boolean running;
+
+    /**
+     * Создаёт поиск.
+     *
+     * @param filmService   сервис фильмов, сообщающий об их изменениях
+     * @param filmStorage   хранилище фильмов
+     * @param properties    настройки поиска
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public FilmSearch(final FilmService filmService, final FilmStorage filmStorage,
+                      final FilmSearchProperties properties, final MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        this.properties = properties;
+        this.index = new FilmTextIndex(new RussianAnalyzer(), properties.maxPrefixTerms());
+        this.timer = LatencyTimers.register(meterRegistry, "filmorate.films.search", "Задержка поиска фильмов");
+        Gauge.builder("filmorate.films.search.index.bytes", index, FilmTextIndex::sizeInBytes)
+                .description("Оценка памяти поискового индекса")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.films.search.index.terms", index, FilmTextIndex::terms)
+                .description("Количество слов в словаре поискового индекса")
+                .register(meterRegistry);
+        filmService.addFilmListener(this::filmSaved);
+    }
+
+    /**
+     * Ищет фильмы, в названии или описании которых есть все слова запроса.
+     * Последнее слово может быть недописанным.
+     *
+     * @param query запрос
+     * @param count количество фильмов; если null или меньше либо равно нулю,
+     *              используется 10, больше {@code max-count} — ограничивается им
+     * @return найденные фильмы, самые подходящие первыми
+     */
+    public List<Film> find(final String query, final Integer count) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        int limit = (count == null || count <= 0) ? DEFAULT_COUNT : Math.min(count, properties.maxCount());
+        long[] ids = timer.record(() -> index.search(query, limit));
+        List<Film> films = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            filmStorage.findById(id).ifPresent(films::add);
+        }
+        return films;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        long started = System.nanoTime();
+        for (Film film : filmStorage.findAll()) {
+            filmSaved(film);
+        }
+        log.info("Поисковый индекс построен за {} мс: {} фильмов, {} слов, {} МБ",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), index.documents(), index.terms(),
+                index.sizeInBytes() >> 20);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Сразу после генерации синтетических данных и до запуска веб-сервера.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE + 1;
+    }
+
+    private void filmSaved(final Film film) {
+        if (running) {
+            index.put(film.getId(), film.getName(), film.getDescription());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки полнотекстового поиска фильмов ({@code filmorate.search.*}).
+ *
+ * @param maxCount       сколько фильмов может вернуть один запрос
+ * @param maxPrefixTerms сколько слов из индекса подставляется вместо недописанного
+ *                       последнего слова запроса
+ */
+@ConfigurationProperties("filmorate.search")
+public record FilmSearchProperties(
+        @DefaultValue("100") int maxCount,
+        @DefaultValue("64") int maxPrefixTerms) {
+}
@@ -1,21 +1,30 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
-import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.Set;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.HashMap;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 
 /**
@@ -24,15 +33,63 @@ import java.util.Objects;
  * Предоставляет методы для добавления, обновления, получения фильмов,
  * а также для управления лайками пользователей к фильмам.
  * <p>
- * Использует {@link InMemoryFilmStorage} для хранения данных о фильмах
- * и внутреннюю структуру данных для хранения лайков.
+ * Использует {@link FilmStorage} для хранения данных о фильмах
+ * и {@link LikeStorage} для хранения лайков и рейтинга популярности.
+ * <p>
+ * Каждое изменение, которое может изменить список популярных фильмов,
+ * увеличивает {@link #popularFilmsVersion() версию}; по ней
+ * {@link PopularFilmsCache} определяет, что готовый ответ устарел.
+ * Каждое изменение лайка сообщается зарегистрированным {@link LikeListener},
+ * каждое сохранение фильма — {@link FilmListener}.
+ * <p>
+ * Задержки лайков, удаления лайков и построения списка популярных
+ * фильмов публикуются таймерами {@code filmorate.films.likes}
+ * и {@code filmorate.films.popular}.
  */
 @Service
-@RequiredArgsConstructor
 public class FilmService {
-    private final Map<Long, Set<Long>> likesByFilm = new HashMap<>();
-    private final InMemoryFilmStorage filmStorage;
-    private final InMemoryUserStorage userStorage;
+    /** Дата первого киносеанса: раньше неё фильм выйти не мог. */
+    private static final LocalDate FIRST_FILM_DATE = LocalDate.of(1895, 12, 28);
+    /** Сортировка по дате релиза: по возрастанию и, с минусом, по убыванию. */
+    private static final String SORT_BY_RELEASE_DATE = "releaseDate";
+    /** Максимальное количество операций в одном пакете лайков. */
+    static final int MAX_LIKE_BATCH = 10_000;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeStorage likeStorage;
+    /** Версия списка популярных фильмов. */
+    private final AtomicLong popularFilmsVersion = new AtomicLong();
+    private final List<LikeListener> likeListeners = new CopyOnWriteArrayList<>();
+    private final List<FilmListener> filmListeners = new CopyOnWriteArrayList<>();
+    private final Timer likeTimer;
+    private final Timer disLikeTimer;
+    private final Timer popularFilmsTimer;
+
+    /**
+     * Создаёт сервис без метрик.
+     */
+    public FilmService(final FilmStorage filmStorage, final UserStorage userStorage, final LikeStorage likeStorage) {
+        this(filmStorage, userStorage, likeStorage, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Создаёт сервис, публикующий метрики в реестр.
+     *
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public FilmService(final FilmStorage filmStorage, final UserStorage userStorage, final LikeStorage likeStorage,
+                       final MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeStorage = likeStorage;
+        this.likeTimer = LatencyTimers.register(meterRegistry, "filmorate.films.likes",
+                "Задержка изменения лайка", "operation", "like");
+        this.disLikeTimer = LatencyTimers.register(meterRegistry, "filmorate.films.likes",
+                "Задержка изменения лайка", "operation", "dislike");
+        this.popularFilmsTimer = LatencyTimers.register(meterRegistry, "filmorate.films.popular",
+                "Задержка построения списка популярных фильмов");
+    }
 
     /**
      * Возвращает коллекцию всех фильмов.
@@ -43,6 +100,64 @@ public class FilmService {
         return filmStorage.findAll();
     }
 
+    /**
+     * Возвращает все фильмы потоком для выгрузки; поток нужно закрыть.
+     *
+     * @return фильмы, упорядоченные по id
+     */
+    public Stream<Film> streamAll() {
+        return filmStorage.streamAll();
+    }
+
+    /**
+     * Возвращает страницу фильмов, упорядоченных по идентификатору.
+     *
+     * @param after идентификатор последнего фильма предыдущей страницы;
+     *              если null, возвращается первая страница
+     * @param limit размер страницы; если null или меньше либо равен нулю,
+     *              используется значение 100, больше 1000 — ограничивается 1000
+     * @return страница фильмов с курсором следующей страницы
+     */
+    public Page<Film> findPage(Long after, Integer limit) {
+        int pageSize = Page.size(limit);
+        return Page.of(filmStorage.findPage(after, pageSize + 1), pageSize, Film::getId);
+    }
+
+    /**
+     * Возвращает страницу фильмов с датой релиза в диапазоне,
+     * упорядоченных по дате релиза, а при равных датах — по идентификатору.
+     *
+     * @param from  первая дата релиза включительно; если null, без ограничения
+     * @param to    последняя дата релиза включительно; если null, без ограничения
+     * @param sort  {@code releaseDate} — от старых фильмов к новым (по умолчанию),
+     *              {@code -releaseDate} — от новых к старым
+     * @param after идентификатор последнего фильма предыдущей страницы;
+     *              если null, возвращается первая страница
+     * @param limit размер страницы, как в {@link #findPage(Long, Integer)}
+     * @return страница фильмов с курсором следующей страницы
+     * @throws ConditionsNotMetException если диапазон пуст или сортировка не поддерживается
+     * @throws NotFoundException если фильм {@code after} не найден
+     */
+    public Page<Film> findByReleaseDate(LocalDate from, LocalDate to, String sort, Long after, Integer limit) {
+        boolean descending = ("-" + SORT_BY_RELEASE_DATE).equals(sort);
+        if (sort != null && !descending && !SORT_BY_RELEASE_DATE.equals(sort)) {
+            throw new ConditionsNotMetException(String.format(
+                    "Сортировка «%s» не поддерживается, допустимы releaseDate и -releaseDate", sort));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ConditionsNotMetException("Дата from должна быть не позже даты to");
+        }
+
+        Film last = null;
+        if (after != null) {
+            last = filmStorage.findById(after)
+                    .orElseThrow(() -> new NotFoundException(String.format("Фильм id = %d не найден", after)));
+        }
+        int pageSize = Page.size(limit);
+        return Page.of(filmStorage.findByReleaseDate(from, to, last, descending, pageSize + 1), pageSize,
+                Film::getId);
+    }
+
     /**
      * Добавляет новый фильм в коллекцию.
      *
@@ -50,7 +165,24 @@ public class FilmService {
      * @return добавленный фильм с присвоенным идентификатором
      */
     public Film add(Film film) {
-        return filmStorage.add(film);
+        checkFilm(film);
+        Film added = filmStorage.add(film);
+        notifyFilmSaved(added);
+        return added;
+    }
+
+    /**
+     * Добавляет проверенные фильмы одним пакетом.
+     *
+     * @param films фильмы, прошедшие {@link #checkFilm(Film)}
+     * @return добавленные фильмы с присвоенными id
+     */
+    public List<Film> addAll(List<Film> films) {
+        List<Film> added = filmStorage.addAll(films);
+        for (Film film : added) {
+            notifyFilmSaved(film);
+        }
+        return added;
     }
 
     /**
@@ -60,7 +192,15 @@ public class FilmService {
      * @return обновлённый фильм
      */
     public Film update(Film newFilm) {
-        return filmStorage.update(newFilm);
+        if (newFilm.getId() == null) {
+            throw new ConditionsNotMetException("Не указан id фильма");
+        }
+
+        checkFilm(newFilm);
+        Film updated = filmStorage.update(newFilm);
+        popularFilmsVersion.incrementAndGet();
+        notifyFilmSaved(updated);
+        return updated;
     }
 
     /**
@@ -72,18 +212,17 @@ public class FilmService {
      * @throws ConditionsNotMetException если пользователь уже поставил лайк этому фильму
      */
     public void like(Long filmId, Long userId) {
+        likeTimer.record(() -> addLike(filmId, userId));
+    }
+
+    private void addLike(final Long filmId, final Long userId) {
         if (filmStorage.findById(filmId).isEmpty()) {
             throw new NotFoundException(String.format("Фильм id = %d не найден", filmId));
         }
 
-        User userVerification = userStorage.findById(userId);
-        if (userVerification == null) {
-            throw new NotFoundException(String.format("Пользователь id = %d не найден", userId));
-        }
-
-        Set<Long> likes = likesByFilm.computeIfAbsent(filmId, k -> new HashSet<>());
+        userStorage.findById(userId);
 
-        if (likes.contains(userId)) {
+        if (!likeStorage.add(filmId, userId)) {
             throw new ConditionsNotMetException(
                     String.format(
                             "Пользователь id = %d уже поставил лайк фильму id = %d",
@@ -92,38 +231,98 @@ public class FilmService {
                     )
             );
         }
-
-        likes.add(userId);
+        popularFilmsVersion.incrementAndGet();
+        notifyLikeChanged(filmId, userId, true);
     }
 
     /**
      * Удаляет лайк пользователя с фильма.
-     * <p>
-     * Если после удаления лайков у фильма не остаётся, запись о лайках для фильма удаляется.
      *
      * @param filmId идентификатор фильма
      * @param userId идентификатор пользователя, удаляющего лайк
      */
     public void disLike(Long filmId, Long userId) {
+        disLikeTimer.record(() -> removeLike(filmId, userId));
+    }
+
+    private void removeLike(final Long filmId, final Long userId) {
         if (filmStorage.findById(filmId).isEmpty()) {
             throw new NotFoundException(String.format("Фильм id = %d не найден", filmId));
         }
 
-        User userVerification = userStorage.findById(userId);
-        if (userVerification == null) {
-            throw new NotFoundException(String.format("Пользователь id = %d не найден", userId));
+        userStorage.findById(userId);
+
+        if (likeStorage.remove(filmId, userId)) {
+            popularFilmsVersion.incrementAndGet();
+            notifyLikeChanged(filmId, userId, false);
+        }
+    }
+
+    /**
+     * Применяет пакет операций с лайками за один проход.
+     * <p>
+     * Существование каждого фильма и пользователя проверяется один раз
+     * на пакет. Операции с неизвестными фильмами или пользователями
+     * не прерывают пакет, а получают результат с ошибкой. Повторный лайк
+     * и удаление отсутствующего лайка ошибкой не считаются.
+     *
+     * @param operations операции в порядке применения
+     * @return результаты операций в том же порядке
+     * @throws ConditionsNotMetException если операций больше {@value #MAX_LIKE_BATCH}
+     */
+    public List<LikeResult> applyLikes(List<LikeOperation> operations) {
+        if (operations.size() > MAX_LIKE_BATCH) {
+            throw new ConditionsNotMetException(
+                    String.format("В пакете может быть не больше %d операций", MAX_LIKE_BATCH)
+            );
+        }
+
+        LikeResult[] results = new LikeResult[operations.size()];
+        List<LikeOperation> accepted = new ArrayList<>(operations.size());
+        List<Integer> positions = new ArrayList<>(operations.size());
+        Map<Long, Boolean> filmExists = new HashMap<>();
+        Map<Long, Boolean> userExists = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (operation.filmId() == null || operation.userId() == null || operation.action() == null) {
+                results[i] = LikeResult.failed(operation, LikeResult.Status.INVALID,
+                        "Не указан id фильма, id пользователя или действие");
+            } else if (!filmExists.computeIfAbsent(operation.filmId(), id -> filmStorage.findById(id).isPresent())) {
+                results[i] = LikeResult.failed(operation, LikeResult.Status.NOT_FOUND,
+                        String.format("Фильм id = %d не найден", operation.filmId()));
+            } else if (!userExists.computeIfAbsent(operation.userId(), this::userExists)) {
+                results[i] = LikeResult.failed(operation, LikeResult.Status.NOT_FOUND,
+                        String.format("Пользователь id = %d не найден", operation.userId()));
+            } else {
+                accepted.add(operation);
+                positions.add(i);
+            }
         }
 
-        Set<Long> likes = likesByFilm.get(filmId);
-        if (likes != null && likes.remove(userId)) {
-            if (likes.isEmpty()) {
-                likesByFilm.remove(filmId);
+        boolean[] changed = likeStorage.applyBatch(accepted);
+        boolean anyChanged = false;
+        for (int i = 0; i < changed.length; i++) {
+            results[positions.get(i)] = LikeResult.of(accepted.get(i),
+                    changed[i] ? LikeResult.Status.APPLIED : LikeResult.Status.UNCHANGED);
+            anyChanged |= changed[i];
+        }
+        if (anyChanged) {
+            popularFilmsVersion.incrementAndGet();
+            for (int i = 0; i < changed.length; i++) {
+                if (changed[i]) {
+                    LikeOperation operation = accepted.get(i);
+                    notifyLikeChanged(operation.filmId(), operation.userId(),
+                            operation.action() == LikeOperation.Action.LIKE);
+                }
             }
         }
+        return List.of(results);
     }
 
     /**
      * Возвращает список популярных фильмов, отсортированных по количеству лайков.
+     * <p>
+     * При равном количестве лайков фильмы упорядочены по идентификатору.
      *
      * @param count количество фильмов для возврата;
      * если null или меньше либо равно нулю, используется значение 10
@@ -132,14 +331,67 @@ public class FilmService {
     public List<Film> popularFilms(Integer count) {
         int limit = (count == null || count <= 0) ? 10 : count;
 
-        return likesByFilm.entrySet().stream()
-                .sorted((e1, e2) -> Integer.compare(e2.getValue().size(), e1.getValue().size()))
-                .limit(limit)
-                .map(entry -> {
-                    Long filmId = entry.getKey();
-                    return filmStorage.findById(filmId).orElse(null);
-                })
-                .filter(Objects::nonNull)
-                .toList();
+        return popularFilmsTimer.record(() -> likeStorage.findPopularFilms(limit));
+    }
+
+    /**
+     * Возвращает версию списка популярных фильмов. Версия растёт при каждом
+     * изменении лайков или данных фильмов.
+     *
+     * @return текущая версия
+     */
+    public long popularFilmsVersion() {
+        return popularFilmsVersion.get();
+    }
+
+    /**
+     * Регистрирует получателя изменений лайков.
+     *
+     * @param listener получатель изменений
+     */
+    public void addLikeListener(final LikeListener listener) {
+        likeListeners.add(listener);
+    }
+
+    /**
+     * Регистрирует получателя изменений фильмов.
+     *
+     * @param listener получатель изменений
+     */
+    public void addFilmListener(final FilmListener listener) {
+        filmListeners.add(listener);
+    }
+
+    private void notifyFilmSaved(final Film film) {
+        for (FilmListener listener : filmListeners) {
+            listener.filmSaved(film);
+        }
+    }
+
+    private void notifyLikeChanged(final long filmId, final long userId, final boolean liked) {
+        for (LikeListener listener : likeListeners) {
+            listener.likeChanged(filmId, userId, liked);
+        }
+    }
+
+    private boolean userExists(final long userId) {
+        try {
+            userStorage.findById(userId);
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Проверяет корректность данных фильма, в частности, дату релиза.
+     * <p>
+     * Если дата релиза фильма раньше 28 декабря 1895 года,
+     * выбрасывает ValidationException с соответствующим сообщением.
+     */
+    void checkFilm(final Film film) {
+        if (film.getReleaseDate().isBefore(FIRST_FILM_DATE)) {
+            throw new ValidationException("Дата релиза должна быть не раньше 28 декабря 1895 года");
+        }
     }
 }
@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.CallerThreadLoad;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Рекомендации друзей: пользователи, с которыми больше всего общих друзей.
+ * <p>
+ * Кандидаты находятся обходом на два шага — друзья друзей, кроме самого
+ * пользователя и его друзей. Обход ограничен: у пользователя обходится
+ * не больше {@code max-friends} друзей, у каждого друга — не больше
+ * {@code max-friends-of-friend} его друзей; из более длинных списков
+ * друзья выбираются равномерно по всему списку. Поэтому время подбора
+ * не зависит от размера списков, а для очень популярных пользователей
+ * количество общих друзей оценивается по выборке.
+ * <p>
+ * Друзья друзей собираются параллельно задачами собственного {@link ForkJoinPool},
+ * по {@value #LEAF_SIZE} друзей на задачу, затем сортируются
+ * {@link Arrays#parallelSort(long[])} и подсчитываются за один проход.
+ * Задачи читают друзей из хранилища, в профиле {@code db} — блокирующими
+ * запросами, поэтому выполняются не в {@link ForkJoinPool#commonPool()}:
+ * иначе они занимали бы общий пул, которым пользуются параллельные потоки
+ * и сортировки всего приложения.
+ * <p>
+ * Лучшие {@code max-candidates} кандидатов хранятся в кэше; подбор идёт
+ * в вызывающем потоке вне блокировок кэша, см. {@link CallerThreadLoad}. Изменение дружбы
+ * двух пользователей меняет кандидатов у них самих и у всех их друзей,
+ * поэтому {@link #invalidate(long, long)} удаляет эти записи; для
+ * пользователя со множеством друзей просматриваются записи кэша,
+ * а не список друзей.
+ */
+@Component
+@EnableConfigurationProperties(FriendRecommendationsProperties.class)
+public class FriendRecommendations {
+    /** Сколько друзей обходит одна подзадача. */
+    private static final int LEAF_SIZE = 64;
+    /** Количество рекомендаций по умолчанию. */
+    private static final int DEFAULT_COUNT = 10;
+    /** Лучший кандидат — с наибольшим количеством общих друзей, при равенстве — с меньшим id. */
+    private static final Comparator<Candidate> RANKING = Comparator.comparingInt(Candidate::mutualFriends)
+            .reversed()
+            .thenComparingLong(Candidate::id);
+
+    private final UserStorage userStorage;
+    private final FriendRecommendationsProperties properties;
+    private final AsyncCache<Long, Candidate[]> cache;
+    private final Timer timer;
+    private final ForkJoinPool traversalPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Создаёт рекомендации.
+     *
+     * @param userStorage   хранилище пользователей
+     * @param properties    ограничения обхода и настройки кэша
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public FriendRecommendations(final UserStorage userStorage, final FriendRecommendationsProperties properties,
+                                 final MeterRegistry meterRegistry) {
+        this.userStorage = userStorage;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfterWrite(properties.cacheExpireAfterWrite())
+                .buildAsync();
+        this.timer = LatencyTimers.register(meterRegistry, "filmorate.users.friends.recommendations",
+                "Задержка подбора рекомендаций друзей");
+    }
+
+    /**
+     * Возвращает рекомендованных друзей, лучшие первыми.
+     *
+     * @param userId id пользователя
+     * @param count  количество рекомендаций; если null или меньше либо равно нулю,
+     *               используется 10, больше {@code max-candidates} — ограничивается им
+     * @return рекомендации с количеством общих друзей
+     * @throws ru.yandex.practicum.filmorate.exception.NotFoundException если пользователь не найден
+     */
+    public List<FriendRecommendation> recommend(final long userId, final Integer count) {
+        int limit = (count == null || count <= 0) ? DEFAULT_COUNT : Math.min(count, properties.maxCandidates());
+        Candidate[] candidates = timer.record(() -> CallerThreadLoad.get(cache, userId, this::findCandidates));
+        List<FriendRecommendation> recommendations = new ArrayList<>(Math.min(limit, candidates.length));
+        for (int i = 0; i < candidates.length && i < limit; i++) {
+            recommendations.add(new FriendRecommendation(userStorage.findById(candidates[i].id()),
+                    candidates[i].mutualFriends()));
+        }
+        return recommendations;
+    }
+
+    /**
+     * Удаляет из кэша кандидатов, на которых повлияло изменение дружбы
+     * двух пользователей. Вызывается после изменения хранилища.
+     *
+     * @param userId   id первого пользователя
+     * @param friendId id второго пользователя
+     */
+    public void invalidate(final long userId, final long friendId) {
+        cache.synchronous().invalidate(userId);
+        cache.synchronous().invalidate(friendId);
+        invalidateAll(userStorage.findFriendIds(userId));
+        invalidateAll(userStorage.findFriendIds(friendId));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        traversalPool.shutdown();
+    }
+
+    private void invalidateAll(final long[] userIds) {
+        if (userIds.length <= cache.synchronous().estimatedSize()) {
+            for (long id : userIds) {
+                cache.synchronous().invalidate(id);
+            }
+        } else {
+            cache.asMap().keySet().removeIf(id -> Arrays.binarySearch(userIds, id) >= 0);
+        }
+    }
+
+    private Candidate[] findCandidates(final Long userId) {
+        long[] friends = userStorage.findFriendIds(userId);
+        long[] scanned = sample(friends, properties.maxFriends());
+        LongFunction<long[]> friendsOfFriend = id -> sample(userStorage.findFriendIds(id),
+                properties.maxFriendsOfFriend());
+        long[] reached = traversalPool.invoke(
+                new FriendsOfFriends(friendsOfFriend, userId, friends, scanned, 0, scanned.length));
+        Arrays.parallelSort(reached);
+        return best(reached, properties.maxCandidates());
+    }
+
+    /**
+     * Считает повторы в отсортированном массиве и оставляет {@code limit} лучших кандидатов.
+     */
+    private static Candidate[] best(final long[] sorted, final int limit) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int from = 0; from < sorted.length; ) {
+            int to = from + 1;
+            while (to < sorted.length && sorted[to] == sorted[from]) {
+                to++;
+            }
+            best.add(new Candidate(sorted[from], to - from));
+            if (best.size() > limit) {
+                best.poll();
+            }
+            from = to;
+        }
+        Candidate[] result = best.toArray(new Candidate[0]);
+        Arrays.sort(result, RANKING);
+        return result;
+    }
+
+    /**
+     * Выбирает не больше {@code limit} элементов, равномерно распределённых по массиву.
+     */
+    private static long[] sample(final long[] ids, final int limit) {
+        if (ids.length <= limit) {
+            return ids;
+        }
+        long[] sample = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            sample[i] = ids[(int) ((long) i * ids.length / limit)];
+        }
+        return sample;
+    }
+
+    /**
+     * Кандидат и количество общих друзей с пользователем.
+     */
+    private record Candidate(long id, int mutualFriends) {
+    }
+
+    /**
+     * Собирает друзей друзей из {@code scanned[from..to)}, кроме самого
+     * пользователя и его друзей; каждый кандидат встречается столько раз,
+     * сколько у него общих друзей с пользователем.
+     */
+    private static final class FriendsOfFriends extends RecursiveTask<long[]> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** Выборка друзей друга; задачи не сериализуются, поэтому поле не сохраняется. */
+        private final transient LongFunction<long[]> friendsOfFriend;
+        private final long userId;
+        private final long[] friends;
+        private final long[] scanned;
+        private final int from;
+        private final int to;
+
+        private FriendsOfFriends(final LongFunction<long[]> friendsOfFriend, final long userId,
+                                 final long[] friends, final long[] scanned, final int from, final int to) {
+            this.friendsOfFriend = friendsOfFriend;
+            this.userId = userId;
+            this.friends = friends;
+            this.scanned = scanned;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                FriendsOfFriends left = new FriendsOfFriends(friendsOfFriend, userId, friends, scanned, from, middle);
+                left.fork();
+                long[] right = new FriendsOfFriends(friendsOfFriend, userId, friends, scanned, middle, to).compute();
+                long[] leftReached = left.join();
+                long[] reached = Arrays.copyOf(leftReached, leftReached.length + right.length);
+                System.arraycopy(right, 0, reached, leftReached.length, right.length);
+                return reached;
+            }
+            long[] reached = new long[0];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                long[] sampled = friendsOfFriend.apply(scanned[i]);
+                if (reached.length - size < sampled.length) {
+                    reached = Arrays.copyOf(reached, Math.max(reached.length * 2, size + sampled.length));
+                }
+                for (long id : sampled) {
+                    if (id != userId && Arrays.binarySearch(friends, id) < 0) {
+                        reached[size++] = id;
+                    }
+                }
+            }
+            return Arrays.copyOf(reached, size);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки рекомендаций друзей ({@code filmorate.recommendations.*}).
+ *
+ * @param maxFriends           сколько друзей пользователя обходится; у пользователей
+ *                             с большим количеством друзей они выбираются равномерно
+ * @param maxFriendsOfFriend   сколько друзей каждого друга обходится
+ * @param maxCandidates        сколько лучших кандидатов хранится и может быть запрошено
+ * @param cacheSize            для скольких пользователей хранятся кандидаты
+ * @param cacheExpireAfterWrite срок жизни кандидатов; ограничивает устаревание
+ *                             при изменении дружбы в обход {@link UserService}
+ */
+@ConfigurationProperties("filmorate.recommendations")
+public record FriendRecommendationsProperties(
+        @DefaultValue("1000") int maxFriends,
+        @DefaultValue("1000") int maxFriendsOfFriend,
+        @DefaultValue("100") int maxCandidates,
+        @DefaultValue("10000") long cacheSize,
+        @DefaultValue("10m") Duration cacheExpireAfterWrite) {
+
+    /**
+     * Настройки по умолчанию — для сервиса, созданного без Spring.
+     */
+    public static FriendRecommendationsProperties defaults() {
+        return new FriendRecommendationsProperties(1000, 1000, 100, 10_000, Duration.ofMinutes(10));
+    }
+}
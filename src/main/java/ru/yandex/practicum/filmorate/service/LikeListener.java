@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Получатель изменений лайков, зарегистрированный в {@link FilmService}.
+ * <p>
+ * Вызывается синхронно в потоке, изменившем лайк, после того как изменение
+ * применено к хранилищу, и только если лайки действительно изменились.
+ */
+@FunctionalInterface
+public interface LikeListener {
+
+    /**
+     * Сообщает об изменении лайка.
+     *
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
+     * @param liked  {@code true} — лайк поставлен, {@code false} — удалён
+     */
+    void likeChanged(long filmId, long userId, boolean liked);
+}
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кэш готовых JSON-ответов {@code GET /films/popular}.
+ * <p>
+ * Для каждого значения {@code count} хранится список популярных фильмов,
+ * уже сериализованный в байты, и ETag. Ответ строится по версии
+ * {@link FilmService#popularFilmsVersion()}: пока версия не изменилась,
+ * запрос обслуживается из памяти без обращения к хранилищам и без Jackson.
+ * <p>
+ * Если версия изменилась, запрос получает прежний ответ, а новый строится
+ * в фоновом потоке; параллельные запросы того же {@code count} не запускают
+ * повторное построение. Прежний ответ отдаётся, только пока с начала его
+ * построения прошло не больше {@code max-staleness}; более старый ответ
+ * перестраивается синхронно. Так возраст данных в ответе ограничен.
+ * <p>
+ * ETag — момент запуска приложения и версия, с которой построен ответ:
+ * версия после перезапуска начинается заново, а ETag не повторяется. Если после изменения ответ
+ * получился тем же, ETag сохраняется, и клиенты продолжают получать 304.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(PopularFilmsCacheProperties.class)
+public class PopularFilmsCache {
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final long maxStalenessNanos;
+    private final int maxEntries;
+    /** Префикс ETag, уникальный для запуска приложения. */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<Integer, Response> responses = new ConcurrentHashMap<>();
+    private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+    private final StripedLocks buildLocks = new StripedLocks(16);
+    private final ExecutorService executor;
+
+    /**
+     * Создаёт кэш.
+     *
+     * @param filmService  сервис фильмов
+     * @param objectMapper сериализатор ответов
+     * @param properties   настройки кэша
+     */
+    public PopularFilmsCache(final FilmService filmService, final ObjectMapper objectMapper,
+                             final PopularFilmsCacheProperties properties) {
+        this(filmService, objectMapper, properties, BackgroundThreads.PLATFORM);
+    }
+
+    /**
+     * Создаёт кэш с фоновым обновлением в потоке заданного вида.
+     *
+     * @param filmService  сервис фильмов
+     * @param objectMapper сериализатор ответов
+     * @param properties   настройки кэша
+     * @param threads      вид потока фонового обновления
+     */
+    @Autowired
+    public PopularFilmsCache(final FilmService filmService, final ObjectMapper objectMapper,
+                             final PopularFilmsCacheProperties properties, final BackgroundThreads threads) {
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.maxStalenessNanos = properties.maxStaleness().toNanos();
+        this.maxEntries = properties.maxEntries();
+        this.executor = Executors.newSingleThreadExecutor(threads.factory("popular-films-cache"));
+    }
+
+    /**
+     * Возвращает готовый ответ со списком популярных фильмов.
+     *
+     * @param count количество фильмов, как в {@link FilmService#popularFilms(Integer)}
+     * @return JSON и ETag
+     */
+    public Response get(final Integer count) {
+        Response response = responses.get(count);
+        if (response != null) {
+            if (response.version() == filmService.popularFilmsVersion()) {
+                return response;
+            }
+            if (System.nanoTime() - response.builtAt() <= maxStalenessNanos) {
+                refreshAsync(count);
+                return response;
+            }
+        } else if (responses.size() >= maxEntries) {
+            return build(count, null);
+        }
+        return rebuild(count);
+    }
+
+    /**
+     * Останавливает поток фонового обновления.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean isFresh(final Response response) {
+        return response.version() == filmService.popularFilmsVersion();
+    }
+
+    private void refreshAsync(final Integer count) {
+        if (!refreshing.add(count)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                rebuild(count);
+            } catch (RuntimeException e) {
+                log.error("Не удалось обновить список популярных фильмов, count = {}", count, e);
+            } finally {
+                refreshing.remove(count);
+            }
+        });
+    }
+
+    /**
+     * Перестраивает ответ, если он устарел. Построения одного {@code count}
+     * сериализуются блокировкой из {@link StripedLocks}, а не монитором
+     * {@link ConcurrentHashMap#compute}: построение читает хранилища и в профиле
+     * {@code db} ждёт базу данных, не занимая поток-носитель виртуального потока.
+     */
+    private Response rebuild(final Integer count) {
+        return buildLocks.withLock(count, () -> {
+            Response current = responses.get(count);
+            if (current != null && isFresh(current)) {
+                return current;
+            }
+            Response next = build(count, current);
+            responses.put(count, next);
+            return next;
+        });
+    }
+
+    /**
+     * Строит ответ. Версия читается до чтения хранилищ, поэтому изменения,
+     * сделанные во время построения, приведут к следующему обновлению.
+     */
+    private Response build(final Integer count, final Response previous) {
+        long builtAt = System.nanoTime();
+        long version = filmService.popularFilmsVersion();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(filmService.popularFilms(count));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        String etag = previous != null && Arrays.equals(previous.json(), json)
+                ? previous.etag()
+                : "\"" + epoch + "-" + version + "\"";
+        return new Response(json, etag, version, builtAt);
+    }
+
+    /**
+     * Готовый ответ.
+     *
+     * @param json    список фильмов в JSON
+     * @param etag    значение заголовка ETag
+     * @param version версия, с которой построен ответ
+     * @param builtAt момент начала построения по {@link System#nanoTime()}
+     */
+    public record Response(byte[] json, String etag, long version, long builtAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов со списком популярных фильмов ({@code filmorate.popular-cache.*}).
+ *
+ * @param maxStaleness насколько может устареть отдаваемый ответ, пока новый
+ *                     строится в фоне; {@code 0} — всегда строить синхронно
+ * @param maxEntries   сколько разных значений {@code count} кэшируется;
+ *                     остальные ответы строятся при каждом запросе
+ */
+@ConfigurationProperties("filmorate.popular-cache")
+public record PopularFilmsCacheProperties(
+        @DefaultValue("1s") Duration maxStaleness,
+        @DefaultValue("16") int maxEntries) {
+}
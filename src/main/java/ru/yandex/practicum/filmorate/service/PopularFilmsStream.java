@@ -0,0 +1,340 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilmsChange;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Рассылает подписчикам Server-Sent Events об изменениях списка популярных фильмов.
+ * <p>
+ * Сразу после подписки клиент получает событие {@value #TOP_EVENT} с текущим
+ * списком. Дальше раз в {@code coalesce-interval} проверяется
+ * {@link FilmService#popularFilmsVersion() версия} популярных фильмов: если она
+ * изменилась, список строится один раз для наибольшего запрошенного размера,
+ * а меньшие списки берутся из его начала. Событие отправляется, только если
+ * изменился состав или порядок фильмов в списке подписчика; все лайки за
+ * интервал попадают в одно событие. Подписчик получает либо весь список
+ * ({@value #TOP_EVENT}), либо только изменение ({@value #CHANGE_EVENT},
+ * см. {@link PopularFilmsChange}). JSON события строится один раз для всех
+ * подписчиков одного размера.
+ * <p>
+ * Медленный подписчик не задерживает остальных: события отправляются в
+ * пуле из {@code sender-threads} потоков, и у каждого подписчика не больше
+ * одной отправки одновременно, поэтому очередь пула не длиннее числа
+ * подписчиков, а потоков не больше заданного при любом их количестве.
+ * Пока отправка идёт, новые события не копятся в очереди, а заменяют
+ * ещё не отправленное — подписчик получит только последнее
+ * состояние, а изменение будет посчитано от того, что он видел. Подписчик,
+ * отправка которому длится дольше {@code send-timeout}, отключается;
+ * браузер переподключится сам и получит актуальный список.
+ * <p>
+ * Отправка идёт в потоках платформы независимо от
+ * {@code spring.threads.virtual.enabled}: {@link SseEmitter#send} синхронизирован
+ * и при записи медленному клиенту занимал бы поток-носитель виртуального потока.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(PopularFilmsStreamProperties.class)
+public class PopularFilmsStream {
+    /** Событие с полным списком популярных фильмов. */
+    public static final String TOP_EVENT = "top";
+    /** Событие с изменением списка. */
+    public static final String CHANGE_EVENT = "change";
+    /** Размер списка по умолчанию, как в {@link FilmService#popularFilms(Integer)}. */
+    private static final int DEFAULT_COUNT = 10;
+    /** Значение {@link Subscriber#busySince}, когда отправка не идёт. */
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final PopularFilmsStreamProperties properties;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    /** Последний разосланный список каждого размера; меняется только потоком проверки. */
+    private final Map<Integer, Top> published = new HashMap<>();
+    private long publishedVersion = -1;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService senders;
+    private final Counter evicted;
+
+    /**
+     * Создаёт рассылку и запускает периодическую проверку изменений.
+     *
+     * @param filmService   сервис фильмов
+     * @param objectMapper  сериализатор событий
+     * @param properties    настройки рассылки
+     * @param threads       вид потока проверки изменений
+     * @param meterRegistry реестр метрик
+     */
+    public PopularFilmsStream(final FilmService filmService, final ObjectMapper objectMapper,
+                              final PopularFilmsStreamProperties properties, final BackgroundThreads threads,
+                              final MeterRegistry meterRegistry) {
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.sendTimeoutNanos = properties.sendTimeout().toNanos();
+        Gauge.builder("filmorate.popular.stream.subscribers", subscribers, Set::size)
+                .description("Подписчики на изменения популярных фильмов")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("filmorate.popular.stream.evicted")
+                .description("Подписчики, отключённые из-за медленного чтения событий")
+                .register(meterRegistry);
+        ThreadPoolExecutor senders = new ThreadPoolExecutor(properties.senderThreads(), properties.senderThreads(),
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                BackgroundThreads.PLATFORM.factory("popular-films-stream-send"));
+        senders.allowCoreThreadTimeOut(true);
+        this.senders = senders;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(threads.factory("popular-films-stream"));
+        long interval = properties.coalesceInterval().toMillis();
+        ticker.scheduleWithFixedDelay(this::publishQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Подписывает клиента на изменения списка популярных фильмов.
+     *
+     * @param count   размер списка; если null или меньше либо равен нулю,
+     *                используется 10, больше {@code max-count} — ограничивается им
+     * @param changes отправлять после первого списка только изменения
+     * @return поток событий
+     * @throws ConditionsNotMetException если достигнуто наибольшее количество подписчиков
+     */
+    public SseEmitter subscribe(final Integer count, final boolean changes) {
+        if (subscribers.size() >= properties.maxSubscribers()) {
+            throw new ConditionsNotMetException("Превышено количество подписчиков на популярные фильмы");
+        }
+        int limit = (count == null || count <= 0) ? DEFAULT_COUNT : Math.min(count, properties.maxCount());
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, limit, changes);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        subscribers.add(subscriber);
+
+        long version = filmService.popularFilmsVersion();
+        offer(subscriber, top(version, filmService.popularFilms(limit), null));
+        return emitter;
+    }
+
+    /**
+     * Останавливает рассылку и закрывает потоки событий.
+     */
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.error("Не удалось разослать изменения популярных фильмов", e);
+        }
+    }
+
+    private void publish() {
+        evictSlow();
+        if (subscribers.isEmpty()) {
+            published.clear();
+            publishedVersion = -1;
+            return;
+        }
+        long version = filmService.popularFilmsVersion();
+        if (version == publishedVersion) {
+            return;
+        }
+        int maxCount = 0;
+        for (Subscriber subscriber : subscribers) {
+            maxCount = Math.max(maxCount, subscriber.count);
+        }
+        List<Film> films = filmService.popularFilms(maxCount);
+        publishedVersion = version;
+
+        Map<Integer, Optional<Top>> changed = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            changed.computeIfAbsent(subscriber.count, count -> changedTop(count, version, films))
+                    .ifPresent(top -> offer(subscriber, top));
+        }
+        published.keySet().retainAll(changed.keySet());
+    }
+
+    /**
+     * Возвращает новый список заданного размера, если он отличается от разосланного.
+     */
+    private Optional<Top> changedTop(final int count, final long version, final List<Film> films) {
+        Top previous = published.get(count);
+        Top next = top(version, films.subList(0, Math.min(count, films.size())), previous);
+        if (previous != null && previous.ids().equals(next.ids())) {
+            return Optional.empty();
+        }
+        published.put(count, next);
+        return Optional.of(next);
+    }
+
+    private void evictSlow() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long busySince = subscriber.busySince.get();
+            if (busySince != IDLE && now - busySince > sendTimeoutNanos && subscribers.remove(subscriber)) {
+                evicted.increment();
+                log.warn("Подписчик на популярные фильмы не успевает читать события и отключён");
+                // complete() ждёт окончания текущей отправки, поэтому не в потоке проверки
+                execute(subscriber.emitter::complete);
+            }
+        }
+    }
+
+    private void offer(final Subscriber subscriber, final Top top) {
+        subscriber.pending.accumulateAndGet(top, (current, next) ->
+                current == null || next.version() >= current.version() ? next : current);
+        if (subscriber.busySince.compareAndSet(IDLE, System.nanoTime())) {
+            execute(() -> drain(subscriber));
+        }
+    }
+
+    private void execute(final Runnable task) {
+        try {
+            senders.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Рассылка популярных фильмов остановлена");
+        }
+    }
+
+    /**
+     * Отправляет подписчику последнее ожидающее событие, пока они появляются.
+     * Выполняется не больше чем в одном потоке на подписчика.
+     */
+    private void drain(final Subscriber subscriber) {
+        do {
+            Top top;
+            while ((top = subscriber.pending.getAndSet(null)) != null) {
+                subscriber.busySince.set(System.nanoTime());
+                try {
+                    send(subscriber, top);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Подписчик на популярные фильмы отключился: {}", e.getMessage());
+                    subscribers.remove(subscriber);
+                    return;
+                }
+            }
+            subscriber.busySince.set(IDLE);
+        } while (subscriber.pending.get() != null && subscriber.busySince.compareAndSet(IDLE, System.nanoTime()));
+    }
+
+    private void send(final Subscriber subscriber, final Top top) throws IOException {
+        Top last = subscriber.lastSent;
+        if (last != null && top.version() <= last.version()) {
+            return;
+        }
+        if (last != null && top.ids().equals(last.ids())) {
+            subscriber.lastSent = top;
+            return;
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event().id(Long.toString(top.version()));
+        if (!subscriber.changes || last == null) {
+            event.name(TOP_EVENT).data(top.json(), MediaType.APPLICATION_JSON);
+        } else {
+            String change = last.ids().equals(top.previousIds())
+                    ? top.changeJson()
+                    : json(change(last.ids(), top));
+            event.name(CHANGE_EVENT).data(change, MediaType.APPLICATION_JSON);
+        }
+        subscriber.emitter.send(event);
+        subscriber.lastSent = top;
+    }
+
+    private Top top(final long version, final List<Film> films, final Top previous) {
+        List<Film> top = List.copyOf(films);
+        List<Long> ids = top.stream().map(Film::getId).toList();
+        Top next = new Top(version, ids, top, json(top), null, null);
+        if (previous == null) {
+            return next;
+        }
+        return new Top(version, ids, top, next.json(), previous.ids(), json(change(previous.ids(), next)));
+    }
+
+    private static PopularFilmsChange change(final List<Long> previousIds, final Top next) {
+        Set<Long> before = new HashSet<>(previousIds);
+        Set<Long> after = new HashSet<>(next.ids());
+        return new PopularFilmsChange(next.ids(),
+                next.films().stream().filter(film -> !before.contains(film.getId())).toList(),
+                previousIds.stream().filter(id -> !after.contains(id)).toList());
+    }
+
+    private String json(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Список популярных фильмов одного размера.
+     *
+     * @param version     версия популярных фильмов, с которой построен список
+     * @param ids         идентификаторы фильмов в порядке популярности
+     * @param films       фильмы списка
+     * @param json        список в JSON
+     * @param previousIds разосланный до него список того же размера; null, если его не было
+     * @param changeJson  изменение от {@code previousIds} в JSON
+     */
+    private record Top(long version, List<Long> ids, List<Film> films, String json,
+                       List<Long> previousIds, String changeJson) {
+    }
+
+    /**
+     * Подписчик и состояние отправки ему.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final int count;
+        private final boolean changes;
+        /** Ещё не отправленное событие; новое заменяет прежнее. */
+        private final AtomicReference<Top> pending = new AtomicReference<>();
+        /** Момент начала текущей отправки по {@link System#nanoTime()} или {@link #IDLE}. */
+        private final AtomicLong busySince = new AtomicLong(IDLE);
+        /** Последний отправленный список; меняется только потоком отправки. */
+        private Top lastSent;
+
+        private Subscriber(final SseEmitter emitter, final int count, final boolean changes) {
+            this.emitter = emitter;
+            this.count = count;
+            this.changes = changes;
+        }
+    }
+}
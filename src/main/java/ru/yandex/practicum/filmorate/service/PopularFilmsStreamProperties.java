@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки потока изменений списка популярных фильмов ({@code filmorate.popular-stream.*}).
+ *
+ * @param coalesceInterval как часто проверяются изменения; все изменения
+ *                         за интервал отправляются подписчику одним событием
+ * @param sendTimeout      сколько может длиться отправка события подписчику;
+ *                         более медленный подписчик отключается
+ * @param timeout          время жизни подписки, после которого клиент
+ *                         переподключается
+ * @param maxCount         наибольший размер списка, на который можно подписаться
+ * @param maxSubscribers   наибольшее количество одновременных подписчиков
+ * @param senderThreads    наибольшее количество потоков отправки событий;
+ *                         не зависит от {@code maxSubscribers}
+ */
+@ConfigurationProperties("filmorate.popular-stream")
+public record PopularFilmsStreamProperties(
+        @DefaultValue("500ms") Duration coalesceInterval,
+        @DefaultValue("10s") Duration sendTimeout,
+        @DefaultValue("30m") Duration timeout,
+        @DefaultValue("100") int maxCount,
+        @DefaultValue("10000") int maxSubscribers,
+        @DefaultValue("32") int senderThreads) {
+}
@@ -0,0 +1,530 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.IdBitmap;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Похожие фильмы: «пользователи, которым понравился этот фильм, лайкали также».
+ * <p>
+ * Для каждого фильма хранится разреженная строка матрицы совместных лайков —
+ * не больше {@code candidates} соседей со счётчиком пользователей, лайкнувших
+ * оба фильма. Запрос читает готовую строку и не обходит лайки, поэтому его
+ * время не зависит от количества лайков; память ограничена
+ * {@code candidates} соседями на фильм.
+ * <p>
+ * В режиме {@link SimilarFilmsProperties.Mode#INCREMENTAL} индекс получает
+ * изменения лайков от {@link FilmService}: лайк пользователя увеличивает
+ * счётчики пар нового фильма с каждым его лайкнутым фильмом, удаление лайка —
+ * уменьшает. Для этого индекс хранит фильмы каждого пользователя. Когда
+ * строка фильма заполнена, новый сосед вытесняет соседа с наименьшим
+ * счётчиком и наследует этот счётчик (алгоритм Space-Saving): часто
+ * встречающиеся соседи не теряются, а счётчики могут быть завышены.
+ * <p>
+ * Полное перестроение читает лайки всех фильмов из хранилища, упорядочивает
+ * их по пользователю {@link Arrays#parallelSort(long[])} и параллельно
+ * по фильмам подсчитывает точные счётчики совместных лайков. Оно выполняется
+ * при запуске — после генерации синтетических данных и до запуска
+ * веб-сервера — и затем каждые {@code rebuild-interval}; в режиме
+ * {@link SimilarFilmsProperties.Mode#BATCH} индекс меняется только так.
+ * Изменения, пришедшие во время перестроения, применяются к новому индексу
+ * повторно; фильмы пользователя в индексе делают повтор безвредным.
+ * <p>
+ * Лайки пользователей, у которых больше {@code max-user-likes} лайков,
+ * не учитываются: каждый такой лайк изменял бы сотни счётчиков, а сходства
+ * фильмов почти не говорит. При инкрементальном обновлении граница
+ * проверяется в момент изменения, поэтому пользователь, пересёкший её,
+ * учитывается приближённо до следующего перестроения.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SimilarFilmsProperties.class)
+public class SimilarFilms implements SmartLifecycle {
+    /** Количество похожих фильмов по умолчанию. */
+    private static final int DEFAULT_COUNT = 10;
+    /** Лайк в ключе упорядочения: id пользователя в старших битах, номер фильма — в младших. */
+    private static final int FILM_BITS = 32;
+    /** Ключ лайка пользователя, id которого не помещается в ключ; такие лайки пропускаются. */
+    private static final long SKIPPED = Long.MAX_VALUE;
+
+    private final FilmStorage filmStorage;
+    private final LikeStorage likeStorage;
+    private final SimilarFilmsProperties properties;
+    private final BackgroundThreads threads;
+    private final Timer timer;
+    /** Изменения лайков применяются под общей блокировкой, замена индекса — под исключительной. */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Index index;
+    /** Изменения, пришедшие во время перестроения. */
+    private volatile Queue<Change> recording;
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    /**
+     * Создаёт индекс похожих фильмов.
+     *
+     * @param filmService   сервис фильмов, сообщающий об изменениях лайков
+     * @param filmStorage   хранилище фильмов
+     * @param likeStorage   хранилище лайков
+     * @param properties    настройки индекса
+     * @param threads       вид потока периодического перестроения
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public SimilarFilms(final FilmService filmService, final FilmStorage filmStorage, final LikeStorage likeStorage,
+                        final SimilarFilmsProperties properties, final BackgroundThreads threads,
+                        final MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        this.likeStorage = likeStorage;
+        this.properties = properties;
+        this.threads = threads;
+        this.timer = LatencyTimers.register(meterRegistry, "filmorate.films.similar",
+                "Задержка подбора похожих фильмов");
+        if (properties.mode() == SimilarFilmsProperties.Mode.INCREMENTAL) {
+            filmService.addLikeListener(this::likeChanged);
+        }
+    }
+
+    /**
+     * Возвращает фильмы, которые чаще всего лайкали вместе с данным, лучшие первыми.
+     *
+     * @param filmId id фильма
+     * @param count  количество фильмов; если null или меньше либо равно нулю,
+     *               используется 10, больше {@code neighbours} — ограничивается им
+     * @return похожие фильмы
+     * @throws NotFoundException если фильм не найден
+     */
+    public List<Film> find(final long filmId, final Integer count) {
+        if (filmStorage.findById(filmId).isEmpty()) {
+            throw new NotFoundException(String.format("Фильм id = %d не найден", filmId));
+        }
+
+        int limit = (count == null || count <= 0) ? DEFAULT_COUNT : Math.min(count, properties.neighbours());
+        long[] ids = timer.record(() -> neighbours(filmId, limit));
+        List<Film> films = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            filmStorage.findById(id).ifPresent(films::add);
+        }
+        return films;
+    }
+
+    /**
+     * Возвращает id соседей фильма, лучшие первыми.
+     *
+     * @param filmId id фильма
+     * @param limit  сколько соседей вернуть
+     * @return id соседей; пустой массив, если индекс ещё не построен
+     */
+    long[] neighbours(final long filmId, final int limit) {
+        Index current = index;
+        if (current == null) {
+            return new long[0];
+        }
+
+        long[][] ids = {new long[0]};
+        current.neighbours.computeIfPresent(filmId, (id, row) -> {
+            ids[0] = row.top(limit);
+            return row;
+        });
+        return ids[0];
+    }
+
+    /**
+     * Перестраивает индекс по лайкам в хранилище и заменяет им текущий.
+     * Вызывается из одного потока.
+     */
+    void rebuild() {
+        long started = System.nanoTime();
+        boolean incremental = properties.mode() == SimilarFilmsProperties.Mode.INCREMENTAL;
+        if (incremental) {
+            recording = new ConcurrentLinkedQueue<>();
+        }
+        Index rebuilt = build(incremental);
+
+        swapLock.writeLock().lock();
+        try {
+            Queue<Change> changes = recording;
+            recording = null;
+            if (changes != null) {
+                for (Change change : changes) {
+                    rebuilt.apply(change.filmId(), change.userId(), change.liked(), properties.maxUserLikes());
+                }
+            }
+            index = rebuilt;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.info("Индекс похожих фильмов перестроен за {} мс: {} фильмов",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), rebuilt.neighbours.size());
+    }
+
+    private void likeChanged(final long filmId, final long userId, final boolean liked) {
+        swapLock.readLock().lock();
+        try {
+            Queue<Change> changes = recording;
+            if (changes != null) {
+                changes.add(new Change(filmId, userId, liked));
+            }
+            Index current = index;
+            if (current != null) {
+                current.apply(filmId, userId, liked, properties.maxUserLikes());
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private Index build(final boolean incremental) {
+        long[] filmIds = likeStorage.likedFilmIds().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[][] likers = new long[filmIds.length][];
+        IntStream.range(0, filmIds.length).parallel()
+                .forEach(i -> likers[i] = likeStorage.likedUserIds(filmIds[i]));
+
+        int[] offsets = new int[filmIds.length + 1];
+        for (int i = 0; i < filmIds.length; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], likers[i].length);
+        }
+        long[] byUser = new long[offsets[filmIds.length]];
+        IntStream.range(0, filmIds.length).parallel().forEach(i -> {
+            for (int j = 0; j < likers[i].length; j++) {
+                long userId = likers[i][j];
+                byUser[offsets[i] + j] = userId >>> (Long.SIZE - FILM_BITS - 1) == 0
+                        ? userId << FILM_BITS | i
+                        : SKIPPED;
+            }
+        });
+        Arrays.parallelSort(byUser);
+
+        int likes = 0;
+        int users = 0;
+        while (likes < byUser.length && byUser[likes] != SKIPPED) {
+            if (likes == 0 || byUser[likes] >>> FILM_BITS != byUser[likes - 1] >>> FILM_BITS) {
+                users++;
+            }
+            likes++;
+        }
+        int userCount = users;
+        // Лайки пользователя u — byUser[userStart[u]..userStart[u + 1]), номер фильма в младших битах.
+        long[] userIds = new long[userCount];
+        int[] userStart = new int[userCount + 1];
+        for (int k = 0, u = 0; k < likes; k++) {
+            if (k == 0 || byUser[k] >>> FILM_BITS != byUser[k - 1] >>> FILM_BITS) {
+                userIds[u] = byUser[k] >>> FILM_BITS;
+                userStart[u++] = k;
+            }
+        }
+        userStart[userCount] = likes;
+
+        // Пользователи, лайкнувшие фильм f, — номера в userIds из userIndex[offsets[f]..offsets[f + 1]).
+        // И лайки фильма, и лайки пользователя упорядочены по id пользователя, поэтому обход
+        // пользователей по возрастанию id заполняет лайки каждого фильма по порядку;
+        // пропущенные пользователи — с наибольшими id, их место остаётся равным -1.
+        int[] userIndex = new int[byUser.length];
+        Arrays.fill(userIndex, -1);
+        int[] cursor = Arrays.copyOf(offsets, filmIds.length);
+        for (int u = 0; u < userCount; u++) {
+            for (int k = userStart[u]; k < userStart[u + 1]; k++) {
+                userIndex[cursor[(int) byUser[k]]++] = u;
+            }
+        }
+
+        Map<Long, Row> neighbours = new ConcurrentHashMap<>();
+        ThreadLocal<int[]> counters = ThreadLocal.withInitial(() -> new int[filmIds.length]);
+        IntStream.range(0, filmIds.length).parallel().forEach(f -> {
+            int[] counts = counters.get();
+            int[] touched = new int[Math.min(filmIds.length, Math.max(16, offsets[f + 1] - offsets[f]))];
+            int size = 0;
+            for (int j = offsets[f]; j < offsets[f + 1]; j++) {
+                int u = userIndex[j];
+                if (u < 0 || userStart[u + 1] - userStart[u] > properties.maxUserLikes()) {
+                    continue;
+                }
+                for (int k = userStart[u]; k < userStart[u + 1]; k++) {
+                    int g = (int) byUser[k];
+                    if (g != f && counts[g]++ == 0) {
+                        if (size == touched.length) {
+                            touched = Arrays.copyOf(touched, Math.min(filmIds.length, size * 2));
+                        }
+                        touched[size++] = g;
+                    }
+                }
+            }
+            if (size > 0) {
+                neighbours.put(filmIds[f], Row.of(touched, size, counts, filmIds, properties.candidates()));
+            }
+        });
+
+        Map<Long, IdBitmap> filmsByUser = null;
+        if (incremental) {
+            Map<Long, IdBitmap> byUserId = new ConcurrentHashMap<>(userCount);
+            IntStream.range(0, userCount).parallel().forEach(u -> {
+                IdBitmap userFilms = new IdBitmap();
+                for (int k = userStart[u]; k < userStart[u + 1]; k++) {
+                    userFilms.add(filmIds[(int) byUser[k]]);
+                }
+                byUserId.put(userIds[u], userFilms);
+            });
+            filmsByUser = byUserId;
+        }
+        return new Index(neighbours, filmsByUser, properties.candidates());
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+        long interval = properties.rebuildInterval().toMillis();
+        if (interval > 0) {
+            executor = Executors.newSingleThreadScheduledExecutor(threads.factory("similar-films-rebuild"));
+            executor.scheduleWithFixedDelay(this::rebuildQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdownNow();
+        try {
+            current.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Сразу после генерации синтетических данных и до запуска веб-сервера.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE + 1;
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Ошибка перестроения индекса похожих фильмов", e);
+        }
+    }
+
+    /**
+     * Изменение лайка, пришедшее во время перестроения.
+     */
+    private record Change(long filmId, long userId, boolean liked) {
+    }
+
+    /**
+     * Строки соседей фильмов и, при инкрементальном обновлении, фильмы каждого пользователя.
+     */
+    private record Index(Map<Long, Row> neighbours, Map<Long, IdBitmap> filmsByUser, int candidates) {
+
+        /**
+         * Применяет изменение лайка. Если фильмы пользователя уже отражают
+         * изменение, счётчики не меняются.
+         */
+        void apply(final long filmId, final long userId, final boolean liked, final int maxUserLikes) {
+            filmsByUser.compute(userId, (id, userFilms) -> {
+                IdBitmap result = userFilms == null ? new IdBitmap() : userFilms;
+                boolean changed = liked ? result.add(filmId) : result.remove(filmId);
+                long userLikes = liked ? result.cardinality() : result.cardinality() + 1;
+                if (changed && userLikes <= maxUserLikes) {
+                    int delta = liked ? 1 : -1;
+                    result.forEach(other -> {
+                        if (other != filmId) {
+                            adjust(filmId, other, delta);
+                            adjust(other, filmId, delta);
+                        }
+                    });
+                }
+                return result.isEmpty() ? null : result;
+            });
+        }
+
+        private void adjust(final long filmId, final long other, final int delta) {
+            if (delta > 0) {
+                neighbours.compute(filmId, (id, row) -> {
+                    Row result = row == null ? new Row(candidates) : row;
+                    result.increment(other);
+                    return result;
+                });
+            } else {
+                neighbours.computeIfPresent(filmId, (id, row) -> row.decrement(other) ? row : null);
+            }
+        }
+    }
+
+    /**
+     * Соседи одного фильма: не больше заданного количества id со счётчиками.
+     * Не потокобезопасна: доступ синхронизирует вызывающий код.
+     */
+    static final class Row {
+        private final long[] ids;
+        private final int[] counts;
+        private int size;
+
+        Row(final int capacity) {
+            ids = new long[capacity];
+            counts = new int[capacity];
+        }
+
+        /**
+         * Строит строку из точных счётчиков, оставляя лучших соседей.
+         *
+         * @param touched  номера фильмов с ненулевыми счётчиками
+         * @param size     сколько номеров заполнено
+         * @param counts   счётчики по номерам фильмов; обнуляются
+         * @param filmIds  id фильмов по номерам, по возрастанию
+         * @param capacity вместимость строки
+         */
+        static Row of(final int[] touched, final int size, final int[] counts, final long[] filmIds,
+                      final int capacity) {
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                int g = touched[i];
+                keys[i] = (long) (Integer.MAX_VALUE - counts[g]) << FILM_BITS | g;
+                counts[g] = 0;
+            }
+            if (size > capacity) {
+                select(keys, capacity);
+            }
+            Arrays.sort(keys, 0, Math.min(size, capacity));
+            Row row = new Row(capacity);
+            for (int i = 0; i < size && i < capacity; i++) {
+                row.ids[i] = filmIds[(int) keys[i]];
+                row.counts[i] = Integer.MAX_VALUE - (int) (keys[i] >>> FILM_BITS);
+            }
+            row.size = Math.min(size, capacity);
+            return row;
+        }
+
+        /**
+         * Переставляет ключи так, что первые {@code k} из них — наименьшие (quickselect).
+         */
+        private static void select(final long[] keys, final int k) {
+            int from = 0;
+            int to = keys.length - 1;
+            SplittableRandom random = new SplittableRandom(keys.length);
+            while (from < to) {
+                long pivot = keys[from + random.nextInt(to - from + 1)];
+                int i = from;
+                int j = to;
+                while (i <= j) {
+                    while (keys[i] < pivot) {
+                        i++;
+                    }
+                    while (keys[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        long swap = keys[i];
+                        keys[i++] = keys[j];
+                        keys[j--] = swap;
+                    }
+                }
+                if (k <= j) {
+                    to = j;
+                } else if (k >= i) {
+                    from = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        void increment(final long id) {
+            int i = indexOf(id);
+            if (i >= 0) {
+                counts[i]++;
+            } else if (size < ids.length) {
+                ids[size] = id;
+                counts[size++] = 1;
+            } else {
+                int min = 0;
+                for (int j = 1; j < size; j++) {
+                    if (counts[j] < counts[min]) {
+                        min = j;
+                    }
+                }
+                ids[min] = id;
+                counts[min]++;
+            }
+        }
+
+        /**
+         * Уменьшает счётчик соседа, удаляя его на нуле.
+         *
+         * @return {@code false}, если строка опустела
+         */
+        boolean decrement(final long id) {
+            int i = indexOf(id);
+            if (i >= 0 && --counts[i] == 0) {
+                size--;
+                ids[i] = ids[size];
+                counts[i] = counts[size];
+            }
+            return size > 0;
+        }
+
+        /**
+         * Возвращает id лучших соседей: по убыванию счётчика, при равенстве — по возрастанию id.
+         */
+        long[] top(final int limit) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> counts[a] != counts[b]
+                    ? Integer.compare(counts[b], counts[a])
+                    : Long.compare(ids[a], ids[b]));
+            long[] result = new long[Math.min(limit, size)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        }
+
+        private int indexOf(final long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки индекса похожих фильмов ({@code filmorate.similar.*}).
+ *
+ * @param mode            как индекс следует за изменениями лайков
+ * @param neighbours      сколько соседей фильма хранится и может быть запрошено
+ * @param candidates      сколько кандидатов в соседи отслеживается у фильма
+ *                        при инкрементальном обновлении; чем больше запас
+ *                        над {@code neighbours}, тем точнее подсчёт
+ * @param maxUserLikes    лайки пользователей, у которых их больше, в индекс не попадают
+ * @param rebuildInterval период полного перестроения; {@code 0} — только при запуске
+ */
+@ConfigurationProperties("filmorate.similar")
+public record SimilarFilmsProperties(
+        @DefaultValue("incremental") Mode mode,
+        @DefaultValue("20") int neighbours,
+        @DefaultValue("80") int candidates,
+        @DefaultValue("500") int maxUserLikes,
+        @DefaultValue("1h") Duration rebuildInterval) {
+
+    /**
+     * Способ обновления индекса.
+     */
+    public enum Mode {
+        /** Каждое изменение лайка сразу меняет соседей фильма; перестроение исправляет погрешность. */
+        INCREMENTAL,
+        /** Индекс меняется только полным перестроением. */
+        BATCH
+    }
+}
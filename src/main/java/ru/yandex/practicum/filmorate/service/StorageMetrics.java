@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Показатели объёма данных: количество фильмов, пользователей, лайков и дружб.
+ * <p>
+ * Значения считываются из хранилищ только при снятии метрик, а не при
+ * изменении данных, поэтому на обработку запросов не влияют.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageMetrics implements MeterBinder {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeStorage likeStorage;
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::count)
+                .description("Количество фильмов")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::count)
+                .description("Количество пользователей")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("filmorate.likes", likeStorage, LikeStorage::countAll)
+                .description("Количество лайков")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("filmorate.friendships", userStorage, UserStorage::countFriendships)
+                .description("Количество дружб")
+                .strongReference(true)
+                .register(registry);
+    }
+}
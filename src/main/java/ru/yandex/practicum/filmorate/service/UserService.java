@@ -1,18 +1,25 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
-import java.util.Set;
-import java.util.Collections;
 import java.util.Collection;
 import java.util.List;
 import java.util.Arrays;
+import java.util.stream.Stream;
 
 /**
  * Сервис для управления пользователями и их друзьями.
@@ -20,15 +27,85 @@ import java.util.Arrays;
  * Обеспечивает операции создания, обновления пользователей,
  * а также добавления, удаления и получения друзей.
  * </p>
+ * <p>
+ * Дружба изменяется с обеих сторон атомарно: операция захватывает
+ * блокировки обоих пользователей из {@link StripedLocks}.
+ * </p>
+ * <p>
+ * Задержка поиска общих друзей публикуется таймером
+ * {@code filmorate.users.friends.common}, размеры возвращаемых списков
+ * друзей — распределением {@code filmorate.users.friends.size}.
+ * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UserService {
+    /**
+     * Количество блокировок для изменения дружбы.
+     */
+    private static final int FRIEND_LOCK_STRIPES = 256;
     /**
      * Хранилище пользователей.
      */
-    private final InMemoryUserStorage userStorage;
+    private final UserStorage userStorage;
+    /**
+     * Блокировки пользователей для изменения дружбы.
+     */
+    private final StripedLocks friendLocks = new StripedLocks(FRIEND_LOCK_STRIPES);
+    /**
+     * Задержка поиска общих друзей.
+     */
+    private final Timer mutualFriendsTimer;
+    /**
+     * Размеры списков друзей.
+     */
+    private final DistributionSummary friendsSize;
+    /**
+     * Рекомендации друзей.
+     */
+    private final FriendRecommendations friendRecommendations;
+
+    /**
+     * Создаёт сервис без метрик.
+     *
+     * @param userStorage хранилище пользователей
+     */
+    public UserService(final UserStorage userStorage) {
+        this(userStorage, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Создаёт сервис, публикующий метрики в реестр.
+     *
+     * @param userStorage   хранилище пользователей
+     * @param meterRegistry реестр метрик
+     */
+    public UserService(final UserStorage userStorage, final MeterRegistry meterRegistry) {
+        this(userStorage, meterRegistry,
+                new FriendRecommendations(userStorage, FriendRecommendationsProperties.defaults(), meterRegistry));
+    }
+
+    /**
+     * Создаёт сервис с рекомендациями друзей.
+     *
+     * @param userStorage           хранилище пользователей
+     * @param meterRegistry         реестр метрик
+     * @param friendRecommendations рекомендации друзей
+     */
+    @Autowired
+    public UserService(final UserStorage userStorage, final MeterRegistry meterRegistry,
+                       final FriendRecommendations friendRecommendations) {
+        this.userStorage = userStorage;
+        this.friendRecommendations = friendRecommendations;
+        this.mutualFriendsTimer = LatencyTimers.register(meterRegistry, "filmorate.users.friends.common",
+                "Задержка поиска общих друзей");
+        this.friendsSize = DistributionSummary.builder("filmorate.users.friends.size")
+                .description("Размер списка друзей пользователя")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1_000_000.0)
+                .register(meterRegistry);
+    }
 
     /**
      * Возвращает коллекцию всех пользователей.
@@ -39,6 +116,29 @@ public class UserService {
         return userStorage.findAll();
     }
 
+    /**
+     * Возвращает всех пользователей потоком для выгрузки; поток нужно закрыть.
+     *
+     * @return пользователи, упорядоченные по id
+     */
+    public Stream<User> streamAll() {
+        return userStorage.streamAll();
+    }
+
+    /**
+     * Возвращает страницу пользователей, упорядоченных по идентификатору.
+     *
+     * @param after идентификатор последнего пользователя предыдущей страницы;
+     *              если null, возвращается первая страница
+     * @param limit размер страницы; если null или меньше либо равен нулю,
+     *              используется значение 100, больше 1000 — ограничивается 1000
+     * @return страница пользователей с курсором следующей страницы
+     */
+    public Page<User> findPage(Long after, Integer limit) {
+        int pageSize = Page.size(limit);
+        return Page.of(userStorage.findPage(after, pageSize + 1), pageSize, User::getId);
+    }
+
     /**
      * Добавляет нового пользователя в хранилище.
      *
@@ -46,6 +146,7 @@ public class UserService {
      * @return добавленный пользователь с присвоенным идентификатором
      */
     public User add(final User user) {
+        checkName(user);
         return userStorage.add(user);
     }
 
@@ -56,6 +157,11 @@ public class UserService {
      * @return обновлённый пользователь
      */
     public User update(final User newUser) {
+        if (newUser.getId() == null) {
+            throw new ConditionsNotMetException("Не указан id пользователя");
+        }
+
+        checkName(newUser);
         return userStorage.update(newUser);
     }
 
@@ -74,18 +180,11 @@ public class UserService {
             throw new ConditionsNotMetException("Нельзя добавить в друзья самого себя");
         }
 
-        try {
-            User user = userStorage.findById(id);
-            User friend = userStorage.findById(friendId);
-            user.addFriend(friendId);
-            friend.addFriend(id);
-        } catch (NotFoundException exception) {
-            if (exception.getMessage().contains(String.valueOf(id))) {
-                System.out.printf("Пользователь с id = %d не найден%n", id);
-            } else if (exception.getMessage().contains(String.valueOf(friendId))) {
-                System.out.printf("Пользователь с id = %d не найден%n", friendId);
-            }
-        }
+        userStorage.findById(id);
+        userStorage.findById(friendId);
+        // Запись в журнал ожидается уже после снятия блокировок: fsync не задерживает соседей по полосе
+        friendLocks.withLocks(id, friendId, () -> userStorage.addFriend(id, friendId)).join();
+        friendRecommendations.invalidate(id, friendId);
 
         return Arrays.asList(userStorage.findById(id), userStorage.findById(friendId));
     }
@@ -101,27 +200,16 @@ public class UserService {
      * @return {@code true}, если удаление прошло успешно, иначе {@code false}
      */
     public boolean deleteFriend(Long id, Long friendId) {
-        User user = userStorage.findById(id);
-        User friend = userStorage.findById(friendId);
-        if (user == null) {
-            throw new NotFoundException(String.format("Пользователь id = %d не найден%n", id));
-        }
-        if (friend == null) {
-            throw new NotFoundException(String.format("Пользователь id = %d не найден%n", friendId));
-        }
+        userStorage.findById(id);
+        userStorage.findById(friendId);
 
-        Set<Long> friendsOfUser = user.getFriends();
-        if (friendsOfUser == null || !friendsOfUser.contains(friendId)) {
+        boolean removed = friendLocks.withLocks(id, friendId, () -> userStorage.deleteFriend(id, friendId)).join();
+        if (removed) {
+            friendRecommendations.invalidate(id, friendId);
+        } else {
             log.debug("Пользователь id = {} не является другом пользователя id = {}", id, friendId);
-            return false;
         }
-
-        friendsOfUser.remove(friendId);
-
-        Set<Long> friendsOfFriend = friend.getFriends();
-        friendsOfFriend.remove(id);
-
-        return true;
+        return removed;
     }
 
     /**
@@ -131,16 +219,12 @@ public class UserService {
      * @return список друзей пользователя; пустой список, если друзей нет
      */
     public List<User> getFriends(Long id) {
-        User user = userStorage.findById(id);
-        Set<Long> friendsIds = user.getFriends();
-        if (friendsIds == null || friendsIds.isEmpty()) {
+        List<User> friends = userStorage.findFriends(id);
+        friendsSize.record(friends.size());
+        if (friends.isEmpty()) {
             log.debug("Получен пустой список");
-            return Collections.emptyList();
         }
-
-        return friendsIds.stream()
-                .map(this::findById)
-                .toList();
+        return friends;
     }
 
     /**
@@ -148,17 +232,22 @@ public class UserService {
      *
      * @param id идентификатор первого пользователя
      * @param otherId идентификатор второго пользователя
-     * @return список общих друзей; пустой список,
-     * если один из пользователей не найден или общих друзей нет
+     * @return список общих друзей; пустой список, если общих друзей нет
      */
     public List<User> mutualFriends(Long id, Long otherId) {
-        if (findById(id) == null || findById(otherId) == null) {
-            return Collections.emptyList();
-        }
+        return mutualFriendsTimer.record(() -> userStorage.findCommonFriends(id, otherId));
+    }
 
-        return getFriends(id).stream()
-                .filter(friend -> getFriends(otherId).contains(friend))
-                .toList();
+    /**
+     * Возвращает рекомендованных друзей: пользователей с наибольшим
+     * количеством общих друзей, см. {@link FriendRecommendations}.
+     *
+     * @param id    идентификатор пользователя
+     * @param count количество рекомендаций
+     * @return рекомендации, лучшие первыми
+     */
+    public List<FriendRecommendation> recommendFriends(Long id, Integer count) {
+        return friendRecommendations.recommend(id, count);
     }
 
     /**
@@ -170,4 +259,56 @@ public class UserService {
     public User findById(long id) {
         return userStorage.findById(id);
     }
+
+    /**
+     * Возвращает пользователя по электронной почте без учёта регистра.
+     *
+     * @param email электронная почта
+     * @return найденный пользователь
+     * @throws NotFoundException если пользователь не найден
+     */
+    public User findByEmail(final String email) {
+        return userStorage.findByEmail(email).orElseThrow(() -> new NotFoundException(
+                String.format("Пользователь с электронной почтой %s не найден", email)));
+    }
+
+    /**
+     * Возвращает пользователя по логину без учёта регистра.
+     *
+     * @param login логин
+     * @return найденный пользователь
+     * @throws NotFoundException если пользователь не найден
+     */
+    public User findByLogin(final String login) {
+        return userStorage.findByLogin(login).orElseThrow(() -> new NotFoundException(
+                String.format("Пользователь с логином %s не найден", login)));
+    }
+
+    /**
+     * Проверяет, что почта и логин нового пользователя ещё не заняты.
+     * Окончательно уникальность проверяет хранилище при добавлении;
+     * проверка нужна, чтобы отклонить отдельную запись импорта, а не всю часть.
+     *
+     * @param user пользователь для проверки
+     * @throws ValidationException если почта или логин заняты
+     */
+    void checkAvailable(final User user) {
+        if (userStorage.findByEmail(user.getEmail()).isPresent()) {
+            throw new ValidationException(String.format("Электронная почта %s уже используется", user.getEmail()));
+        }
+        if (userStorage.findByLogin(user.getLogin()).isPresent()) {
+            throw new ValidationException(String.format("Логин %s уже занят", user.getLogin()));
+        }
+    }
+
+    /**
+     * Проверка и установка имени пользователя, если оно отсутствует.
+     *
+     * @param user пользователь для проверки
+     */
+    void checkName(final User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.CallerThreadLoad;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище фильмов с кэшем поиска по идентификатору.
+ * <p>
+ * {@link #findById} читает фильм из кэша, а при промахе загружает его
+ * из основного хранилища в вызывающем потоке, вне блокировок кэша,
+ * и запоминает (см. {@link CallerThreadLoad}). Отсутствующие фильмы не кэшируются.
+ * Обновление сначала меняет основное хранилище, затем удаляет запись
+ * из кэша вместе с незавершённой загрузкой, поэтому устаревшее значение
+ * в кэше не останется. Остальные операции
+ * передаются основному хранилищу без изменений.
+ */
+@RequiredArgsConstructor
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final AsyncCache<Long, Film> cache;
+
+    @Override
+    public Collection<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Film> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Film> findPage(final Long after, final int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(final LocalDate from, final LocalDate to, final Film after,
+                                        final boolean descending, final int limit) {
+        return delegate.findByReleaseDate(from, to, after, descending, limit);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Optional<Film> findById(final Long filmId) {
+        return Optional.ofNullable(CallerThreadLoad.get(cache, filmId, id -> delegate.findById(id).orElse(null)));
+    }
+
+    @Override
+    public Film add(final Film film) {
+        return delegate.add(film);
+    }
+
+    @Override
+    public List<Film> addAll(final List<Film> films) {
+        return delegate.addAll(films);
+    }
+
+    @Override
+    public Film update(final Film newFilm) {
+        try {
+            return delegate.update(newFilm);
+        } finally {
+            cache.synchronous().invalidate(newFilm.getId());
+        }
+    }
+}
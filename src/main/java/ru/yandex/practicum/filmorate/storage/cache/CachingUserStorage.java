@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.CallerThreadLoad;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей с кэшем поиска по идентификатору.
+ * <p>
+ * Пользователь кэшируется вместе с друзьями, поэтому запись удаляется
+ * из кэша не только при обновлении пользователя, но и при изменении
+ * дружбы — для обоих пользователей. Удаление выполняется после изменения
+ * основного хранилища. Если пользователь не найден, исключение основного
+ * хранилища передаётся вызывающему коду и ничего не кэшируется.
+ * Пользователь загружается в вызывающем потоке вне блокировок кэша,
+ * см. {@link CallerThreadLoad}.
+ */
+@RequiredArgsConstructor
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final AsyncCache<Long, User> cache;
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<User> findPage(final Long after, final int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Optional<User> findByEmail(final String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> findByLogin(final String login) {
+        return delegate.findByLogin(login);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countFriendships() {
+        return delegate.countFriendships();
+    }
+
+    @Override
+    public User findById(final Long userId) {
+        return CallerThreadLoad.get(cache, userId, delegate::findById);
+    }
+
+    @Override
+    public User add(final User user) {
+        return delegate.add(user);
+    }
+
+    @Override
+    public List<User> addAll(final List<User> users) {
+        return delegate.addAll(users);
+    }
+
+    @Override
+    public User update(final User newUser) {
+        try {
+            return delegate.update(newUser);
+        } finally {
+            cache.synchronous().invalidate(newUser.getId());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> addFriend(final long userId, final long friendId) {
+        try {
+            return delegate.addFriend(userId, friendId);
+        } finally {
+            cache.synchronous().invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public void loadFriendships(final long[] userIds, final long[] friendIds) {
+        try {
+            delegate.loadFriendships(userIds, friendIds);
+        } finally {
+            cache.synchronous().invalidateAll(LongStream.concat(Arrays.stream(userIds), Arrays.stream(friendIds))
+                    .boxed()
+                    .toList());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteFriend(final long userId, final long friendId) {
+        try {
+            return delegate.deleteFriend(userId, friendId);
+        } finally {
+            cache.synchronous().invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public List<User> findFriends(final long userId) {
+        return delegate.findFriends(userId);
+    }
+
+    /**
+     * Берёт друзей из закэшированного пользователя: обход друзей друзей
+     * не обращается к базе для пользователей, уже находящихся в кэше.
+     */
+    @Override
+    public long[] findFriendIds(final long userId) {
+        User user = findById(userId);
+        return user.getFriends() == null ? new long[0] : user.getFriends().snapshot();
+    }
+
+    @Override
+    public List<User> findCommonFriends(final long userId, final long otherId) {
+        return delegate.findCommonFriends(userId, otherId);
+    }
+}
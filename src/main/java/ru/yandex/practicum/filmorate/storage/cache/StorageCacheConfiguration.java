@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Подключает кэш поиска по идентификатору к хранилищам в базе данных.
+ * <p>
+ * Кэш ограничен по количеству записей и вытесняет их по политике
+ * W-TinyLFU библиотеки Caffeine: частые фильмы и пользователи остаются
+ * в памяти, разовые обращения не вытесняют их. Попадания, промахи
+ * и вытеснения публикуются как метрики {@code cache.*} с тегом
+ * {@code cache=films} или {@code cache=users}.
+ * <p>
+ * Работает при активном профиле {@code db} и {@code filmorate.cache.enabled=true};
+ * хранилищам в памяти кэш не нужен.
+ */
+@Configuration
+@Profile("db")
+@ConditionalOnProperty(prefix = "filmorate.cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(StorageCacheProperties.class)
+public class StorageCacheConfiguration {
+
+    /**
+     * Хранилище фильмов с кэшем.
+     */
+    @Bean
+    @Primary
+    public FilmStorage cachingFilmStorage(final FilmDbStorage filmDbStorage,
+                                          final StorageCacheProperties properties,
+                                          final MeterRegistry meterRegistry) {
+        return new CachingFilmStorage(filmDbStorage, cache(properties, meterRegistry, "films"));
+    }
+
+    /**
+     * Хранилище пользователей с кэшем.
+     */
+    @Bean
+    @Primary
+    public UserStorage cachingUserStorage(final UserDbStorage userDbStorage,
+                                          final StorageCacheProperties properties,
+                                          final MeterRegistry meterRegistry) {
+        return new CachingUserStorage(userDbStorage, cache(properties, meterRegistry, "users"));
+    }
+
+    private static <V> AsyncCache<Long, V> cache(final StorageCacheProperties properties,
+                                                 final MeterRegistry meterRegistry,
+                                                 final String name) {
+        AsyncCache<Long, V> cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+}
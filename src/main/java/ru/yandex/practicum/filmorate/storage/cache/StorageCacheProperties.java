@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша хранилищ ({@code filmorate.cache.*}).
+ *
+ * @param enabled          включён ли кэш
+ * @param maximumSize      максимальное количество записей в кэше каждого хранилища
+ * @param expireAfterWrite срок жизни записи; ограничивает устаревание данных,
+ *                         изменённых в базе в обход приложения
+ */
+@ConfigurationProperties("filmorate.cache")
+public record StorageCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration expireAfterWrite) {
+}
@@ -0,0 +1,4 @@
+/**
+ * Кэширующие обёртки хранилищ для поиска по идентификатору.
+ */
+package ru.yandex.practicum.filmorate.storage.cache;
@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище фильмов в базе данных.
+ * <p>
+ * Используется при активном профиле {@code db}.
+ */
+@Component
+@Profile("db")
+public class FilmDbStorage implements FilmStorage {
+    private static final FilmRowMapper FILM_ROW_MAPPER = new FilmRowMapper();
+    /** Сколько строк драйвер читает за раз при потоковой выгрузке. */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final SimpleJdbcInsert filmInsert;
+
+    /**
+     * Создаёт хранилище поверх переданного JdbcTemplate.
+     *
+     * @param jdbcTemplate шаблон для выполнения запросов
+     */
+    public FilmDbStorage(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration")
+                .usingGeneratedKeyColumns("film_id");
+    }
+
+    /**
+     * Возвращает все фильмы, упорядоченные по id.
+     *
+     * @return коллекция фильмов
+     */
+    @Override
+    public Collection<Film> findAll() {
+        return jdbcTemplate.query(
+                "SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f ORDER BY f.film_id",
+                FILM_ROW_MAPPER);
+    }
+
+    /**
+     * Возвращает все фильмы потоком строк результата, читая их порциями
+     * по {@value #EXPORT_FETCH_SIZE}. Соединение занято до закрытия потока.
+     *
+     * @return фильмы, упорядоченные по id
+     */
+    @Override
+    public Stream<Film> streamAll() {
+        return exportTemplate.queryForStream(
+                "SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f ORDER BY f.film_id",
+                FILM_ROW_MAPPER);
+    }
+
+    /**
+     * Возвращает страницу фильмов, упорядоченных по id.
+     *
+     * @param after id последнего фильма предыдущей страницы
+     * @param limit максимальное количество фильмов
+     * @return фильмы с id больше {@code after}
+     */
+    @Override
+    public List<Film> findPage(final Long after, final int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f "
+                        + "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?",
+                FILM_ROW_MAPPER, after == null ? 0 : after, limit);
+    }
+
+    /**
+     * Возвращает страницу фильмов из диапазона дат релиза.
+     * Запрос обслуживается индексом {@code films_release_date_idx}.
+     *
+     * @param from       первая дата релиза; если null, без ограничения
+     * @param to         последняя дата релиза; если null, без ограничения
+     * @param after      последний фильм предыдущей страницы
+     * @param descending упорядочить от новых фильмов к старым
+     * @param limit      максимальное количество фильмов
+     * @return фильмы, упорядоченные по дате релиза и id
+     */
+    @Override
+    public List<Film> findByReleaseDate(final LocalDate from, final LocalDate to, final Film after,
+                                        final boolean descending, final int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND f.release_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND f.release_date <= ?");
+            args.add(to);
+        }
+        String direction = descending ? " DESC" : "";
+        if (after != null) {
+            String sign = descending ? "<" : ">";
+            sql.append(" AND (f.release_date ").append(sign).append(" ?")
+                    .append(" OR (f.release_date = ? AND f.film_id ").append(sign).append(" ?))");
+            args.add(after.getReleaseDate());
+            args.add(after.getReleaseDate());
+            args.add(after.getId());
+        }
+        sql.append(" ORDER BY f.release_date").append(direction).append(", f.film_id").append(direction)
+                .append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), FILM_ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Optional<Film> findById(final Long filmId) {
+        return jdbcTemplate.query(
+                        "SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f WHERE f.film_id = ?",
+                        FILM_ROW_MAPPER, filmId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Добавляет новый фильм.
+     *
+     * @param film фильм для добавления
+     * @return фильм с присвоенным id
+     */
+    @Override
+    public Film add(final Film film) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", film.getName());
+        values.put("description", film.getDescription());
+        values.put("release_date", film.getReleaseDate());
+        values.put("duration", film.getDuration());
+        film.setId(filmInsert.executeAndReturnKey(values).longValue());
+        return film;
+    }
+
+    /**
+     * Добавляет фильмы одной пачкой JDBC в одной транзакции.
+     *
+     * @param films фильмы для добавления
+     * @return те же фильмы с присвоенными id
+     */
+    @Override
+    @Transactional
+    public List<Film> addAll(final List<Film> films) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO films (name, description, release_date, duration) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setObject(4, film.getDuration(), Types.INTEGER);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) ids.get(i).get("FILM_ID")).longValue());
+        }
+        return films;
+    }
+
+    /**
+     * Обновляет существующий фильм.
+     *
+     * @param newFilm фильм с обновлённой информацией
+     * @return обновлённый фильм
+     */
+    @Override
+    public Film update(final Film newFilm) {
+        int updated = jdbcTemplate.update(
+                "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? WHERE film_id = ?",
+                newFilm.getName(), newFilm.getDescription(), newFilm.getReleaseDate(),
+                newFilm.getDuration(), newFilm.getId());
+        if (updated == 0) {
+            throw new NotFoundException(
+                    String.format("Фильм с id = %d не найден", newFilm.getId())
+            );
+        }
+        return newFilm;
+    }
+}
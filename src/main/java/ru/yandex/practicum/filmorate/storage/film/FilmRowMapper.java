@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Преобразует строку таблицы {@code films} в {@link Film}.
+ */
+public class FilmRowMapper implements RowMapper<Film> {
+    /**
+     * Столбцы, которые читает преобразователь.
+     */
+    public static final String COLUMNS = "f.film_id, f.name, f.description, f.release_date, f.duration";
+
+    @Override
+    public Film mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+        return Film.builder()
+                .id(rs.getLong("film_id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .releaseDate(rs.getDate("release_date").toLocalDate())
+                .duration(rs.getObject("duration", Integer.class))
+                .build();
+    }
+}
@@ -2,25 +2,63 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для хранилища фильмов.
  * <p>
  * Определяет базовые операции для добавления, обновления и получения коллекции фильмов.
  */
-interface FilmStorage {
+public interface FilmStorage {
 
     /**
      * Возвращает коллекцию всех фильмов, содержащихся в хранилище.
      */
     Collection<Film> findAll();
 
+    /**
+     * Возвращает все фильмы, упорядоченные по id, потоком, не загружая их в память целиком.
+     * Поток нужно закрыть после обхода.
+     */
+    Stream<Film> streamAll();
+
+    /**
+     * Возвращает страницу фильмов с id больше {@code after}, упорядоченных по id.
+     */
+    List<Film> findPage(final Long after, final int limit);
+
+    /**
+     * Возвращает страницу фильмов с датой релиза от {@code from} до {@code to}
+     * включительно, упорядоченных по дате релиза и id, которые следуют
+     * за фильмом {@code after}. Границы и {@code after} могут быть null.
+     */
+    List<Film> findByReleaseDate(final LocalDate from, final LocalDate to, final Film after,
+                                 final boolean descending, final int limit);
+
+    /**
+     * Возвращает фильм по идентификатору.
+     */
+    Optional<Film> findById(final Long filmId);
+
+    /**
+     * Возвращает количество фильмов.
+     */
+    long count();
+
     /**
      * Добавляет новый фильм в хранилище.
      */
     Film add(final Film film);
 
+    /**
+     * Добавляет фильмы одним пакетом, присваивая им id по порядку.
+     */
+    List<Film> addAll(final List<Film> films);
+
     /**
      * Обновляет существующий фильм в хранилище.
      */
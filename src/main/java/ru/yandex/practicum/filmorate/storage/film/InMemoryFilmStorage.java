@@ -1,21 +1,76 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
 import java.time.LocalDate;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти.
+ * <p>
+ * Фильмы хранятся в упорядоченной по id {@link ConcurrentSkipListMap},
+ * идентификаторы выдаются атомарным счётчиком, а обновление выполняется
+ * атомарно для записи с указанным id, поэтому параллельные запросы
+ * не теряют и не дублируют фильмы. Упорядоченность по id позволяет
+ * получать страницы по курсору без обхода всего хранилища.
+ * <p>
+ * Второй {@link ConcurrentSkipListMap}, упорядоченный по дате релиза и id,
+ * служит индексом для выборок по диапазону дат: страница из k фильмов
+ * находится за O(log n + k). Индекс меняется под той же блокировкой фильма;
+ * пока меняется дата релиза, фильм на мгновение пропадает из выборок по датам.
+ * <p>
+ * Каждое изменение записывается в {@link MutationLog}. Запись ставится
+ * в очередь журнала под блокировкой фильма сразу после изменения,
+ * а подтверждение ожидается после снятия блокировки. После ошибки записи
+ * журнала хранилище отказывает в изменениях, см. {@link MutationLog#checkWritable()}.
+ * <p>
+ * Используется, если не активен профиль {@code db}.
+ */
 @Component
+@Profile("!db")
 public class InMemoryFilmStorage implements FilmStorage {
-    /** Создание HashMap для сохранения информации о фильмах. */
-    private final Map<Long, Film> films = new HashMap<>();
+    /** Упорядоченная по id карта для сохранения информации о фильмах. */
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    /** Те же фильмы, упорядоченные по дате релиза и id. */
+    private final ConcurrentNavigableMap<ReleaseKey, Film> byReleaseDate = new ConcurrentSkipListMap<>();
+    /** Последний выданный идентификатор фильма. */
+    private final AtomicLong lastId = new AtomicLong();
+    /** Блокировки фильмов для согласованного порядка изменений и записей журнала. */
+    private final StripedLocks locks = new StripedLocks(256);
+    private final MutationLog mutationLog;
+
+    /**
+     * Создаёт хранилище без журнала изменений.
+     */
+    public InMemoryFilmStorage() {
+        this(MutationLog.NOOP);
+    }
+
+    /**
+     * Создаёт хранилище, записывающее изменения в журнал.
+     *
+     * @param mutationLog журнал изменений
+     */
+    @Autowired
+    public InMemoryFilmStorage(final MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     /**
      * Возвращает коллекцию всех фильмов.
@@ -30,7 +85,81 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.values();
     }
 
-    public Optional<Film> findById(Long filmId) {
+    /**
+     * Возвращает поток по всем фильмам; фильмы не копируются.
+     *
+     * @return фильмы, упорядоченные по id
+     */
+    @Override
+    public Stream<Film> streamAll() {
+        return films.values().stream();
+    }
+
+    /**
+     * Возвращает страницу фильмов, упорядоченных по id.
+     *
+     * @param after id последнего фильма предыдущей страницы;
+     *              если null, страница начинается с первого фильма
+     * @param limit максимальное количество фильмов на странице
+     * @return фильмы с id больше {@code after}
+     */
+    @Override
+    public List<Film> findPage(final Long after, final int limit) {
+        Map<Long, Film> tail = after == null ? films : films.tailMap(after, false);
+        return tail.values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Возвращает страницу фильмов из диапазона дат релиза по индексу дат.
+     *
+     * @param from       первая дата релиза; если null, без ограничения
+     * @param to         последняя дата релиза; если null, без ограничения
+     * @param after      последний фильм предыдущей страницы;
+     *                   если null, страница начинается с начала диапазона
+     * @param descending упорядочить от новых фильмов к старым
+     * @param limit      максимальное количество фильмов на странице
+     * @return фильмы, упорядоченные по дате релиза и id
+     */
+    @Override
+    public List<Film> findByReleaseDate(final LocalDate from, final LocalDate to, final Film after,
+                                        final boolean descending, final int limit) {
+        ReleaseKey lower = new ReleaseKey(from == null ? LocalDate.MIN : from, Long.MIN_VALUE);
+        ReleaseKey upper = new ReleaseKey(to == null ? LocalDate.MAX : to, Long.MAX_VALUE);
+        boolean lowerInclusive = true;
+        boolean upperInclusive = true;
+        if (after != null) {
+            ReleaseKey last = ReleaseKey.of(after);
+            if (descending && last.compareTo(upper) < 0) {
+                upper = last;
+                upperInclusive = false;
+            } else if (!descending && last.compareTo(lower) > 0) {
+                lower = last;
+                lowerInclusive = false;
+            }
+        }
+        if (lower.compareTo(upper) > 0) {
+            return List.of();
+        }
+
+        NavigableMap<ReleaseKey, Film> range = byReleaseDate.subMap(lower, lowerInclusive, upper, upperInclusive);
+        return (descending ? range.descendingMap() : range).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Количество фильмов. Обходит хранилище, поэтому предназначено
+     * для редких вызовов, например для метрик.
+     */
+    @Override
+    public long count() {
+        return films.size();
+    }
+
+    @Override
+    public Optional<Film> findById(final Long filmId) {
         return Optional.ofNullable(films.get(filmId));
     }
 
@@ -41,12 +170,29 @@ public class InMemoryFilmStorage implements FilmStorage {
      */
     @Override
     public Film add(final Film film) {
-        checkFilm(film);
         film.setId(getNextId());
-        films.put(film.getId(), film);
+        save(film).join();
         return film;
     }
 
+    /**
+     * Добавляет фильмы пакетом: диапазон id выделяется одной атомарной операцией.
+     *
+     * @param newFilms фильмы для добавления
+     * @return те же фильмы с присвоенными id
+     */
+    @Override
+    public List<Film> addAll(final List<Film> newFilms) {
+        long id = lastId.getAndAdd(newFilms.size());
+        CompletableFuture<Void> logged = MutationLog.DONE;
+        for (Film film : newFilms) {
+            film.setId(++id);
+            logged = save(film);
+        }
+        logged.join();
+        return newFilms;
+    }
+
     /**
      * Обновляет информацию о существующем фильме.
      *
@@ -55,19 +201,18 @@ public class InMemoryFilmStorage implements FilmStorage {
      */
     @Override
     public Film update(final Film newFilm) {
-        if (newFilm.getId() == null) {
-            throw new ConditionsNotMetException("Не указан id фильма");
-        }
-
-        checkFilm(newFilm);
-
-        if (films.containsKey(newFilm.getId())) {
+        CompletableFuture<Void> logged = locks.withLock(newFilm.getId(), () -> {
+            mutationLog.checkWritable();
             Film oldFilm = films.get(newFilm.getId());
-            oldFilm.setName(newFilm.getName());
-            oldFilm.setDescription(newFilm.getDescription());
-            oldFilm.setReleaseDate(newFilm.getReleaseDate());
-            oldFilm.setDuration(newFilm.getDuration());
-            return oldFilm;
+            if (oldFilm == null) {
+                return null;
+            }
+            overwrite(oldFilm, newFilm);
+            return mutationLog.append(WalRecord.FilmSaved.of(oldFilm));
+        });
+        if (logged != null) {
+            logged.join();
+            return films.get(newFilm.getId());
         }
         throw new NotFoundException(
                 String.format("Фильм с id = %d не найден", newFilm.getId())
@@ -75,15 +220,50 @@ public class InMemoryFilmStorage implements FilmStorage {
     }
 
     /**
-     * Проверяет корректность данных фильма, в частности, дату релиза.
-     * <p>
-     * Если дата релиза фильма раньше 28 декабря 1895 года,
-     * выбрасывает ValidationException с соответствующим сообщением.
+     * Восстанавливает фильм из журнала: сохраняет его с прежним id
+     * и сдвигает счётчик id, чтобы новые фильмы не получили занятый id.
+     *
+     * @param film фильм с id
      */
-    public void checkFilm(final Film film) {
-        LocalDate birthdayFilm = LocalDate.of(1895, 12, 28);
-        if (film.getReleaseDate().isBefore(birthdayFilm)) {
-            throw new ValidationException("Дата релиза должна быть не раньше 28 декабря 1895 года");
+    public void restore(final Film film) {
+        Film oldFilm = films.get(film.getId());
+        if (oldFilm == null) {
+            films.put(film.getId(), film);
+            byReleaseDate.put(ReleaseKey.of(film), film);
+        } else {
+            overwrite(oldFilm, film);
+        }
+        lastId.accumulateAndGet(film.getId(), Math::max);
+    }
+
+    /**
+     * Сохраняет новый фильм и ставит его в очередь журнала.
+     *
+     * @return подтверждение записи в журнал
+     */
+    private CompletableFuture<Void> save(final Film film) {
+        return locks.withLock(film.getId(), () -> {
+            mutationLog.checkWritable();
+            films.put(film.getId(), film);
+            byReleaseDate.put(ReleaseKey.of(film), film);
+            return mutationLog.append(WalRecord.FilmSaved.of(film));
+        });
+    }
+
+    /**
+     * Переписывает поля фильма и, если изменилась дата релиза, переносит его в индексе дат.
+     */
+    private void overwrite(final Film film, final Film newFilm) {
+        boolean moved = !film.getReleaseDate().equals(newFilm.getReleaseDate());
+        if (moved) {
+            byReleaseDate.remove(ReleaseKey.of(film));
+        }
+        film.setName(newFilm.getName());
+        film.setDescription(newFilm.getDescription());
+        film.setReleaseDate(newFilm.getReleaseDate());
+        film.setDuration(newFilm.getDuration());
+        if (moved) {
+            byReleaseDate.put(ReleaseKey.of(film), film);
         }
     }
 
@@ -93,11 +273,21 @@ public class InMemoryFilmStorage implements FilmStorage {
      * @return следующий id
      */
     private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Ключ индекса дат: дата релиза, при совпадении дат — id.
+     */
+    private record ReleaseKey(LocalDate date, long id) implements Comparable<ReleaseKey> {
+        static ReleaseKey of(final Film film) {
+            return new ReleaseKey(film.getReleaseDate(), film.getId());
+        }
+
+        @Override
+        public int compareTo(final ReleaseKey other) {
+            int byDate = date.compareTo(other.date);
+            return byDate != 0 ? byDate : Long.compare(id, other.id);
+        }
     }
 }
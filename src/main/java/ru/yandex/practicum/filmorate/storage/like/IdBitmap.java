@@ -0,0 +1,307 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Сжатое множество идентификаторов на примитивах (в духе Roaring Bitmap).
+ * <p>
+ * Идентификатор делится на старшую часть (ключ контейнера) и младшие 16 бит.
+ * Пока в контейнере не больше {@value #ARRAY_MAX} значений, младшие части
+ * хранятся отсортированным массивом {@code char[]} (2 байта на значение),
+ * после этого контейнер превращается в битовую карту на 65 536 бит (8 КБ).
+ * Плотные диапазоны идентификаторов, как у лайков популярного фильма,
+ * занимают порядка одного бита на значение вместо 50+ байт упакованного
+ * {@link Long} в {@link java.util.HashSet}.
+ * <p>
+ * Класс не потокобезопасен: доступ к экземпляру синхронизирует вызывающий код.
+ */
+public class IdBitmap {
+    /** Максимальное количество значений в контейнере-массиве. */
+    static final int ARRAY_MAX = 4096;
+
+    private long[] keys = new long[0];
+    private Container[] containers = new Container[0];
+    private int size;
+    private long cardinality;
+
+    /**
+     * Добавляет идентификатор.
+     *
+     * @param id идентификатор
+     * @return {@code true}, если идентификатора ещё не было в множестве
+     */
+    public boolean add(long id) {
+        long key = id >>> 16;
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container.add((char) id);
+        if (containers[i].cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Удаляет идентификатор.
+     *
+     * @param id идентификатор
+     * @return {@code true}, если идентификатор был в множестве
+     */
+    public boolean remove(long id) {
+        int i = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (i < 0) {
+            return false;
+        }
+
+        Container container = containers[i];
+        int before = container.cardinality();
+        Container updated = container.remove((char) id);
+        if (updated.cardinality() == before) {
+            return false;
+        }
+        cardinality--;
+        if (updated.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = updated;
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет наличие идентификатора.
+     *
+     * @param id идентификатор
+     * @return {@code true}, если идентификатор есть в множестве
+     */
+    public boolean contains(long id) {
+        int i = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    /**
+     * Возвращает количество идентификаторов в множестве.
+     */
+    public long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Проверяет, пусто ли множество.
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Обходит идентификаторы в порядке возрастания.
+     *
+     * @param action действие для каждого идентификатора
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы отсортированным массивом.
+     */
+    public long[] toArray() {
+        long[] result = new long[Math.toIntExact(cardinality)];
+        int[] position = {0};
+        forEach(id -> result[position[0]++] = id);
+        return result;
+    }
+
+    /**
+     * Оценивает объём памяти, занимаемый данными множества, в байтах.
+     */
+    public long sizeInBytes() {
+        long bytes = 8L * keys.length + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, long key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Контейнер младших 16 бит идентификаторов с общей старшей частью.
+     * Изменяющие операции возвращают контейнер, который нужно сохранить
+     * вместо текущего: при переполнении или опустошении меняется представление.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract void forEach(long high, LongConsumer action);
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * Разреженный контейнер: отсортированный массив значений.
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] values = new char[4];
+        private int cardinality;
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * values.length + 4;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Плотный контейнер: битовая карта на все 65 536 значений.
+     */
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | ((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * words.length + 4;
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            forEach(0, id -> array.add((char) id));
+            return array;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище лайков в памяти.
+ * <p>
+ * Лайки каждого фильма хранятся в сжатом множестве {@link IdBitmap},
+ * обращения к множеству одного фильма сериализуются блокировкой фильма
+ * из {@link StripedLocks}. Рейтинг популярности поддерживается
+ * {@link PopularityIndex}: новое количество лайков фильма передаётся ему
+ * под той же блокировкой, поэтому рейтинг не расходится с множествами
+ * лайков при встречных изменениях.
+ * <p>
+ * Изменения записываются в {@link MutationLog} под той же блокировкой,
+ * сразу после самого изменения. После ошибки записи журнала хранилище
+ * отказывает в изменениях, см. {@link MutationLog#checkWritable()}.
+ * <p>
+ * Блокировки фильмов — {@link java.util.concurrent.locks.ReentrantLock},
+ * а не монитор {@link ConcurrentHashMap#compute}: индекс популярности
+ * и очередь журнала сами ждут блокировок, и виртуальный поток, ожидающий
+ * их внутри монитора, занимал бы поток-носитель.
+ * <p>
+ * Используется, если не активен профиль {@code db}.
+ */
+@Component
+@Profile("!db")
+public class InMemoryLikeStorage implements LikeStorage {
+    /** Лайки по идентификатору фильма. */
+    private final Map<Long, IdBitmap> likesByFilm = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks(256);
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+    private final FilmStorage filmStorage;
+    private final MutationLog mutationLog;
+
+    /**
+     * Создаёт хранилище без журнала изменений.
+     *
+     * @param filmStorage хранилище фильмов для выдачи популярных фильмов
+     */
+    public InMemoryLikeStorage(FilmStorage filmStorage) {
+        this(filmStorage, MutationLog.NOOP);
+    }
+
+    /**
+     * Создаёт хранилище, записывающее изменения в журнал.
+     *
+     * @param filmStorage хранилище фильмов для выдачи популярных фильмов
+     * @param mutationLog журнал изменений
+     */
+    @Autowired
+    public InMemoryLikeStorage(FilmStorage filmStorage, MutationLog mutationLog) {
+        this.filmStorage = filmStorage;
+        this.mutationLog = mutationLog;
+    }
+
+    @Override
+    public boolean add(long filmId, long userId) {
+        CompletableFuture<Void> logged = locks.withLock(filmId, () -> {
+            mutationLog.checkWritable();
+            IdBitmap likes = likesByFilm.computeIfAbsent(filmId, id -> new IdBitmap());
+            if (!likes.add(userId)) {
+                return null;
+            }
+            popularityIndex.set(filmId, cardinality(likes));
+            return mutationLog.append(new WalRecord.LikeChanged(filmId, userId, true));
+        });
+
+        if (logged == null) {
+            return false;
+        }
+        logged.join();
+        return true;
+    }
+
+    @Override
+    public boolean remove(long filmId, long userId) {
+        CompletableFuture<Void> logged = locks.withLock(filmId, () -> {
+            mutationLog.checkWritable();
+            IdBitmap likes = likesByFilm.get(filmId);
+            if (likes == null || !likes.remove(userId)) {
+                return null;
+            }
+            popularityIndex.set(filmId, cardinality(likes));
+            if (likes.isEmpty()) {
+                likesByFilm.remove(filmId);
+            }
+            return mutationLog.append(new WalRecord.LikeChanged(filmId, userId, false));
+        });
+
+        if (logged == null) {
+            return false;
+        }
+        logged.join();
+        return true;
+    }
+
+    /**
+     * Применяет операции пакета, сгруппировав их по фильму: лайки каждого
+     * фильма меняются за один захват его блокировки, и под ней же один раз
+     * обновляется его рейтинг популярности.
+     */
+    @Override
+    public boolean[] applyBatch(List<LikeOperation> operations) {
+        Map<Long, List<Integer>> positionsByFilm = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            positionsByFilm.computeIfAbsent(operations.get(i).filmId(), id -> new ArrayList<>()).add(i);
+        }
+
+        boolean[] changed = new boolean[operations.size()];
+        List<CompletableFuture<Void>> logged = new ArrayList<>();
+        positionsByFilm.forEach((filmId, positions) -> locks.withLock(filmId, () -> {
+            mutationLog.checkWritable();
+            IdBitmap likes = likesByFilm.computeIfAbsent(filmId, id -> new IdBitmap());
+            for (int i : positions) {
+                LikeOperation operation = operations.get(i);
+                boolean like = operation.action() == LikeOperation.Action.LIKE;
+                changed[i] = like ? likes.add(operation.userId()) : likes.remove(operation.userId());
+                if (changed[i]) {
+                    logged.add(mutationLog.append(new WalRecord.LikeChanged(filmId, operation.userId(), like)));
+                }
+            }
+            popularityIndex.set(filmId, cardinality(likes));
+            if (likes.isEmpty()) {
+                likesByFilm.remove(filmId);
+            }
+            return null;
+        }));
+
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+        return changed;
+    }
+
+    /**
+     * Возвращает идентификаторы фильмов, у которых есть лайки.
+     *
+     * @return неизменяемое представление, отражающее последующие изменения
+     */
+    @Override
+    public Set<Long> likedFilmIds() {
+        return Collections.unmodifiableSet(likesByFilm.keySet());
+    }
+
+    /**
+     * Возвращает id пользователей, поставивших лайк фильму.
+     * Копия снимается под блокировкой фильма.
+     *
+     * @param filmId идентификатор фильма
+     * @return отсортированные id; пустой массив, если лайков нет
+     */
+    @Override
+    public long[] likedUserIds(long filmId) {
+        return locks.withLock(filmId, () -> {
+            IdBitmap likes = likesByFilm.get(filmId);
+            return likes == null ? new long[0] : likes.toArray();
+        });
+    }
+
+    /**
+     * Восстанавливает лайки фильма из снимка без записи в журнал.
+     *
+     * @param filmId  идентификатор фильма
+     * @param userIds id пользователей, поставивших лайк
+     */
+    public void restore(long filmId, long[] userIds) {
+        locks.withLock(filmId, () -> {
+            IdBitmap likes = likesByFilm.computeIfAbsent(filmId, id -> new IdBitmap());
+            for (long userId : userIds) {
+                likes.add(userId);
+            }
+            popularityIndex.set(filmId, cardinality(likes));
+            if (likes.isEmpty()) {
+                likesByFilm.remove(filmId);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean contains(long filmId, long userId) {
+        return locks.withLock(filmId, () -> {
+            IdBitmap likes = likesByFilm.get(filmId);
+            return likes != null && likes.contains(userId);
+        });
+    }
+
+    @Override
+    public long count(long filmId) {
+        return popularityIndex.likes(filmId);
+    }
+
+    /**
+     * Суммирует количество лайков всех фильмов по индексу популярности: обход занимает
+     * время, пропорциональное количеству фильмов с лайками.
+     */
+    @Override
+    public long countAll() {
+        long count = 0;
+        for (long filmId : likesByFilm.keySet()) {
+            count += popularityIndex.likes(filmId);
+        }
+        return count;
+    }
+
+    private static int cardinality(IdBitmap likes) {
+        return Math.toIntExact(likes.cardinality());
+    }
+
+    @Override
+    public List<Film> findPopularFilms(int limit) {
+        return popularityIndex.top(limit).stream()
+                .map(filmStorage::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
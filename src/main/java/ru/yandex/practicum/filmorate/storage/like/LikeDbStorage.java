@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.film.FilmRowMapper;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Хранилище лайков в базе данных.
+ * <p>
+ * Популярные фильмы выбираются одним запросом: лайки группируются
+ * по фильму и соединяются с таблицей {@code films}. Пакет операций
+ * отправляется пачками JDBC в одной транзакции.
+ * <p>
+ * Используется при активном профиле {@code db}.
+ */
+@Component
+@Profile("db")
+@RequiredArgsConstructor
+public class LikeDbStorage implements LikeStorage {
+    private static final FilmRowMapper FILM_ROW_MAPPER = new FilmRowMapper();
+    /** Вставка лайка, если его ещё нет: возвращает 0 для существующего лайка. */
+    private static final String MERGE_LIKE = "MERGE INTO likes AS l "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s (film_id, user_id) ON l.film_id = s.film_id AND l.user_id = s.user_id "
+            + "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean add(long filmId, long userId) {
+        try {
+            jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean remove(long filmId, long userId) {
+        return jdbcTemplate.update(DELETE_LIKE, filmId, userId) > 0;
+    }
+
+    /**
+     * Применяет операции пачками: подряд идущие операции с одним действием
+     * отправляются одним {@link JdbcTemplate#batchUpdate}, что сохраняет
+     * порядок операций.
+     */
+    @Override
+    @Transactional
+    public boolean[] applyBatch(List<LikeOperation> operations) {
+        boolean[] changed = new boolean[operations.size()];
+        int from = 0;
+        while (from < operations.size()) {
+            LikeOperation.Action action = operations.get(from).action();
+            int to = from;
+            while (to < operations.size() && operations.get(to).action() == action) {
+                to++;
+            }
+
+            List<Object[]> args = operations.subList(from, to).stream()
+                    .map(operation -> new Object[]{operation.filmId(), operation.userId()})
+                    .toList();
+            String sql = action == LikeOperation.Action.LIKE ? MERGE_LIKE : DELETE_LIKE;
+            int[] counts = jdbcTemplate.batchUpdate(sql, args);
+            for (int i = 0; i < counts.length; i++) {
+                changed[from + i] = counts[i] > 0;
+            }
+            from = to;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(long filmId, long userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)",
+                Boolean.class, filmId, userId));
+    }
+
+    @Override
+    public long count(long filmId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM likes WHERE film_id = ?", Long.class, filmId);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long countAll() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Set<Long> likedFilmIds() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT DISTINCT film_id FROM likes", Long.class));
+    }
+
+    @Override
+    public long[] likedUserIds(long filmId) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM likes WHERE film_id = ? ORDER BY user_id",
+                Long.class, filmId).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public List<Film> findPopularFilms(int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + FilmRowMapper.COLUMNS + " FROM films AS f "
+                        + "JOIN (SELECT film_id, COUNT(*) AS likes FROM likes GROUP BY film_id) AS l "
+                        + "ON l.film_id = f.film_id "
+                        + "ORDER BY l.likes DESC, f.film_id LIMIT ?",
+                FILM_ROW_MAPPER, limit);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Интерфейс для хранения лайков фильмов.
+ * <p>
+ * Помимо самих лайков хранилище отвечает за рейтинг популярности фильмов.
+ */
+public interface LikeStorage {
+
+    /**
+     * Добавляет лайк пользователя фильму.
+     *
+     * @return {@code true}, если лайка ещё не было
+     */
+    boolean add(long filmId, long userId);
+
+    /**
+     * Удаляет лайк пользователя с фильма.
+     *
+     * @return {@code true}, если лайк был удалён
+     */
+    boolean remove(long filmId, long userId);
+
+    /**
+     * Применяет операции с лайками в порядке их следования.
+     * Рейтинг популярности обновляется один раз на весь пакет.
+     *
+     * @param operations полностью заданные операции
+     * @return для каждой операции — {@code true}, если она изменила лайки
+     */
+    boolean[] applyBatch(List<LikeOperation> operations);
+
+    /**
+     * Проверяет, поставил ли пользователь лайк фильму.
+     */
+    boolean contains(long filmId, long userId);
+
+    /**
+     * Возвращает количество лайков фильма.
+     */
+    long count(long filmId);
+
+    /**
+     * Возвращает общее количество лайков всех фильмов.
+     */
+    long countAll();
+
+    /**
+     * Возвращает идентификаторы фильмов, у которых есть лайки.
+     */
+    Set<Long> likedFilmIds();
+
+    /**
+     * Возвращает id пользователей, поставивших лайк фильму.
+     *
+     * @param filmId идентификатор фильма
+     * @return отсортированные id; пустой массив, если лайков нет
+     */
+    long[] likedUserIds(long filmId);
+
+    /**
+     * Возвращает самые популярные фильмы,
+     * при равном количестве лайков — по возрастанию идентификатора.
+     */
+    List<Film> findPopularFilms(int limit);
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс популярности фильмов по количеству лайков.
+ * <p>
+ * Фильмы разложены по корзинам «количество лайков → идентификаторы фильмов».
+ * Корзины упорядочены по убыванию количества лайков, фильмы внутри корзины —
+ * по возрастанию идентификатора. Индекс обновляется при каждом лайке и
+ * дизлайке, поэтому выборка первых N фильмов не требует сортировки всех
+ * фильмов и занимает O(N) плюс число просмотренных корзин.
+ * <p>
+ * Индексу сообщается текущее количество лайков фильма, а не изменение:
+ * владелец вызывает {@link #set} под той же блокировкой фильма, под которой
+ * меняет его лайки, поэтому значение в индексе всегда совпадает с последним
+ * состоянием лайков, в каком бы порядке ни шли изменения разных потоков.
+ * <p>
+ * Фильмы без лайков в индексе не хранятся.
+ */
+public class PopularityIndex {
+    /** Количество лайков по идентификатору фильма. */
+    private final Map<Long, Integer> likesByFilm = new HashMap<>();
+    /** Корзины фильмов по количеству лайков, от большего к меньшему. */
+    private final NavigableMap<Integer, NavigableSet<Long>> filmsByLikes =
+            new TreeMap<>(Comparator.reverseOrder());
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Запоминает количество лайков фильма.
+     * <p>
+     * Если лайков не осталось, фильм удаляется из индекса.
+     *
+     * @param filmId идентификатор фильма
+     * @param likes  текущее количество лайков
+     */
+    public void set(long filmId, int likes) {
+        lock.writeLock().lock();
+        try {
+            int current = likesByFilm.getOrDefault(filmId, 0);
+            if (current != likes) {
+                move(filmId, current, likes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество лайков фильма.
+     *
+     * @param filmId идентификатор фильма
+     * @return количество лайков; 0, если фильма нет в индексе
+     */
+    public int likes(long filmId) {
+        lock.readLock().lock();
+        try {
+            return likesByFilm.getOrDefault(filmId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы самых популярных фильмов.
+     * <p>
+     * При равном количестве лайков первым идёт фильм с меньшим идентификатором.
+     *
+     * @param limit максимальное количество фильмов
+     * @return идентификаторы фильмов по убыванию популярности
+     */
+    public List<Long> top(int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>(Math.min(limit, likesByFilm.size()));
+            for (NavigableSet<Long> films : filmsByLikes.values()) {
+                for (Long filmId : films) {
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                    result.add(filmId);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Переносит фильм из корзины {@code from} в корзину {@code to}.
+     * Вызывается под блокировкой на запись.
+     */
+    private void move(long filmId, int from, int to) {
+        if (from > 0) {
+            NavigableSet<Long> films = filmsByLikes.get(from);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                filmsByLikes.remove(from);
+            }
+        }
+
+        if (to > 0) {
+            likesByFilm.put(filmId, to);
+            filmsByLikes.computeIfAbsent(to, k -> new TreeSet<>()).add(filmId);
+        } else {
+            likesByFilm.remove(filmId);
+        }
+    }
+}
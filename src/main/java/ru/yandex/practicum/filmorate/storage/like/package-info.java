@@ -0,0 +1,4 @@
+/**
+ * Пакет содержит интерфейс и реализации для хранения лайков фильмов.
+ */
+package ru.yandex.practicum.filmorate.storage.like;
@@ -1,20 +1,85 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.RequestBody;
 import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.util.SortedIdSet;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище пользователей в памяти.
+ * <p>
+ * Пользователи упорядочены по id, что позволяет получать страницы
+ * по курсору без обхода всего хранилища.
+ * <p>
+ * Нормализованные электронная почта и логин индексируются в
+ * {@link ConcurrentHashMap}: поиск по ним не зависит от количества
+ * пользователей, а занимаются они через {@code putIfAbsent}, поэтому
+ * из двух одновременных запросов с одинаковой почтой успешен только один.
+ * Занятые при добавлении ключи освобождаются, если второй ключ оказался занят.
+ * <p>
+ * Друзья пользователя хранятся в его отсортированном множестве
+ * {@link User#getFriends()}. Атомарность изменения дружбы с обеих сторон
+ * обеспечивает вызывающий сервис.
+ * <p>
+ * Каждое изменение записывается в {@link MutationLog}; запись ставится
+ * в очередь журнала в том же критическом разделе сразу после изменения.
+ * После ошибки записи журнала хранилище отказывает в изменениях,
+ * см. {@link MutationLog#checkWritable()}.
+ * <p>
+ * Используется, если не активен профиль {@code db}.
+ */
 @Component
+@Profile("!db")
 public class InMemoryUserStorage implements UserStorage {
 
-    /** Создание HashMap для сохранения информации о пользователях. */
-    private final Map<Long, User> users = new HashMap<>();
+    /** Упорядоченная по id карта для сохранения информации о пользователях. */
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    /** Пользователи по нормализованной электронной почте. */
+    private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+    /** Пользователи по нормализованному логину. */
+    private final Map<String, User> byLogin = new ConcurrentHashMap<>();
+    /** Последний выданный идентификатор пользователя. */
+    private final AtomicLong lastId = new AtomicLong();
+    /** Блокировки пользователей для согласованного порядка изменений и записей журнала. */
+    private final StripedLocks locks = new StripedLocks(256);
+    private final MutationLog mutationLog;
+
+    /**
+     * Создаёт хранилище без журнала изменений.
+     */
+    public InMemoryUserStorage() {
+        this(MutationLog.NOOP);
+    }
+
+    /**
+     * Создаёт хранилище, записывающее изменения в журнал.
+     *
+     * @param mutationLog журнал изменений
+     */
+    @Autowired
+    public InMemoryUserStorage(final MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     /**
      * Получение всех пользователей.
@@ -26,12 +91,74 @@ public class InMemoryUserStorage implements UserStorage {
         return users.values();
     }
 
-    public User findById(Long userId) {
-        if (!users.containsKey(userId)) {
+    /**
+     * Возвращает поток по всем пользователям; пользователи не копируются.
+     *
+     * @return пользователи, упорядоченные по id
+     */
+    @Override
+    public Stream<User> streamAll() {
+        return users.values().stream();
+    }
+
+    /**
+     * Получение страницы пользователей, упорядоченных по id.
+     *
+     * @param after id последнего пользователя предыдущей страницы;
+     *              если null, страница начинается с первого пользователя
+     * @param limit максимальное количество пользователей на странице
+     * @return пользователи с id больше {@code after}
+     */
+    @Override
+    public List<User> findPage(final Long after, final int limit) {
+        Map<Long, User> tail = after == null ? users : users.tailMap(after, false);
+        return tail.values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public User findById(final Long userId) {
+        User user = users.get(userId);
+        if (user == null) {
             throw new NotFoundException(String.format("Пользователь id = %d не найден", userId));
         }
 
-        return users.get(userId);
+        return user;
+    }
+
+    @Override
+    public Optional<User> findByEmail(final String email) {
+        return Optional.ofNullable(byEmail.get(UserKeys.normalize(email)));
+    }
+
+    @Override
+    public Optional<User> findByLogin(final String login) {
+        return Optional.ofNullable(byLogin.get(UserKeys.normalize(login)));
+    }
+
+    /**
+     * Количество пользователей. Обходит хранилище, поэтому предназначено
+     * для редких вызовов, например для метрик.
+     */
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    /**
+     * Количество дружб: сумма размеров множеств друзей, делённая пополам.
+     * Обходит всех пользователей.
+     */
+    @Override
+    public long countFriendships() {
+        long count = 0;
+        for (User user : users.values()) {
+            if (user.getFriends() != null) {
+                count += user.getFriends().size();
+            }
+        }
+        return count / 2;
     }
 
     /**
@@ -42,12 +169,59 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public User add(final User user) {
-        checkName(user);
+        if (user.getFriends() == null) {
+            user.setFriends(new SortedIdSet());
+        }
         user.setId(getNextId());
-        users.put(user.getId(), user);
+        reserve(user, user.getEmail(), user.getLogin());
+        try {
+            save(user).join();
+        } catch (RuntimeException e) {
+            // Новый пользователь ещё не виден в журнале, поэтому его, в отличие от других изменений,
+            // можно откатить точно: почта и логин снова свободны
+            locks.withLock(user.getId(), () -> users.remove(user.getId(), user));
+            release(user);
+            throw e;
+        }
         return user;
     }
 
+    /**
+     * Добавление пользователей пакетом: диапазон id выделяется одной атомарной операцией.
+     * Почта и логин занимаются для всех пользователей до сохранения первого из них,
+     * а при конфликте освобождаются.
+     *
+     * @param newUsers пользователи для добавления
+     * @return те же пользователи с присвоенными id
+     */
+    @Override
+    public List<User> addAll(final List<User> newUsers) {
+        mutationLog.checkWritable();
+        long id = lastId.getAndAdd(newUsers.size());
+        for (User user : newUsers) {
+            user.setId(++id);
+        }
+        for (int i = 0; i < newUsers.size(); i++) {
+            User user = newUsers.get(i);
+            try {
+                reserve(user, user.getEmail(), user.getLogin());
+            } catch (ConditionsNotMetException e) {
+                newUsers.subList(0, i).forEach(this::release);
+                throw e;
+            }
+        }
+
+        CompletableFuture<Void> logged = MutationLog.DONE;
+        for (User user : newUsers) {
+            if (user.getFriends() == null) {
+                user.setFriends(new SortedIdSet());
+            }
+            logged = save(user);
+        }
+        logged.join();
+        return newUsers;
+    }
+
     /**
      * Обновление существующего пользователя.
      *
@@ -56,19 +230,25 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public User update(final User newUser) {
-        if (newUser.getId() == null) {
-            throw new ConditionsNotMetException("Не указан id пользователя");
-        }
-
-        checkName(newUser);
-
-        if (users.containsKey(newUser.getId())) {
+        CompletableFuture<Void> logged = locks.withLock(newUser.getId(), () -> {
+            mutationLog.checkWritable();
             User oldUser = users.get(newUser.getId());
+            if (oldUser == null) {
+                return null;
+            }
+            String oldEmail = oldUser.getEmail();
+            String oldLogin = oldUser.getLogin();
+            reserve(oldUser, newUser.getEmail(), newUser.getLogin());
             oldUser.setEmail(newUser.getEmail());
             oldUser.setLogin(newUser.getLogin());
             oldUser.setName(newUser.getName());
             oldUser.setBirthday(newUser.getBirthday());
-            return oldUser;
+            releaseReplaced(oldUser, oldEmail, oldLogin);
+            return mutationLog.append(WalRecord.UserSaved.of(oldUser));
+        });
+        if (logged != null) {
+            logged.join();
+            return users.get(newUser.getId());
         }
         throw new NotFoundException(
                 String.format("Пользователь id=%d не найден", newUser.getId())
@@ -76,14 +256,241 @@ public class InMemoryUserStorage implements UserStorage {
     }
 
     /**
-     * Проверка и установка имени пользователя, если оно отсутствует.
+     * Восстанавливает пользователя из журнала: сохраняет его с прежним id,
+     * не трогая уже восстановленных друзей, и сдвигает счётчик id.
+     *
+     * @param user пользователь с id
+     */
+    public void restore(final User user) {
+        User oldUser = users.get(user.getId());
+        if (oldUser == null) {
+            users.put(user.getId(), user);
+            oldUser = user;
+        } else {
+            release(oldUser);
+            oldUser.setEmail(user.getEmail());
+            oldUser.setLogin(user.getLogin());
+            oldUser.setName(user.getName());
+            oldUser.setBirthday(user.getBirthday());
+        }
+        byEmail.put(UserKeys.normalize(oldUser.getEmail()), oldUser);
+        byLogin.put(UserKeys.normalize(oldUser.getLogin()), oldUser);
+        lastId.accumulateAndGet(user.getId(), Math::max);
+    }
+
+    /**
+     * Восстанавливает изменение дружбы из журнала, не записывая его повторно.
+     * <p>
+     * В отличие от {@link #deleteFriend}, обе стороны меняются безусловно:
+     * снимок, записанный во время изменений, может содержать дружбу только
+     * у одного из пользователей, и удаление не должно зависеть от того,
+     * у какого из них она сохранилась.
+     *
+     * @param userId   id пользователя
+     * @param friendId id друга
+     * @param added    {@code true}, если дружба добавлена, {@code false} — если удалена
+     */
+    public void restoreFriendship(final long userId, final long friendId, final boolean added) {
+        User user = findById(userId);
+        User friend = findById(friendId);
+        if (added) {
+            user.addFriend(friendId);
+            friend.addFriend(userId);
+        } else {
+            removeFriend(user, friendId);
+            removeFriend(friend, userId);
+        }
+    }
+
+    private static void removeFriend(final User user, final long friendId) {
+        if (user.getFriends() != null) {
+            user.getFriends().remove(friendId);
+        }
+    }
+
+    /**
+     * Связывает двух пользователей дружбой.
+     *
+     * @param userId   id пользователя
+     * @param friendId id друга
+     * @return запись изменения в журнал
+     */
+    @Override
+    public CompletableFuture<Void> addFriend(final long userId, final long friendId) {
+        mutationLog.checkWritable();
+        User user = findById(userId);
+        User friend = findById(friendId);
+        user.addFriend(friendId);
+        friend.addFriend(userId);
+        return mutationLog.append(new WalRecord.FriendshipChanged(userId, friendId, true));
+    }
+
+    /**
+     * Загружает дружбы пар пользователей пакетом до запуска веб-сервера.
+     * <p>
+     * Новые друзья группируются по пользователям, и множество друзей
+     * каждого пользователя копируется один раз на пакет, а не на каждую
+     * дружбу: это важно для пользователей с очень большим числом друзей.
+     * <p>
+     * Записи журнала ставятся в очередь после применения всего пакета,
+     * вне критического раздела. Это допустимо только потому, что встречных
+     * изменений при начальной загрузке нет, а добавления дружбы при
+     * воспроизведении не зависят от порядка.
+     *
+     * @param userIds   id пользователей
+     * @param friendIds id друзей в том же порядке
+     */
+    @Override
+    public void loadFriendships(final long[] userIds, final long[] friendIds) {
+        mutationLog.checkWritable();
+        Map<Long, LongStream.Builder> added = new HashMap<>();
+        for (int i = 0; i < userIds.length; i++) {
+            added.computeIfAbsent(userIds[i], id -> LongStream.builder()).add(friendIds[i]);
+            added.computeIfAbsent(friendIds[i], id -> LongStream.builder()).add(userIds[i]);
+        }
+        List<User> found = added.keySet().stream().map(this::findById).toList();
+
+        for (User user : found) {
+            if (user.getFriends() == null) {
+                user.setFriends(new SortedIdSet());
+            }
+            user.getFriends().addAll(added.get(user.getId()).build().toArray());
+        }
+        CompletableFuture<Void> logged = MutationLog.DONE;
+        for (int i = 0; i < userIds.length; i++) {
+            logged = mutationLog.append(new WalRecord.FriendshipChanged(userIds[i], friendIds[i], true));
+        }
+        logged.join();
+    }
+
+    /**
+     * Удаляет дружбу двух пользователей.
      *
-     * @param user пользователь для проверки
+     * @param userId   id пользователя
+     * @param friendId id друга
+     * @return {@code true}, если пользователи были друзьями
      */
-    public void checkName(@RequestBody final User user) {
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
+    @Override
+    public CompletableFuture<Boolean> deleteFriend(final long userId, final long friendId) {
+        mutationLog.checkWritable();
+        SortedIdSet friendsOfUser = findById(userId).getFriends();
+        if (friendsOfUser == null || !friendsOfUser.contains(friendId)) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        friendsOfUser.remove(friendId);
+        SortedIdSet friendsOfFriend = findById(friendId).getFriends();
+        if (friendsOfFriend != null) {
+            friendsOfFriend.remove(userId);
         }
+        return mutationLog.append(new WalRecord.FriendshipChanged(userId, friendId, false))
+                .thenApply(logged -> true);
+    }
+
+    /**
+     * Получение друзей пользователя.
+     *
+     * @param userId id пользователя
+     * @return друзья, упорядоченные по id
+     */
+    @Override
+    public List<User> findFriends(final long userId) {
+        return toUsers(friendIds(findById(userId)));
+    }
+
+    /**
+     * Получение идентификаторов друзей пользователя без копирования.
+     *
+     * @param userId id пользователя
+     * @return снимок id друзей по возрастанию
+     */
+    @Override
+    public long[] findFriendIds(final long userId) {
+        return friendIds(findById(userId));
+    }
+
+    /**
+     * Получение общих друзей двух пользователей.
+     * <p>
+     * Отсортированные множества id друзей пересекаются за линейное время,
+     * пользователи загружаются только для общих друзей.
+     *
+     * @param userId  id первого пользователя
+     * @param otherId id второго пользователя
+     * @return общие друзья, упорядоченные по id
+     */
+    @Override
+    public List<User> findCommonFriends(final long userId, final long otherId) {
+        return toUsers(SortedIdSet.intersect(friendIds(findById(userId)), friendIds(findById(otherId))));
+    }
+
+    private static long[] friendIds(final User user) {
+        return user.getFriends() == null ? new long[0] : user.getFriends().snapshot();
+    }
+
+    private List<User> toUsers(final long[] ids) {
+        return Arrays.stream(ids)
+                .mapToObj(this::findById)
+                .toList();
+    }
+
+    /**
+     * Закрепляет за пользователем почту и логин. Ключи, уже закреплённые
+     * за ним же, не меняются; если хотя бы один ключ занят другим
+     * пользователем, ничего не закрепляется.
+     *
+     * @throws ConditionsNotMetException если почта или логин заняты
+     */
+    private void reserve(final User user, final String email, final String login) {
+        String emailKey = UserKeys.normalize(email);
+        User owner = byEmail.putIfAbsent(emailKey, user);
+        if (owner != null && owner != user) {
+            throw new ConditionsNotMetException(String.format("Электронная почта %s уже используется", email));
+        }
+
+        boolean emailReserved = owner == null;
+        owner = byLogin.putIfAbsent(UserKeys.normalize(login), user);
+        if (owner != null && owner != user) {
+            if (emailReserved) {
+                byEmail.remove(emailKey, user);
+            }
+            throw new ConditionsNotMetException(String.format("Логин %s уже занят", login));
+        }
+    }
+
+    /**
+     * Освобождает почту и логин пользователя.
+     */
+    private void release(final User user) {
+        byEmail.remove(UserKeys.normalize(user.getEmail()), user);
+        byLogin.remove(UserKeys.normalize(user.getLogin()), user);
+    }
+
+    /**
+     * Освобождает прежние почту и логин пользователя, если они сменились.
+     */
+    private void releaseReplaced(final User user, final String oldEmail, final String oldLogin) {
+        String oldEmailKey = UserKeys.normalize(oldEmail);
+        if (!oldEmailKey.equals(UserKeys.normalize(user.getEmail()))) {
+            byEmail.remove(oldEmailKey, user);
+        }
+        String oldLoginKey = UserKeys.normalize(oldLogin);
+        if (!oldLoginKey.equals(UserKeys.normalize(user.getLogin()))) {
+            byLogin.remove(oldLoginKey, user);
+        }
+    }
+
+    /**
+     * Сохраняет нового пользователя и ставит его в очередь журнала.
+     *
+     * @return подтверждение записи в журнал
+     */
+    private CompletableFuture<Void> save(final User user) {
+        return locks.withLock(user.getId(), () -> {
+            mutationLog.checkWritable();
+            users.put(user.getId(), user);
+            return mutationLog.append(WalRecord.UserSaved.of(user));
+        });
     }
 
     /**
@@ -92,11 +499,6 @@ public class InMemoryUserStorage implements UserStorage {
      * @return следующий id
      */
     private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return lastId.incrementAndGet();
     }
 }
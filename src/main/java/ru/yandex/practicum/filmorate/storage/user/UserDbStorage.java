@@ -0,0 +1,458 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.SortedIdSet;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Хранилище пользователей в базе данных.
+ * <p>
+ * Дружба хранится в таблице {@code friendship} двумя строками — по одной
+ * на каждое направление, поэтому друзья пользователя читаются по первичному
+ * ключу, а общие друзья находятся одним соединением таблицы с собой.
+ * Обе строки дружбы пишутся одним оператором, что делает изменение
+ * атомарным без явной транзакции.
+ * <p>
+ * Уникальность почты и логина без учёта регистра обеспечивают уникальные
+ * индексы по вычисляемым столбцам {@code email_key} и {@code login_key};
+ * нарушение индекса превращается в {@link ConditionsNotMetException}.
+ * <p>
+ * Используется при активном профиле {@code db}.
+ */
+@Component
+@Profile("db")
+public class UserDbStorage implements UserStorage {
+    private static final String COLUMNS = "u.user_id, u.email, u.login, u.name, u.birthday";
+    /** Максимальное количество параметров в одном условии IN. */
+    private static final int IN_CHUNK = 1000;
+    /** Сколько строк драйвер читает за раз при потоковой выгрузке. */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+        Date birthday = rs.getDate("birthday");
+        return User.builder()
+                .id(rs.getLong("user_id"))
+                .email(rs.getString("email"))
+                .login(rs.getString("login"))
+                .name(rs.getString("name"))
+                .birthday(birthday == null ? null : birthday.toLocalDate())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final SimpleJdbcInsert userInsert;
+
+    /**
+     * Создаёт хранилище поверх переданного JdbcTemplate.
+     *
+     * @param jdbcTemplate шаблон для выполнения запросов
+     */
+    public UserDbStorage(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("user_id");
+    }
+
+    /**
+     * Получение всех пользователей вместе с их друзьями.
+     *
+     * @return коллекция всех пользователей
+     */
+    @Override
+    public Collection<User> findAll() {
+        List<User> users = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM users AS u ORDER BY u.user_id", USER_ROW_MAPPER);
+        Map<Long, List<Long>> friends = new HashMap<>();
+        jdbcTemplate.query("SELECT request_friend_id, response_friend_id FROM friendship",
+                rs -> {
+                    friends.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+                });
+        users.forEach(user -> user.setFriends(toSet(friends.get(user.getId()))));
+        return users;
+    }
+
+    /**
+     * Возвращает всех пользователей потоком строк результата, читая их порциями
+     * по {@value #EXPORT_FETCH_SIZE}. Друзья загружаются для каждых
+     * {@value #IN_CHUNK} прочитанных пользователей. Соединение занято до закрытия потока.
+     *
+     * @return пользователи с друзьями, упорядоченные по id
+     */
+    @Override
+    public Stream<User> streamAll() {
+        Stream<User> rows = exportTemplate.queryForStream(
+                "SELECT " + COLUMNS + " FROM users AS u ORDER BY u.user_id", USER_ROW_MAPPER);
+        Iterator<User> users = rows.iterator();
+        Iterator<List<User>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return users.hasNext();
+            }
+
+            @Override
+            public List<User> next() {
+                List<User> chunk = new ArrayList<>(IN_CHUNK);
+                while (chunk.size() < IN_CHUNK && users.hasNext()) {
+                    chunk.add(users.next());
+                }
+                return withFriends(chunk);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(rows::close);
+    }
+
+    /**
+     * Получение страницы пользователей, упорядоченных по id.
+     *
+     * @param after id последнего пользователя предыдущей страницы
+     * @param limit максимальное количество пользователей на странице
+     * @return пользователи с id больше {@code after}
+     */
+    @Override
+    public List<User> findPage(final Long after, final int limit) {
+        return withFriends(jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM users AS u WHERE u.user_id > ? ORDER BY u.user_id LIMIT ?",
+                USER_ROW_MAPPER, after == null ? 0 : after, limit));
+    }
+
+    @Override
+    public Optional<User> findByEmail(final String email) {
+        return findByKey("email_key", email);
+    }
+
+    @Override
+    public Optional<User> findByLogin(final String login) {
+        return findByKey("login_key", login);
+    }
+
+    private Optional<User> findByKey(final String column, final String value) {
+        List<User> users = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM users AS u WHERE u." + column + " = LOWER(TRIM(?))",
+                USER_ROW_MAPPER, value);
+        return users.isEmpty() ? Optional.empty() : Optional.of(withFriends(users).getFirst());
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Дружба хранится двумя строками, по одной на направление.
+     */
+    @Override
+    public long countFriendships() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendship", Long.class);
+        return count == null ? 0 : count / 2;
+    }
+
+    @Override
+    public User findById(final Long userId) {
+        List<User> users = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM users AS u WHERE u.user_id = ?", USER_ROW_MAPPER, userId);
+        if (users.isEmpty()) {
+            throw new NotFoundException(String.format("Пользователь id = %d не найден", userId));
+        }
+
+        return withFriends(users).getFirst();
+    }
+
+    /**
+     * Добавление нового пользователя. Друзья из запроса не сохраняются:
+     * дружба устанавливается отдельными вызовами.
+     *
+     * @param user пользователь для добавления
+     * @return добавленный пользователь с присвоенным id
+     */
+    @Override
+    public User add(final User user) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("email", user.getEmail());
+        values.put("login", user.getLogin());
+        values.put("name", user.getName());
+        values.put("birthday", user.getBirthday());
+        try {
+            user.setId(userInsert.executeAndReturnKey(values).longValue());
+        } catch (DuplicateKeyException e) {
+            throw duplicate(e, user);
+        }
+        user.setFriends(new SortedIdSet());
+        return user;
+    }
+
+    /**
+     * Добавление пользователей одной пачкой JDBC в одной транзакции.
+     *
+     * @param users пользователи для добавления
+     * @return те же пользователи с присвоенными id
+     */
+    @Override
+    @Transactional
+    public List<User> addAll(final List<User> users) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        try {
+            insertAll(users, keys);
+        } catch (DuplicateKeyException e) {
+            throw duplicate(e, null);
+        }
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) ids.get(i).get("USER_ID")).longValue());
+            users.get(i).setFriends(new SortedIdSet());
+        }
+        return users;
+    }
+
+    private void insertAll(final List<User> users, final KeyHolder keys) {
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getEmail());
+                        ps.setString(2, user.getLogin());
+                        ps.setString(3, user.getName());
+                        ps.setDate(4, user.getBirthday() == null ? null : Date.valueOf(user.getBirthday()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                },
+                keys);
+    }
+
+    /**
+     * Обновление существующего пользователя.
+     *
+     * @param newUser пользователь с обновленными данными
+     * @return обновленный пользователь
+     */
+    @Override
+    public User update(final User newUser) {
+        int updated;
+        try {
+            updated = jdbcTemplate.update(
+                    "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?",
+                    newUser.getEmail(), newUser.getLogin(), newUser.getName(), newUser.getBirthday(),
+                    newUser.getId());
+        } catch (DuplicateKeyException e) {
+            throw duplicate(e, newUser);
+        }
+        if (updated == 0) {
+            throw new NotFoundException(
+                    String.format("Пользователь id=%d не найден", newUser.getId())
+            );
+        }
+        return findById(newUser.getId());
+    }
+
+    /**
+     * Связывает двух пользователей дружбой: обе строки добавляются одним оператором.
+     *
+     * @param userId   id пользователя
+     * @param friendId id друга
+     */
+    @Override
+    public CompletableFuture<Void> addFriend(final long userId, final long friendId) {
+        jdbcTemplate.update(
+                "MERGE INTO friendship (request_friend_id, response_friend_id) "
+                        + "KEY (request_friend_id, response_friend_id) VALUES (?, ?), (?, ?)",
+                userId, friendId, friendId, userId);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Загружает дружбы пар пользователей одним пакетным запросом.
+     *
+     * @param userIds   id пользователей
+     * @param friendIds id друзей в том же порядке
+     */
+    @Override
+    @Transactional
+    public void loadFriendships(final long[] userIds, final long[] friendIds) {
+        jdbcTemplate.batchUpdate(
+                "MERGE INTO friendship (request_friend_id, response_friend_id) "
+                        + "KEY (request_friend_id, response_friend_id) VALUES (?, ?), (?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                        ps.setLong(1, userIds[i]);
+                        ps.setLong(2, friendIds[i]);
+                        ps.setLong(3, friendIds[i]);
+                        ps.setLong(4, userIds[i]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return userIds.length;
+                    }
+                });
+    }
+
+    /**
+     * Удаляет дружбу двух пользователей в обоих направлениях.
+     *
+     * @param userId   id пользователя
+     * @param friendId id друга
+     * @return {@code true}, если пользователи были друзьями
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteFriend(final long userId, final long friendId) {
+        return CompletableFuture.completedFuture(jdbcTemplate.update(
+                "DELETE FROM friendship WHERE (request_friend_id = ? AND response_friend_id = ?) "
+                        + "OR (request_friend_id = ? AND response_friend_id = ?)",
+                userId, friendId, friendId, userId) > 0);
+    }
+
+    /**
+     * Получение друзей пользователя.
+     *
+     * @param userId id пользователя
+     * @return друзья, упорядоченные по id
+     */
+    @Override
+    public List<User> findFriends(final long userId) {
+        checkExists(userId);
+        return withFriends(jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM friendship AS f "
+                        + "JOIN users AS u ON u.user_id = f.response_friend_id "
+                        + "WHERE f.request_friend_id = ? ORDER BY u.user_id",
+                USER_ROW_MAPPER, userId));
+    }
+
+    /**
+     * Получение идентификаторов друзей пользователя без загрузки самих пользователей.
+     *
+     * @param userId id пользователя
+     * @return id друзей по возрастанию
+     */
+    @Override
+    public long[] findFriendIds(final long userId) {
+        checkExists(userId);
+        return jdbcTemplate.queryForList(
+                        "SELECT response_friend_id FROM friendship WHERE request_friend_id = ? "
+                                + "ORDER BY response_friend_id",
+                        Long.class, userId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Получение общих друзей двух пользователей одним запросом:
+     * строки дружбы обоих пользователей соединяются по id друга.
+     *
+     * @param userId  id первого пользователя
+     * @param otherId id второго пользователя
+     * @return общие друзья, упорядоченные по id
+     */
+    @Override
+    public List<User> findCommonFriends(final long userId, final long otherId) {
+        checkExists(userId);
+        checkExists(otherId);
+        return withFriends(jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM friendship AS a "
+                        + "JOIN friendship AS b ON b.response_friend_id = a.response_friend_id "
+                        + "JOIN users AS u ON u.user_id = a.response_friend_id "
+                        + "WHERE a.request_friend_id = ? AND b.request_friend_id = ? ORDER BY u.user_id",
+                USER_ROW_MAPPER, userId, otherId));
+    }
+
+    private void checkExists(final long userId) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)", Boolean.class, userId);
+        if (!Boolean.TRUE.equals(exists)) {
+            throw new NotFoundException(String.format("Пользователь id = %d не найден", userId));
+        }
+    }
+
+    /**
+     * Загружает друзей для переданных пользователей запросами по {@value #IN_CHUNK} id.
+     */
+    private List<User> withFriends(final List<User> users) {
+        Map<Long, User> byId = users.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, List<Long>> friends = new HashMap<>();
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            namedJdbcTemplate.query(
+                    "SELECT request_friend_id, response_friend_id FROM friendship "
+                            + "WHERE request_friend_id IN (:ids)",
+                    Map.of("ids", ids.subList(from, Math.min(ids.size(), from + IN_CHUNK))),
+                    rs -> {
+                        friends.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+                    });
+        }
+        byId.forEach((id, user) -> user.setFriends(toSet(friends.get(id))));
+        return users;
+    }
+
+    private static SortedIdSet toSet(final List<Long> ids) {
+        return ids == null
+                ? new SortedIdSet()
+                : new SortedIdSet(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    /**
+     * Определяет по имени нарушенного индекса, что занято: логин или почта.
+     *
+     * @param user пользователь, если нарушение вызвано одним пользователем
+     */
+    private static ConditionsNotMetException duplicate(final DuplicateKeyException e, final User user) {
+        boolean login = String.valueOf(e.getMessage()).toUpperCase(Locale.ROOT).contains("USERS_LOGIN_UQ");
+        if (user == null) {
+            return new ConditionsNotMetException(login
+                    ? "Логин одного из пользователей уже занят"
+                    : "Электронная почта одного из пользователей уже используется");
+        }
+        return new ConditionsNotMetException(login
+                ? String.format("Логин %s уже занят", user.getLogin())
+                : String.format("Электронная почта %s уже используется", user.getEmail()));
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import java.util.Locale;
+
+/**
+ * Нормализация электронной почты и логина для уникальных индексов:
+ * пробелы по краям отбрасываются, регистр не учитывается.
+ * <p>
+ * Совпадает с выражением {@code LOWER(TRIM(...))} столбцов
+ * {@code email_key} и {@code login_key} в базе данных.
+ */
+public final class UserKeys {
+
+    private UserKeys() {
+    }
+
+    /**
+     * Возвращает ключ индекса; если значение уже нормализовано, возвращается та же строка.
+     *
+     * @param value электронная почта или логин
+     * @return ключ индекса
+     */
+    public static String normalize(final String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -3,13 +3,23 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для хранения и управления данными пользователей.
  * <p>
  * Определяет основные операции для работы с коллекцией пользователей,
  * включая получение всех пользователей, добавление нового пользователя
- * и обновление существующего.
+ * и обновление существующего, а также для работы с дружбой пользователей.
+ * Дружба всегда взаимна.
+ * </p>
+ * <p>
+ * Электронная почта и логин уникальны без учёта регистра и пробелов
+ * по краям: добавление или изменение, при котором они совпали бы
+ * с чужими, отклоняется целиком.
  * </p>
  */
 public interface UserStorage {
@@ -19,13 +29,112 @@ public interface UserStorage {
      */
     Collection<User> findAll();
 
+    /**
+     * Возвращает всех пользователей вместе с друзьями, упорядоченных по id,
+     * потоком, не загружая их в память целиком. Поток нужно закрыть после обхода.
+     */
+    Stream<User> streamAll();
+
+    /**
+     * Возвращает страницу пользователей с id больше {@code after}, упорядоченных по id.
+     */
+    List<User> findPage(final Long after, final int limit);
+
+    /**
+     * Возвращает пользователя по идентификатору.
+     *
+     * @throws ru.yandex.practicum.filmorate.exception.NotFoundException если пользователь не найден
+     */
+    User findById(final Long userId);
+
+    /**
+     * Возвращает пользователя по электронной почте без учёта регистра.
+     */
+    Optional<User> findByEmail(final String email);
+
+    /**
+     * Возвращает пользователя по логину без учёта регистра.
+     */
+    Optional<User> findByLogin(final String login);
+
+    /**
+     * Возвращает количество пользователей.
+     */
+    long count();
+
+    /**
+     * Возвращает количество дружб; взаимная дружба считается один раз.
+     */
+    long countFriendships();
+
     /**
      * Добавляет нового пользователя в хранилище.
+     *
+     * @throws ru.yandex.practicum.filmorate.exception.ConditionsNotMetException если почта или логин заняты
      */
     User add(final User user);
 
+    /**
+     * Добавляет пользователей одним пакетом, присваивая им id по порядку.
+     * Если почта или логин хотя бы одного из них заняты, не добавляется никто.
+     *
+     * @throws ru.yandex.practicum.filmorate.exception.ConditionsNotMetException если почта или логин заняты
+     */
+    List<User> addAll(final List<User> users);
+
     /**
      * Обновляет данные существующего пользователя.
+     *
+     * @throws ru.yandex.practicum.filmorate.exception.ConditionsNotMetException если почта или логин заняты
      */
     User update(final User newUser);
+
+    /**
+     * Связывает двух существующих пользователей дружбой.
+     * <p>
+     * Изменение видно сразу; возвращаемое подтверждение завершается, когда
+     * оно сохранено надёжно, и его можно ожидать после снятия блокировок.
+     *
+     * @return подтверждение сохранения изменения
+     */
+    CompletableFuture<Void> addFriend(final long userId, final long friendId);
+
+    /**
+     * Загружает дружбы пар существующих пользователей пакетом:
+     * {@code userIds[i]} с {@code friendIds[i]}.
+     * <p>
+     * Только для начальной загрузки данных до запуска веб-сервера, как в
+     * {@link ru.yandex.practicum.filmorate.dataset.SyntheticDatasetLoader}.
+     * Метод не берёт блокировки дружбы {@code UserService} и не сбрасывает
+     * кэш рекомендаций друзей, поэтому вызывать его из обработки запросов нельзя;
+     * для этого есть {@link #addFriend(long, long)}.
+     */
+    void loadFriendships(final long[] userIds, final long[] friendIds);
+
+    /**
+     * Удаляет дружбу двух пользователей.
+     * <p>
+     * Как и в {@link #addFriend}, результат завершается, когда изменение сохранено надёжно.
+     *
+     * @return {@code true}, если пользователи были друзьями
+     */
+    CompletableFuture<Boolean> deleteFriend(final long userId, final long friendId);
+
+    /**
+     * Возвращает друзей пользователя, упорядоченных по id.
+     */
+    List<User> findFriends(final long userId);
+
+    /**
+     * Возвращает идентификаторы друзей пользователя по возрастанию.
+     * Массив нельзя изменять.
+     *
+     * @throws ru.yandex.practicum.filmorate.exception.NotFoundException если пользователь не найден
+     */
+    long[] findFriendIds(final long userId);
+
+    /**
+     * Возвращает общих друзей двух пользователей, упорядоченных по id.
+     */
+    List<User> findCommonFriends(final long userId, final long otherId);
 }
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+/**
+ * Когда журнал сбрасывает записанные данные на диск ({@code fsync}).
+ */
+public enum FsyncPolicy {
+    /**
+     * После каждой группы записей и до подтверждения изменения.
+     * Подтверждённое изменение переживает отключение питания.
+     */
+    ALWAYS,
+    /**
+     * Не реже одного раза за интервал. Изменение подтверждается после записи
+     * в файл: при падении процесса оно сохранится, при отключении питания
+     * могут потеряться изменения последнего интервала.
+     */
+    INTERVAL,
+    /**
+     * Никогда: когда сбросить данные на диск, решает операционная система.
+     */
+    NEVER
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Журнал изменений хранилищ в памяти.
+ * <p>
+ * Хранилище добавляет запись в журнал в том же критическом разделе,
+ * в котором применяет изменение, сразу после изменения. Так порядок записей
+ * совпадает с порядком изменений одной сущности, а к моменту постановки
+ * записи в очередь изменение уже видно: снимок, начатый после ротации
+ * журнала, содержит изменения всех записей до неё. Ожидать подтверждения записи нужно уже
+ * после выхода из критического раздела: так ожидание не задерживает
+ * другие изменения, и журнал может записать их одной группой.
+ * <p>
+ * Ошибка записи для хранилищ фатальна. Откатить изменение по неудавшейся
+ * записи нельзя: встречные изменения той же сущности уже могли попасть
+ * в ту же группу. Поэтому после первой ошибки журнал перестаёт принимать
+ * записи, а хранилище в начале каждого критического раздела вызывает
+ * {@link #checkWritable()} и отказывает в изменении, не применяя его.
+ * Изменения из неудавшейся группы видны в памяти до перезапуска
+ * и теряются при нём; клиенты, изменившие их, получают ошибку.
+ */
+public interface MutationLog {
+    /**
+     * Журнал, который ничего не записывает.
+     */
+    MutationLog NOOP = record -> MutationLog.DONE;
+
+    /**
+     * Уже завершённое подтверждение.
+     */
+    CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    /**
+     * Добавляет запись в очередь журнала.
+     *
+     * @param record запись
+     * @return подтверждение, которое завершается, когда запись сохранена
+     *         согласно политике {@link FsyncPolicy}
+     */
+    CompletableFuture<Void> append(WalRecord record);
+
+    /**
+     * Проверяет, что журнал принимает записи. Вызывается хранилищем
+     * в критическом разделе до применения изменения.
+     *
+     * @throws IllegalStateException если журнал закрыт или запись в него не удалась
+     */
+    default void checkWritable() {
+    }
+}
@@ -0,0 +1,406 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.SortedIdSet;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный снимок хранилищ в памяти.
+ * <p>
+ * Файл начинается с заголовка: сигнатура, версия формата и номер сегмента
+ * журнала, с которого нужно продолжить воспроизведение. Затем идут записи
+ * с байтом типа: фильм, пользователь вместе с id друзей и лайки фильма.
+ * Отсортированные списки id пишутся разностями соседних значений в формате
+ * varint, поэтому плотные списки лайков занимают 1–2 байта на лайк.
+ * Файл завершается маркером конца и контрольной суммой CRC32C всего
+ * предшествующего содержимого.
+ * <p>
+ * Снимок пишется через {@link FileChannel} во временный файл, который
+ * затем атомарно заменяет прежний снимок, поэтому на диске всегда есть
+ * целый снимок. Читается снимок отображением файла в память.
+ */
+@Slf4j
+public final class SnapshotFile {
+    private static final int MAGIC = 0x464D5353;
+    private static final int VERSION = 1;
+    private static final byte END = 0;
+    private static final byte FILM = 1;
+    private static final byte USER = 2;
+    private static final byte LIKES = 3;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_VALUE = -1;
+    /** Размер буфера записи. */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /** Размер окна отображения файла при чтении. */
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Записывает снимок хранилищ.
+     * <p>
+     * Хранилища не блокируются целиком: обход идёт по их конкурентным
+     * коллекциям, лайки фильма копируются под его блокировкой. Изменения,
+     * сделанные во время записи, могут попасть в снимок частично, но все они
+     * есть в журнале начиная с сегмента {@code walSegment}, а записи журнала
+     * идемпотентны и при воспроизведении применяются безусловно, поэтому
+     * воспроизведение хвоста приводит хранилища к согласованному состоянию.
+     * Например, дружба, удалённая между записью двух её участников, попадёт
+     * в снимок только у одного из них и будет удалена у обоих записью хвоста.
+     *
+     * @param path        путь к снимку
+     * @param walSegment  номер сегмента журнала, начатого до обхода хранилищ
+     * @param filmStorage хранилище фильмов
+     * @param userStorage хранилище пользователей
+     * @param likeStorage хранилище лайков
+     * @throws IOException если снимок не удалось записать
+     */
+    public static void write(final Path path, final long walSegment, final InMemoryFilmStorage filmStorage,
+                             final InMemoryUserStorage userStorage, final InMemoryLikeStorage likeStorage)
+            throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Output out = new Output(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(walSegment);
+            for (Film film : filmStorage.findAll()) {
+                out.putByte(FILM);
+                out.putLong(film.getId());
+                out.putString(film.getName());
+                out.putString(film.getDescription());
+                out.putDate(film.getReleaseDate());
+                out.putInt(film.getDuration() == null ? NO_VALUE : film.getDuration());
+            }
+            for (User user : userStorage.findAll()) {
+                out.putByte(USER);
+                out.putLong(user.getId());
+                out.putString(user.getEmail());
+                out.putString(user.getLogin());
+                out.putString(user.getName());
+                out.putDate(user.getBirthday());
+                out.putIds(user.getFriends() == null ? new long[0] : user.getFriends().snapshot());
+            }
+            for (long filmId : likeStorage.likedFilmIds()) {
+                long[] userIds = likeStorage.likedUserIds(filmId);
+                if (userIds.length > 0) {
+                    out.putByte(LIKES);
+                    out.putLong(filmId);
+                    out.putIds(userIds);
+                }
+            }
+            out.putByte(END);
+            out.finish();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Загружает снимок в пустые хранилища.
+     *
+     * @param path        путь к снимку
+     * @param filmStorage хранилище фильмов
+     * @param userStorage хранилище пользователей
+     * @param likeStorage хранилище лайков
+     * @return номер сегмента журнала, с которого нужно продолжить воспроизведение
+     * @throws IOException           если снимок не удалось прочитать
+     * @throws IllegalStateException если снимок повреждён
+     */
+    public static long load(final Path path, final InMemoryFilmStorage filmStorage,
+                            final InMemoryUserStorage userStorage, final InMemoryLikeStorage likeStorage)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            in.verifyChecksum();
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw corrupted(path, "неизвестный формат");
+            }
+            long walSegment = in.getLong();
+            long films = 0;
+            long users = 0;
+            long likes = 0;
+            for (byte type = in.getByte(); type != END; type = in.getByte()) {
+                switch (type) {
+                    case FILM -> {
+                        long id = in.getLong();
+                        String name = in.getString();
+                        String description = in.getString();
+                        LocalDate releaseDate = in.getDate();
+                        int duration = in.getInt();
+                        filmStorage.restore(Film.builder()
+                                .id(id)
+                                .name(name)
+                                .description(description)
+                                .releaseDate(releaseDate)
+                                .duration(duration == NO_VALUE ? null : duration)
+                                .build());
+                        films++;
+                    }
+                    case USER -> {
+                        long id = in.getLong();
+                        String email = in.getString();
+                        String login = in.getString();
+                        String name = in.getString();
+                        LocalDate birthday = in.getDate();
+                        userStorage.restore(User.builder()
+                                .id(id)
+                                .email(email)
+                                .login(login)
+                                .name(name)
+                                .birthday(birthday)
+                                .friends(new SortedIdSet(in.getIds()))
+                                .build());
+                        users++;
+                    }
+                    case LIKES -> {
+                        long filmId = in.getLong();
+                        long[] userIds = in.getIds();
+                        likeStorage.restore(filmId, userIds);
+                        likes += userIds.length;
+                    }
+                    default -> throw corrupted(path, "неизвестный тип записи " + type);
+                }
+            }
+            log.info("Снимок {}: фильмов {}, пользователей {}, лайков {}", path, films, users, likes);
+            return walSegment;
+        } catch (BufferUnderflowException e) {
+            throw corrupted(path, "неожиданный конец файла");
+        }
+    }
+
+    private static IllegalStateException corrupted(final Path path, final String reason) {
+        return new IllegalStateException("Снимок " + path + " повреждён: " + reason);
+    }
+
+    /**
+     * Буферизованная запись в канал с подсчётом контрольной суммы.
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+
+        Output(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(final byte value) throws IOException {
+            ensure(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        void putInt(final int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(final long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putVarLong(final long value) throws IOException {
+            ensure(10);
+            long rest = value;
+            while ((rest & ~0x7FL) != 0) {
+                buffer.put((byte) ((rest & 0x7F) | 0x80));
+                rest >>>= 7;
+            }
+            buffer.put((byte) rest);
+        }
+
+        void putString(final String value) throws IOException {
+            if (value == null) {
+                putInt(NO_VALUE);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer data = ByteBuffer.wrap(bytes);
+                crc.update(data.duplicate());
+                writeFully(data);
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        void putDate(final LocalDate date) throws IOException {
+            putLong(date == null ? NO_DATE : date.toEpochDay());
+        }
+
+        /**
+         * Пишет отсортированные id: количество, затем разности соседних значений.
+         */
+        void putIds(final long[] ids) throws IOException {
+            putVarLong(ids.length);
+            long previous = 0;
+            for (long id : ids) {
+                putVarLong(id - previous);
+                previous = id;
+            }
+        }
+
+        /**
+         * Дописывает контрольную сумму и сбрасывает файл на диск.
+         */
+        void finish() throws IOException {
+            flush();
+            ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue());
+            writeFully(checksum);
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void ensure(final int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(final ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Чтение файла через отображение в память окнами до {@link #WINDOW_SIZE} байт.
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        /** Размер содержимого без завершающей контрольной суммы. */
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        Input(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size() - Integer.BYTES;
+            if (size < 0) {
+                throw new BufferUnderflowException();
+            }
+            map(0);
+        }
+
+        void verifyChecksum() throws IOException {
+            CRC32C crc = new CRC32C();
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW_SIZE, size - position)));
+            }
+            ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(checksum, size);
+            if (checksum.getInt(0) != (int) crc.getValue()) {
+                throw new IllegalStateException("Контрольная сумма снимка не совпадает");
+            }
+        }
+
+        byte getByte() throws IOException {
+            ensure(Byte.BYTES);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        long getVarLong() throws IOException {
+            ensure(10);
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte next = window.get();
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length == NO_VALUE) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            ensure(length);
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        LocalDate getDate() throws IOException {
+            long day = getLong();
+            return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+        }
+
+        long[] getIds() throws IOException {
+            long count = getVarLong();
+            if (count > size) {
+                throw new BufferUnderflowException();
+            }
+            long[] ids = new long[(int) count];
+            long previous = 0;
+            for (int i = 0; i < ids.length; i++) {
+                previous += getVarLong();
+                ids[i] = previous;
+            }
+            return ids;
+        }
+
+        /**
+         * Сдвигает окно, если в нём осталось меньше {@code bytes} байт,
+         * а файл ещё не закончился.
+         */
+        private void ensure(final int bytes) throws IOException {
+            if (window.remaining() < bytes && windowStart + window.limit() < size) {
+                map(windowStart + window.position());
+            }
+        }
+
+        private void map(final long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически записывает снимок хранилищ в памяти и удаляет сегменты
+ * журнала, изменения из которых уже вошли в снимок.
+ * <p>
+ * Снимок пишется в отдельном потоке и не останавливает обработку запросов.
+ * Перед обходом хранилищ журнал переходит на новый сегмент: все изменения,
+ * записанные в предыдущие сегменты, к этому моменту уже применены
+ * и попадут в снимок, а всё, что изменится во время обхода, будет
+ * воспроизведено из нового сегмента.
+ * <p>
+ * Работает, только если журнал включён и {@code filmorate.wal.snapshot-interval}
+ * больше нуля.
+ */
+@Slf4j
+@Component
+@Profile("!db")
+public class SnapshotScheduler implements SmartLifecycle {
+    private final MutationLog mutationLog;
+    private final WalProperties properties;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryLikeStorage likeStorage;
+    private final BackgroundThreads threads;
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Создаёт планировщик снимков с потоком платформы.
+     */
+    public SnapshotScheduler(final MutationLog mutationLog, final WalProperties properties,
+                             final InMemoryFilmStorage filmStorage, final InMemoryUserStorage userStorage,
+                             final InMemoryLikeStorage likeStorage) {
+        this(mutationLog, properties, filmStorage, userStorage, likeStorage, BackgroundThreads.PLATFORM);
+    }
+
+    /**
+     * Создаёт планировщик снимков.
+     *
+     * @param threads вид потока, в котором пишутся снимки
+     */
+    @Autowired
+    public SnapshotScheduler(final MutationLog mutationLog, final WalProperties properties,
+                             final InMemoryFilmStorage filmStorage, final InMemoryUserStorage userStorage,
+                             final InMemoryLikeStorage likeStorage, final BackgroundThreads threads) {
+        this.mutationLog = mutationLog;
+        this.properties = properties;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeStorage = likeStorage;
+        this.threads = threads;
+    }
+
+    @Override
+    public void start() {
+        long interval = properties.snapshotInterval().toMillis();
+        if (!(mutationLog instanceof WriteAheadLog) || interval <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(threads.factory("wal-snapshot"));
+        executor.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Записывает снимок и удаляет сегменты журнала, которые он заменяет.
+     *
+     * @throws IllegalStateException если журнал отключён
+     */
+    public void snapshot() {
+        if (!(mutationLog instanceof WriteAheadLog wal)) {
+            throw new IllegalStateException("Журнал изменений отключён");
+        }
+
+        long started = System.nanoTime();
+        long segment = wal.rotate().join();
+        try {
+            SnapshotFile.write(properties.snapshotPath(), segment, filmStorage, userStorage, likeStorage);
+            wal.deleteSegmentsBefore(segment);
+            log.info("Снимок {} записан за {} мс, {} байт", properties.snapshotPath(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    Files.size(properties.snapshotPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать снимок " + properties.snapshotPath(), e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи снимка", e);
+        }
+    }
+}
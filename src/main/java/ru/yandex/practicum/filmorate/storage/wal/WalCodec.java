@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный формат записей журнала.
+ * <p>
+ * Кадр записи: длина тела ({@code int}), контрольная сумма CRC32C тела
+ * ({@code int}) и тело. Тело начинается с байта типа записи, за ним идут
+ * поля. Строки пишутся как длина в байтах и UTF-8, отсутствующее значение —
+ * длиной {@code -1}; даты — номером дня эпохи.
+ */
+final class WalCodec {
+    /** Размер заголовка кадра: длина и контрольная сумма. */
+    static final int HEADER_SIZE = 8;
+
+    private static final byte FILM_SAVED = 1;
+    private static final byte USER_SAVED = 2;
+    private static final byte LIKE_CHANGED = 3;
+    private static final byte FRIENDSHIP_CHANGED = 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_VALUE = -1;
+
+    private WalCodec() {
+    }
+
+    /**
+     * Кодирует запись в готовый к записи кадр.
+     */
+    static byte[] encode(final WalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(0);
+            switch (record) {
+                case WalRecord.FilmSaved film -> {
+                    out.writeByte(FILM_SAVED);
+                    out.writeLong(film.id());
+                    writeString(out, film.name());
+                    writeString(out, film.description());
+                    writeDate(out, film.releaseDate());
+                    out.writeInt(film.duration() == null ? NO_VALUE : film.duration());
+                }
+                case WalRecord.UserSaved user -> {
+                    out.writeByte(USER_SAVED);
+                    out.writeLong(user.id());
+                    writeString(out, user.email());
+                    writeString(out, user.login());
+                    writeString(out, user.name());
+                    writeDate(out, user.birthday());
+                }
+                case WalRecord.LikeChanged like -> {
+                    out.writeByte(LIKE_CHANGED);
+                    out.writeLong(like.filmId());
+                    out.writeLong(like.userId());
+                    out.writeBoolean(like.added());
+                }
+                case WalRecord.FriendshipChanged friendship -> {
+                    out.writeByte(FRIENDSHIP_CHANGED);
+                    out.writeLong(friendship.userId());
+                    out.writeLong(friendship.friendId());
+                    out.writeBoolean(friendship.added());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        int length = frame.capacity() - HEADER_SIZE;
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), HEADER_SIZE, length);
+        frame.putInt(0, length);
+        frame.putInt(4, (int) crc.getValue());
+        return frame.array();
+    }
+
+    /**
+     * Проверяет контрольную сумму тела записи.
+     */
+    static boolean checksumMatches(final ByteBuffer body, final int checksum) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue() == checksum;
+    }
+
+    /**
+     * Декодирует тело записи.
+     *
+     * @throws IllegalArgumentException если тип записи неизвестен
+     */
+    static WalRecord decode(final ByteBuffer body) {
+        byte type = body.get();
+        return switch (type) {
+            case FILM_SAVED -> {
+                long id = body.getLong();
+                String name = readString(body);
+                String description = readString(body);
+                LocalDate releaseDate = readDate(body);
+                int duration = body.getInt();
+                yield new WalRecord.FilmSaved(id, name, description, releaseDate,
+                        duration == NO_VALUE ? null : duration);
+            }
+            case USER_SAVED -> new WalRecord.UserSaved(body.getLong(), readString(body), readString(body),
+                    readString(body), readDate(body));
+            case LIKE_CHANGED -> new WalRecord.LikeChanged(body.getLong(), body.getLong(), body.get() != 0);
+            case FRIENDSHIP_CHANGED ->
+                    new WalRecord.FriendshipChanged(body.getLong(), body.getLong(), body.get() != 0);
+            default -> throw new IllegalArgumentException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NO_VALUE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer body) {
+        int length = body.getInt();
+        if (length == NO_VALUE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(final DataOutputStream out, final LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(final ByteBuffer body) {
+        long day = body.getLong();
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+/**
+ * Подключает журнал изменений к хранилищам в памяти.
+ * <p>
+ * Если {@code filmorate.wal.enabled} не включён, хранилища получают
+ * {@link MutationLog#NOOP} и работают только в памяти, как раньше.
+ */
+@Configuration
+@Profile("!db")
+@EnableConfigurationProperties(WalProperties.class)
+public class WalConfiguration {
+
+    /**
+     * Журнал изменений согласно настройкам.
+     */
+    @Bean
+    public MutationLog mutationLog(final WalProperties properties, final BackgroundThreads threads) {
+        if (!properties.enabled()) {
+            return MutationLog.NOOP;
+        }
+        return new WriteAheadLog(properties.path(), properties.fsync(), properties.fsyncInterval(), threads);
+    }
+}
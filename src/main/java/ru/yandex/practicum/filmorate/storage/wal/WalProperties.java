@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки журнала изменений ({@code filmorate.wal.*}).
+ *
+ * @param enabled          включён ли журнал
+ * @param path             путь к журналу; к нему добавляется номер сегмента
+ * @param fsync            политика сброса на диск
+ * @param fsyncInterval    интервал сброса для политики {@code interval}
+ * @param snapshotPath     путь к снимку хранилищ
+ * @param snapshotInterval период записи снимков; {@code 0} отключает снимки
+ */
+@ConfigurationProperties("filmorate.wal")
+public record WalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("./data/filmorate.wal") Path path,
+        @DefaultValue("interval") FsyncPolicy fsync,
+        @DefaultValue("100ms") Duration fsyncInterval,
+        @DefaultValue("./data/filmorate.snapshot") Path snapshotPath,
+        @DefaultValue("10m") Duration snapshotInterval) {
+}
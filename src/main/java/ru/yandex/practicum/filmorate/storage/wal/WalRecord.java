@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Запись журнала изменений.
+ * <p>
+ * Каждая запись идемпотентна: фильм и пользователь сохраняются целиком
+ * вместе с id, лайки и дружба — как факт наличия или отсутствия связи.
+ * Поэтому повторное применение записи не меняет результат восстановления.
+ */
+public sealed interface WalRecord {
+
+    /**
+     * Фильм добавлен или обновлён.
+     */
+    record FilmSaved(long id, String name, String description, LocalDate releaseDate, Integer duration)
+            implements WalRecord {
+
+        /**
+         * Создаёт запись по текущему состоянию фильма.
+         */
+        public static FilmSaved of(final Film film) {
+            return new FilmSaved(film.getId(), film.getName(), film.getDescription(),
+                    film.getReleaseDate(), film.getDuration());
+        }
+
+        /**
+         * Восстанавливает фильм из записи.
+         */
+        public Film toFilm() {
+            return Film.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .releaseDate(releaseDate)
+                    .duration(duration)
+                    .build();
+        }
+    }
+
+    /**
+     * Пользователь добавлен или обновлён. Друзья пишутся отдельными записями.
+     */
+    record UserSaved(long id, String email, String login, String name, LocalDate birthday)
+            implements WalRecord {
+
+        /**
+         * Создаёт запись по текущему состоянию пользователя.
+         */
+        public static UserSaved of(final User user) {
+            return new UserSaved(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+        }
+
+        /**
+         * Восстанавливает пользователя из записи, без друзей.
+         */
+        public User toUser() {
+            return User.builder()
+                    .id(id)
+                    .email(email)
+                    .login(login)
+                    .name(name)
+                    .birthday(birthday)
+                    .build();
+        }
+    }
+
+    /**
+     * Лайк поставлен ({@code added}) или убран.
+     */
+    record LikeChanged(long filmId, long userId, boolean added) implements WalRecord {
+    }
+
+    /**
+     * Дружба установлена ({@code added}) или удалена.
+     */
+    record FriendshipChanged(long userId, long friendId, boolean added) implements WalRecord {
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Восстанавливает хранилища в памяти при запуске: загружает последний
+ * снимок, если он есть, и воспроизводит журнал изменений, записанный после него.
+ * <p>
+ * Восстановление выполняется после создания всех бинов, но до запуска
+ * веб-сервера, поэтому первые запросы уже видят восстановленные данные.
+ */
+@Slf4j
+@Component
+@Profile("!db")
+@RequiredArgsConstructor
+public class WalReplayer implements SmartInitializingSingleton {
+    private final MutationLog mutationLog;
+    private final WalProperties properties;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryLikeStorage likeStorage;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recover();
+    }
+
+    /**
+     * Загружает снимок и воспроизводит хвост журнала.
+     * Ничего не делает, если журнал отключён.
+     */
+    public void recover() {
+        if (!(mutationLog instanceof WriteAheadLog wal)) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        long firstSegment = 0;
+        Path snapshot = properties.snapshotPath();
+        if (Files.exists(snapshot)) {
+            try {
+                firstSegment = SnapshotFile.load(snapshot, filmStorage, userStorage, likeStorage);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать снимок " + snapshot, e);
+            }
+        }
+        wal.replay(firstSegment, this::apply);
+        log.info("Хранилища восстановлены за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Применяет запись журнала к хранилищам.
+     */
+    void apply(final WalRecord record) {
+        switch (record) {
+            case WalRecord.FilmSaved film -> filmStorage.restore(film.toFilm());
+            case WalRecord.UserSaved user -> userStorage.restore(user.toUser());
+            case WalRecord.LikeChanged like -> {
+                if (like.added()) {
+                    likeStorage.add(like.filmId(), like.userId());
+                } else {
+                    likeStorage.remove(like.filmId(), like.userId());
+                }
+            }
+            case WalRecord.FriendshipChanged friendship ->
+                    userStorage.restoreFriendship(friendship.userId(), friendship.friendId(), friendship.added());
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Журнал изменений в файлах, только с дозаписью в конец.
+ * <p>
+ * Записи кодируются в потоке вызывающего кода и ставятся в очередь.
+ * Единственный поток записи забирает из очереди всё накопившееся,
+ * записывает одной операцией и, в зависимости от {@link FsyncPolicy},
+ * сбрасывает на диск, после чего подтверждает всю группу. Чем больше
+ * параллельных изменений, тем больше записей приходится на один
+ * {@code fsync} (group commit).
+ * <p>
+ * Журнал разбит на сегменты {@code <path>.<номер>}. Метод {@link #rotate()}
+ * начинает новый сегмент: все записи, поставленные в очередь до вызова,
+ * оказываются в предыдущих сегментах. Так снимок хранилищ отмечает,
+ * с какого сегмента воспроизводить журнал, а более старые сегменты
+ * после записи снимка удаляются.
+ * <p>
+ * При запуске журнал воспроизводится методом {@link #replay(long, Consumer)}.
+ * Недописанная или повреждённая последняя запись сегмента, оставшаяся после
+ * аварийной остановки, отбрасывается, и сегмент обрезается до неё.
+ * <p>
+ * После первой ошибки записи журнал перестаёт принимать записи:
+ * неудавшаяся группа и всё, что поставлено в очередь после неё,
+ * завершаются ошибкой, см. {@link MutationLog}.
+ */
+@Slf4j
+public class WriteAheadLog implements MutationLog, AutoCloseable {
+    /** Максимальное количество записей в одной группе. */
+    private static final int MAX_GROUP_SIZE = 4096;
+    /** Размер буфера записи. */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /** Как долго поток записи ждёт новые записи, если сбрасывать на диск не нужно. */
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Thread writer;
+    private FileChannel channel;
+    private long segment;
+    private volatile boolean replaying;
+    private volatile boolean closed;
+    /** Первая ошибка записи; после неё журнал не принимает записи. */
+    private volatile UncheckedIOException failure;
+    private boolean unsynced;
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Открывает журнал, продолжая последний сегмент или создавая первый,
+     * и запускает поток записи.
+     *
+     * @param path          путь к журналу; к нему добавляется номер сегмента
+     * @param fsyncPolicy   политика сброса на диск
+     * @param fsyncInterval интервал сброса для {@link FsyncPolicy#INTERVAL}
+     */
+    public WriteAheadLog(final Path path, final FsyncPolicy fsyncPolicy, final Duration fsyncInterval) {
+        this(path, fsyncPolicy, fsyncInterval, BackgroundThreads.PLATFORM);
+    }
+
+    /**
+     * Открывает журнал и запускает поток записи заданного вида.
+     *
+     * @param path          путь к журналу; к нему добавляется номер сегмента
+     * @param fsyncPolicy   политика сброса на диск
+     * @param fsyncInterval интервал сброса для {@link FsyncPolicy#INTERVAL}
+     * @param threads       вид потока записи
+     */
+    public WriteAheadLog(final Path path, final FsyncPolicy fsyncPolicy, final Duration fsyncInterval,
+                         final BackgroundThreads threads) {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.isRegularFile(path)) {
+                Files.move(path, segmentPath(path, 1));
+            }
+            List<Long> segments = segments();
+            openSegment(segments.isEmpty() ? 1 : segments.getLast());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + path, e);
+        }
+        writer = threads.start("wal-writer", this::writeLoop);
+    }
+
+    @Override
+    public CompletableFuture<Void> append(final WalRecord record) {
+        if (replaying) {
+            return DONE;
+        }
+        checkOpen();
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+
+        Append pending = new Append(WalCodec.encode(record), new CompletableFuture<>());
+        queue.add(pending);
+        return pending.done();
+    }
+
+    /**
+     * Начинает новый сегмент журнала. Предыдущий сегмент сбрасывается
+     * на диск и больше не меняется.
+     *
+     * @return номер нового сегмента; все записи, поставленные в очередь
+     *         до вызова, находятся в сегментах с меньшими номерами
+     */
+    public CompletableFuture<Long> rotate() {
+        checkOpen();
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        Rotate rotate = new Rotate(new CompletableFuture<>());
+        queue.add(rotate);
+        return rotate.done();
+    }
+
+    /**
+     * Удаляет сегменты, уже не нужные для восстановления.
+     *
+     * @param first номер первого сегмента, который нужно сохранить
+     */
+    public void deleteSegmentsBefore(final long first) {
+        try {
+            for (long number : segments()) {
+                if (number < first) {
+                    Files.delete(segmentPath(path, number));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось удалить сегменты журнала " + path, e);
+        }
+    }
+
+    /**
+     * Воспроизводит журнал с начала.
+     *
+     * @param handler обработчик записей
+     * @return количество воспроизведённых записей
+     * @see #replay(long, Consumer)
+     */
+    public long replay(final Consumer<WalRecord> handler) {
+        return replay(0, handler);
+    }
+
+    /**
+     * Воспроизводит журнал, начиная с указанного сегмента. Более старые
+     * сегменты удаляются: их изменения уже содержатся в снимке.
+     * <p>
+     * Пока идёт воспроизведение, новые записи в журнал не добавляются,
+     * поэтому обработчик может применять изменения обычными методами хранилищ.
+     * Вызывать до того, как приложение начнёт принимать запросы.
+     *
+     * @param first   номер первого воспроизводимого сегмента
+     * @param handler обработчик записей
+     * @return количество воспроизведённых записей
+     */
+    public long replay(final long first, final Consumer<WalRecord> handler) {
+        replaying = true;
+        try {
+            deleteSegmentsBefore(first);
+            if (segment < first) {
+                channel.close();
+                openSegment(first);
+            }
+            long records = 0;
+            for (long number : segments()) {
+                if (number == segment) {
+                    records += replaySegment(channel, number, handler);
+                    channel.position(channel.size());
+                } else {
+                    try (FileChannel old = FileChannel.open(segmentPath(path, number),
+                            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        records += replaySegment(old, number, handler);
+                    }
+                }
+            }
+            log.info("Журнал {}: воспроизведено записей {}", path, records);
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал " + path, e);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Override
+    public void checkWritable() {
+        checkOpen();
+        if (failure != null) {
+            throw new IllegalStateException("Журнал " + path + " не принимает записи после ошибки записи", failure);
+        }
+    }
+
+    /**
+     * Дожидается записи всех поставленных в очередь записей,
+     * сбрасывает журнал на диск и закрывает файл.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось закрыть журнал " + path, e);
+        }
+    }
+
+    /**
+     * Путь к сегменту журнала с указанным номером.
+     */
+    static Path segmentPath(final Path path, final long number) {
+        return path.resolveSibling(String.format("%s.%010d", path.getFileName(), number));
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Журнал " + path + " закрыт");
+        }
+    }
+
+    private void openSegment(final long number) throws IOException {
+        channel = FileChannel.open(segmentPath(path, number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        segment = number;
+    }
+
+    /**
+     * Номера существующих сегментов по возрастанию.
+     */
+    private List<Long> segments() throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .map(name -> name.substring(prefix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long replaySegment(final FileChannel segmentChannel, final long number,
+                               final Consumer<WalRecord> handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(WalCodec.HEADER_SIZE);
+        long size = segmentChannel.size();
+        long position = 0;
+        long records = 0;
+        while (position + WalCodec.HEADER_SIZE <= size) {
+            header.clear();
+            segmentChannel.read(header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length <= 0 || position + WalCodec.HEADER_SIZE + length > size) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(length);
+            segmentChannel.read(body, position + WalCodec.HEADER_SIZE);
+            body.flip();
+            if (!WalCodec.checksumMatches(body, checksum)) {
+                break;
+            }
+            handler.accept(WalCodec.decode(body));
+            position += WalCodec.HEADER_SIZE + length;
+            records++;
+        }
+
+        if (position < size) {
+            log.warn("Журнал {}, сегмент {}: отброшено {} байт недописанной записи", path, number, size - position);
+            segmentChannel.truncate(position);
+        }
+        return records;
+    }
+
+    private void writeLoop() {
+        List<Request> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                    if (failure != null) {
+                        fail(group, failure);
+                        group.clear();
+                        continue;
+                    }
+                    write(group);
+                }
+                if (needsSync(!group.isEmpty())) {
+                    sync();
+                }
+                for (Request request : group) {
+                    if (request instanceof Append append) {
+                        append.done().complete(null);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(group, failed(e));
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Ошибка записи журнала {}, журнал больше не принимает записи", path, e);
+                fail(group, failed(e));
+            }
+            group.clear();
+        }
+    }
+
+    private long pollTimeoutNanos() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && unsynced) {
+            return Math.max(0, fsyncIntervalNanos - (System.nanoTime() - lastSync));
+        }
+        return IDLE_POLL_NANOS;
+    }
+
+    private boolean needsSync(final boolean wrote) {
+        return switch (fsyncPolicy) {
+            case ALWAYS -> wrote;
+            case INTERVAL -> unsynced && System.nanoTime() - lastSync >= fsyncIntervalNanos;
+            case NEVER -> false;
+        };
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        unsynced = false;
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Записывает группу. Если запись не удалась, сегмент обрезается
+     * до начала группы, чтобы недописанная запись не закрыла
+     * путь к последующим при воспроизведении.
+     */
+    private void write(final List<Request> group) throws IOException {
+        long start = channel.position();
+        try {
+            buffer.clear();
+            for (Request request : group) {
+                switch (request) {
+                    case Append append -> put(append.frame());
+                    case Rotate rotate -> {
+                        flushBuffer();
+                        sync();
+                        FileChannel previous = channel;
+                        openSegment(segment + 1);
+                        previous.close();
+                        start = 0;
+                        rotate.done().complete(segment);
+                    }
+                }
+            }
+            flushBuffer();
+            unsynced = true;
+        } catch (IOException e) {
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+    }
+
+    private void put(final byte[] frame) throws IOException {
+        if (frame.length > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (frame.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(frame));
+        } else {
+            buffer.put(frame);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * Запоминает первую ошибку записи, после которой журнал не принимает записи.
+     */
+    private UncheckedIOException failed(final Exception e) {
+        if (failure == null) {
+            failure = new UncheckedIOException("Ошибка записи журнала " + path,
+                    e instanceof IOException io ? io : new IOException(e));
+        }
+        return failure;
+    }
+
+    private static void fail(final List<Request> group, final UncheckedIOException failure) {
+        for (Request request : group) {
+            switch (request) {
+                case Append append -> append.done().completeExceptionally(failure);
+                case Rotate rotate -> rotate.done().completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Запрос к потоку записи.
+     */
+    private sealed interface Request {
+    }
+
+    /**
+     * Запись, ожидающая сохранения.
+     */
+    private record Append(byte[] frame, CompletableFuture<Void> done) implements Request {
+    }
+
+    /**
+     * Переход к новому сегменту; завершается номером нового сегмента.
+     */
+    private record Rotate(CompletableFuture<Long> done) implements Request {
+    }
+}
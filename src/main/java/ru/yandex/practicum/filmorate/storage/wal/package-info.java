@@ -0,0 +1,4 @@
+/**
+ * Журнал изменений (write-ahead log) и снимки хранилищ в памяти.
+ */
+package ru.yandex.practicum.filmorate.storage.wal;
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Вид потоков для фоновой работы приложения: записи журнала изменений,
+ * снимков, обновления кэша популярных фильмов и журнала запросов.
+ * <p>
+ * Выбирается той же настройкой {@code spring.threads.virtual.enabled},
+ * что и потоки обработки запросов, см. {@link ThreadingConfiguration}.
+ * Потоки платформы создаются демонами, чтобы не мешать остановке JVM;
+ * виртуальные потоки демоны всегда.
+ */
+public enum BackgroundThreads {
+    /** Потоки платформы — режим по умолчанию. */
+    PLATFORM,
+    /** Виртуальные потоки. */
+    VIRTUAL;
+
+    /**
+     * Возвращает фабрику потоков с заданным именем.
+     *
+     * @param name имя создаваемых потоков
+     * @return фабрика потоков
+     */
+    public ThreadFactory factory(final String name) {
+        return this == VIRTUAL
+                ? Thread.ofVirtual().name(name).factory()
+                : Thread.ofPlatform().name(name).daemon().factory();
+    }
+
+    /**
+     * Создаёт и запускает поток с заданным именем.
+     *
+     * @param name имя потока
+     * @param task задача потока
+     * @return запущенный поток
+     */
+    public Thread start(final String name, final Runnable task) {
+        Thread thread = factory(name).newThread(task);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Чтение из асинхронного кэша с загрузкой в вызывающем потоке.
+ * <p>
+ * Под блокировкой кэша в него кладётся только незавершённое значение,
+ * а сама загрузка идёт уже без блокировки: в отличие от
+ * {@link com.github.benmanes.caffeine.cache.Cache#get}, запрос к базе данных
+ * или расчёт значения
+ * не выполняется внутри монитора и не занимает поток-носитель виртуального
+ * потока, а долгий расчёт не блокирует другие ключи кэша. Одновременные
+ * обращения к тому же ключу ждут эту загрузку.
+ * Удаление ключа из кэша во время загрузки удаляет и незавершённое значение,
+ * поэтому загруженная до изменения версия в кэше не остаётся. Если загрузка
+ * вернула null или бросила исключение, значение в кэше не сохраняется.
+ */
+public final class CallerThreadLoad {
+
+    private CallerThreadLoad() {
+    }
+
+    /**
+     * Возвращает значение из кэша, при промахе загружая его в текущем потоке.
+     *
+     * @param cache  кэш
+     * @param key    ключ
+     * @param loader загрузка значения; исключения передаются вызывающему коду как есть
+     * @param <V>    тип значения
+     * @return значение; null, если загрузка вернула null
+     */
+    public static <V> V get(final AsyncCache<Long, V> cache, final Long key, final Function<Long, V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(key, (id, executor) -> loading);
+        if (cached == loading) {
+            try {
+                V value = loader.apply(key);
+                loading.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Потоковая запись объектов в формате NDJSON (один JSON-объект на строку).
+ * <p>
+ * Объекты сериализуются по одному и сразу уходят в выходной поток через
+ * буфер фиксированного размера, поэтому расход памяти не зависит от
+ * количества объектов.
+ */
+@Component
+public class NdjsonWriter {
+    /** Размер буфера записи в байтах. */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectWriter writer;
+
+    /**
+     * Создаёт объект записи с настройками сериализации приложения.
+     *
+     * @param objectMapper настроенный ObjectMapper
+     */
+    public NdjsonWriter(final ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Записывает объекты в поток, по одному на строку.
+     * Поток после записи не закрывается.
+     *
+     * @param items объекты для записи; обходятся один раз
+     * @param out   выходной поток
+     * @param <T>   тип объектов
+     * @return количество записанных объектов
+     * @throws IOException при ошибке записи
+     */
+    public <T> long write(final Iterable<T> items, final OutputStream out) throws IOException {
+        BufferedOutputStream buffer = new BufferedOutputStream(out, BUFFER_SIZE);
+        long count = 0;
+        for (T item : items) {
+            buffer.write(writer.writeValueAsBytes(item));
+            buffer.write('\n');
+            count++;
+        }
+        buffer.flush();
+        return count;
+    }
+}
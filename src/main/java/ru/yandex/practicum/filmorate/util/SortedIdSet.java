@@ -0,0 +1,258 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасное множество идентификаторов в виде отсортированного
+ * массива {@code long[]} с копированием при записи.
+ * <p>
+ * Чтение не берёт блокировок и работает со снимком массива, поэтому
+ * множество можно обходить параллельно с изменением. Запись копирует массив
+ * за O(n), что приемлемо для списков друзей, которые читаются гораздо чаще,
+ * чем изменяются. Отсортированные снимки двух множеств пересекаются
+ * за линейное время методом {@link #intersect(long[], long[])}.
+ */
+public class SortedIdSet extends AbstractSet<Long> {
+    /**
+     * Во сколько раз один массив должен быть длиннее другого,
+     * чтобы пересечение выполнялось галопирующим поиском вместо слияния.
+     */
+    private static final int GALLOP_RATIO = 32;
+    private static final long[] EMPTY = new long[0];
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long[] ids = EMPTY;
+
+    /**
+     * Создаёт пустое множество.
+     */
+    public SortedIdSet() {
+    }
+
+    /**
+     * Создаёт множество из массива идентификаторов.
+     *
+     * @param ids идентификаторы в любом порядке, возможно с повторами
+     */
+    public SortedIdSet(long[] ids) {
+        this.ids = Arrays.stream(ids).sorted().distinct().toArray();
+    }
+
+    /**
+     * Возвращает отсортированный снимок идентификаторов.
+     * Массив нельзя изменять.
+     */
+    public long[] snapshot() {
+        return ids;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public boolean add(Long id) {
+        writeLock.lock();
+        try {
+            long[] current = ids;
+            int i = Arrays.binarySearch(current, id);
+            if (i >= 0) {
+                return false;
+            }
+
+            i = -i - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            updated[i] = id;
+            System.arraycopy(current, i, updated, i + 1, current.length - i);
+            ids = updated;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Добавляет идентификаторы пакетом: массив копируется один раз
+     * за O(n + m), а не при добавлении каждого идентификатора.
+     *
+     * @param added идентификаторы в любом порядке, возможно с повторами
+     * @return {@code true}, если множество изменилось
+     */
+    public boolean addAll(long[] added) {
+        long[] sorted = added.clone();
+        Arrays.sort(sorted);
+        writeLock.lock();
+        try {
+            long[] current = ids;
+            long[] merged = new long[current.length + sorted.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < current.length || j < sorted.length) {
+                long next = j == sorted.length || i < current.length && current[i] <= sorted[j]
+                        ? current[i++]
+                        : sorted[j++];
+                if (count == 0 || merged[count - 1] != next) {
+                    merged[count++] = next;
+                }
+            }
+            if (count == current.length) {
+                return false;
+            }
+            ids = count == merged.length ? merged : Arrays.copyOf(merged, count);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Long id)) {
+            return false;
+        }
+
+        writeLock.lock();
+        try {
+            long[] current = ids;
+            int i = Arrays.binarySearch(current, id);
+            if (i < 0) {
+                return false;
+            }
+
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            ids = updated;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            ids = EMPTY;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return iterator(ids);
+    }
+
+    @Override
+    public Spliterator<Long> spliterator() {
+        long[] snapshot = ids;
+        return Spliterators.spliterator(iterator(snapshot), snapshot.length,
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    private static Iterator<Long> iterator(long[] snapshot) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[next++];
+            }
+        };
+    }
+
+    /**
+     * Возвращает пересечение двух отсортированных массивов идентификаторов.
+     * <p>
+     * Массивы близкой длины сливаются за O(n + m). Если один массив намного
+     * короче, каждый его элемент ищется в длинном галопирующим поиском
+     * за O(n log(m / n)).
+     *
+     * @param a первый отсортированный массив
+     * @param b второй отсортированный массив
+     * @return отсортированный массив общих идентификаторов
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+
+        long[] result = new long[a.length];
+        int count = (long) a.length * GALLOP_RATIO < b.length
+                ? gallop(a, b, result)
+                : merge(a, b, result);
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int merge(long[] a, long[] b, long[] result) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int gallop(long[] small, long[] large, long[] result) {
+        int count = 0;
+        int from = 0;
+        for (long id : small) {
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < id) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int i = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), id);
+            if (i >= 0) {
+                result[count++] = id;
+                from = i + 1;
+            } else {
+                from = -i - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return count;
+    }
+}
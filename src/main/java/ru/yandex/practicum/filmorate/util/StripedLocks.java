@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Набор блокировок, распределённых по идентификаторам сущностей.
+ * <p>
+ * Идентификатор отображается на одну из {@code stripes} блокировок, поэтому
+ * операции над разными сущностями, как правило, не конкурируют друг с другом,
+ * а глобальная блокировка не используется. Операции над парой сущностей
+ * захватывают обе блокировки в порядке возрастания их номеров, что исключает
+ * взаимную блокировку при встречных запросах.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Создаёт набор блокировок.
+     *
+     * @param stripes желаемое количество блокировок;
+     *                округляется вверх до степени двойки
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Выполняет действие под блокировкой одной сущности.
+     *
+     * @param id     идентификатор сущности
+     * @param action действие
+     * @param <T>    тип результата
+     * @return результат действия
+     */
+    public <T> T withLock(long id, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет действие под блокировками двух сущностей.
+     *
+     * @param first  идентификатор первой сущности
+     * @param second идентификатор второй сущности
+     * @param action действие
+     * @param <T>    тип результата
+     * @return результат действия
+     */
+    public <T> T withLocks(long first, long second, Supplier<T> action) {
+        int a = stripe(first);
+        int b = stripe(second);
+        ReentrantLock lower = locks[Math.min(a, b)];
+        ReentrantLock upper = locks[Math.max(a, b)];
+
+        lower.lock();
+        try {
+            if (upper != lower) {
+                upper.lock();
+            }
+            try {
+                return action.get();
+            } finally {
+                if (upper != lower) {
+                    upper.unlock();
+                }
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    private int stripe(long id) {
+        int hash = Long.hashCode(id);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
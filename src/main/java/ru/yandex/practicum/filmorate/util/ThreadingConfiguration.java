@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Режим потоков приложения.
+ * <p>
+ * При {@code spring.threads.virtual.enabled=true} Spring Boot обрабатывает
+ * запросы Tomcat и асинхронные задачи в виртуальных потоках, а фоновые
+ * потоки приложения создаются через {@link BackgroundThreads#VIRTUAL}.
+ * <p>
+ * В Java 21 виртуальный поток, который ждёт внутри монитора, не освобождает
+ * поток-носитель. Поэтому там, где под блокировкой возможно ожидание, —
+ * изменения лайков и дружбы, запись в журнал, построение популярных фильмов —
+ * используются {@link java.util.concurrent.locks.ReentrantLock} из
+ * {@link StripedLocks}, а не {@code synchronized} или
+ * {@link java.util.concurrent.ConcurrentHashMap#compute}. Кэши Caffeine
+ * загружают значения через {@link CallerThreadLoad}, вне своих мониторов.
+ * Внутри {@code compute} остались только короткие изменения в памяти без
+ * ожидания. Единственный известный монитор с вводом-выводом —
+ * {@link org.springframework.web.servlet.mvc.method.annotation.SseEmitter#send},
+ * и рассылка популярных фильмов поэтому всегда идёт в потоках платформы.
+ */
+@Configuration
+public class ThreadingConfiguration {
+
+    /**
+     * Вид фоновых потоков согласно {@code spring.threads.virtual.enabled}.
+     */
+    @Bean
+    public BackgroundThreads backgroundThreads(final Environment environment) {
+        return Threading.VIRTUAL.isActive(environment) ? BackgroundThreads.VIRTUAL : BackgroundThreads.PLATFORM;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Вспомогательные структуры данных и потоки приложения Filmorate.
+ */
+package ru.yandex.practicum.filmorate.util;
@@ -0,0 +1,55 @@
+CREATE TABLE IF NOT EXISTS mpa (
+    rating_id   INTEGER PRIMARY KEY,
+    name_rating VARCHAR(16) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS genre (
+    genre_id   INTEGER PRIMARY KEY,
+    name_genre VARCHAR(64) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(email)));
+ALTER TABLE users ADD COLUMN IF NOT EXISTS login_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(login)));
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_uq ON users (email_key);
+CREATE UNIQUE INDEX IF NOT EXISTS users_login_uq ON users (login_key);
+
+CREATE TABLE IF NOT EXISTS films (
+    film_id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200) NOT NULL,
+    release_date DATE NOT NULL,
+    duration     INTEGER,
+    rating_id    INTEGER REFERENCES mpa (rating_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_genre (
+    film_id  BIGINT NOT NULL REFERENCES films (film_id),
+    genre_id INTEGER NOT NULL REFERENCES genre (genre_id),
+    PRIMARY KEY (film_id, genre_id)
+);
+
+CREATE TABLE IF NOT EXISTS friendship (
+    request_friend_id  BIGINT NOT NULL REFERENCES users (user_id),
+    response_friend_id BIGINT NOT NULL REFERENCES users (user_id),
+    PRIMARY KEY (request_friend_id, response_friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendship_response_idx ON friendship (response_friend_id);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (film_id),
+    user_id BIGINT NOT NULL REFERENCES users (user_id),
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id);
+
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date, film_id);
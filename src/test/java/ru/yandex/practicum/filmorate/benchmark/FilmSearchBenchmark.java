@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.search.FilmTextIndex;
+import ru.yandex.practicum.filmorate.search.RussianAnalyzer;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка поиска в {@link FilmTextIndex} на 1 000 000 фильмов со словами
+ * из словаря в 50 000 слов с неравномерной частотой: частое, среднее
+ * и редкое слово, два слова и недописанное слово. При подготовке печатаются
+ * время построения индекса и оценка его памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final int FILMS = 1_000_000;
+    private static final int WORDS = 50_000;
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ле", "ст", "на", "зо", "ву", "ти", "гра",
+        "дом", "бе", "ль", "пу", "шк", "ор", "ян", "фи", "че", "до"};
+    private static final String[] ENDINGS = {"а", "ы", "ой", "ами", "ый", "ого", "е", "ом"};
+
+    @Param({"частое", "среднее", "редкое", "два слова", "префикс"})
+    private String query;
+
+    private FilmTextIndex index;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 0; s < 2 + i % 3; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.append(i).toString();
+        }
+
+        String[] names = new String[FILMS];
+        String[] descriptions = new String[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            names[i] = text(random, words, 2);
+            descriptions[i] = text(random, words, 10 + random.nextInt(15));
+        }
+
+        index = new FilmTextIndex(new RussianAnalyzer(), 64);
+        long started = System.nanoTime();
+        for (int i = 0; i < FILMS; i++) {
+            index.put(i + 1, names[i], descriptions[i]);
+        }
+        System.out.printf("%nПостроение: %d мс, %d слов, %d МБ%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), index.terms(),
+                index.sizeInBytes() >> 20);
+
+        String common = words[0];
+        String middle = words[100];
+        text = switch (query) {
+            case "частое" -> common + " ";
+            case "среднее" -> middle + " ";
+            case "редкое" -> words[20_000] + " ";
+            case "два слова" -> common + " " + middle + " ";
+            default -> middle.substring(0, 4);
+        };
+    }
+
+    /** Текст из слов словаря; слово с номером k встречается с частотой порядка 1 / sqrt(k). */
+    private static String text(SplittableRandom random, String[] words, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            double u = random.nextDouble();
+            text.append(words[(int) (WORDS * u * u * u)])
+                    .append(ENDINGS[random.nextInt(ENDINGS.length)])
+                    .append(' ');
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public long[] search() {
+        return index.search(text, 10);
+    }
+}
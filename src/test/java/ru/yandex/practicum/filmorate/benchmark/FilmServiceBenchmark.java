@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути {@link FilmService}: лайк, удаление лайка и список
+ * популярных фильмов на синтетическом наборе из {@code size} пользователей,
+ * {@code size / 10} фильмов и {@code size * 10} лайков, распределённых
+ * по закону Ципфа.
+ * <p>
+ * Лайк и удаление лайка меряются пачками по {@value #BATCH} операций:
+ * каждый поток работает от имени своего пользователя, которому перед
+ * итерацией снимаются (или ставятся) лайки на первые {@value #BATCH}
+ * фильмов, поэтому каждая операция в пачке успешна.
+ * Результат этих замеров — время всей пачки.
+ * Количество потоков задаётся параметром JMH {@code -t}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmServiceBenchmark {
+    static final int BATCH = 1000;
+    static final int MAX_THREADS = 64;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private FilmService service;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(filmStorage);
+        service = new FilmService(filmStorage, userStorage, likeStorage);
+        int films = Math.max(BATCH, size / 10);
+        new SyntheticDatasetGenerator(new SyntheticDatasetProperties(42, size + MAX_THREADS, films, 0,
+                size * 10L, 1.0, 1.1, 0.8))
+                .generate(userStorage, filmStorage, likeStorage::applyBatch);
+    }
+
+    /**
+     * Пользователь потока и курсор по фильмам для пачки лайков.
+     */
+    @State(Scope.Thread)
+    public static class LikeCursor {
+        long userId;
+        long filmId;
+
+        @Setup(Level.Iteration)
+        public void setUp(FilmServiceBenchmark benchmark, ThreadParams threads) {
+            userId = benchmark.size + 1L + threads.getThreadIndex();
+            for (long id = 1; id <= BATCH; id++) {
+                benchmark.service.disLike(id, userId);
+            }
+            filmId = 1;
+        }
+    }
+
+    /**
+     * Пользователь потока, которому перед итерацией поставлены лайки
+     * на первые {@value #BATCH} фильмов.
+     */
+    @State(Scope.Thread)
+    public static class DisLikeCursor {
+        long userId;
+        long filmId;
+
+        @Setup(Level.Iteration)
+        public void setUp(FilmServiceBenchmark benchmark, ThreadParams threads) {
+            userId = benchmark.size + 1L + threads.getThreadIndex();
+            List<LikeOperation> operations = new ArrayList<>(BATCH);
+            for (long id = 1; id <= BATCH; id++) {
+                operations.add(new LikeOperation(id, userId, LikeOperation.Action.LIKE));
+            }
+            benchmark.service.applyLikes(operations);
+            filmId = 1;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public void like(LikeCursor cursor) {
+        service.like(cursor.filmId++, cursor.userId);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public void disLike(DisLikeCursor cursor) {
+        service.disLike(cursor.filmId++, cursor.userId);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public List<Film> popularFilms() {
+        return service.popularFilms(10);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetProperties;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.service.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationsProperties;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбор рекомендаций друзей без кэша на синтетическом графе из {@code size}
+ * пользователей и {@code size * 10} дружб с распределением Ципфа.
+ * <p>
+ * {@code user}: {@code hub} — пользователь с наибольшим количеством друзей,
+ * {@code random} — случайный пользователь. {@code bounded}: с ограничениями
+ * обхода по умолчанию или без них.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendRecommendationsBenchmark {
+    @Param({"100000"})
+    private int size;
+
+    @Param({"hub", "random"})
+    private String user;
+
+    @Param({"true", "false"})
+    private boolean bounded;
+
+    private FriendRecommendations recommendations;
+    private long hubId;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        new SyntheticDatasetGenerator(new SyntheticDatasetProperties(42, size, 0, size * 10L,
+                0, 1.0, 1.1, 0.8))
+                .generate(userStorage, new InMemoryFilmStorage(), likes -> { });
+        for (long id = 1; id <= size; id++) {
+            if (userStorage.findFriendIds(id).length > userStorage.findFriendIds(Math.max(hubId, 1)).length) {
+                hubId = id;
+            }
+        }
+        FriendRecommendationsProperties defaults = FriendRecommendationsProperties.defaults();
+        int cap = bounded ? defaults.maxFriends() : Integer.MAX_VALUE;
+        // Нулевой срок жизни: каждый вызов считает кандидатов заново
+        recommendations = new FriendRecommendations(userStorage,
+                new FriendRecommendationsProperties(cap, cap, defaults.maxCandidates(), 1, Duration.ZERO),
+                new SimpleMeterRegistry());
+        System.out.printf("%nДрузей у самого популярного пользователя: %d%n",
+                userStorage.findFriendIds(hubId).length);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> recommend() {
+        return recommendations.recommend("hub".equals(user) ? hubId : 1 + random.nextInt(size), null);
+    }
+}
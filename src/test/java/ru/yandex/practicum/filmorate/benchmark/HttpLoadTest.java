@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест запущенного приложения: {@code clients} клиентов
+ * в течение {@code seconds} секунд без пауз отправляют запросы
+ * на случайный из переданных путей.
+ * <p>
+ * По умолчанию отправляется GET; другой метод указывается перед путём
+ * через двоеточие, например {@code PUT:/films/1/like/2}. Каждая звёздочка
+ * в пути заменяется случайным числом от 1 до {@code -Dids} (по умолчанию 1000).
+ * <p>
+ * Для сравнения потоков платформы и виртуальных потоков приложение
+ * запускается с {@code --spring.threads.virtual.enabled=false} и {@code true}
+ * при одинаковой нагрузке; заметная разница появляется, когда клиентов
+ * больше, чем потоков Tomcat ({@code server.tomcat.threads.max}, 200),
+ * а обработка запроса блокируется на вводе-выводе, например при
+ * {@code --filmorate.wal.enabled=true --filmorate.wal.fsync=always}.
+ * <p>
+ * Однократный замер, а не тест JMH: печатает пропускную способность
+ * и перцентили задержки. Первые {@code seconds / 5} секунд считаются
+ * прогревом и в результат не входят.
+ * Аргументы: базовый адрес, количество клиентов, длительность в секундах
+ * и пути, например {@code http://localhost:8080 32 30 /films/popular?count=10 /users/1/friends}.
+ */
+public class HttpLoadTest {
+    private static final int IDS = Integer.getInteger("ids", 1000);
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        int clients = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        List<String> targets = Arrays.asList(args).subList(3, args.length);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long started = System.nanoTime();
+        long warmupEnd = started + Duration.ofSeconds(seconds / 5).toNanos();
+        long end = started + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> run(client, baseUrl, targets, warmupEnd, end, errors)));
+            }
+        }
+
+        long[] latencies = results.stream()
+                .map(HttpLoadTest::join)
+                .flatMapToLong(Arrays::stream)
+                .sorted()
+                .toArray();
+        double measured = (end - warmupEnd) / 1e9;
+        System.out.printf("Запросов: %d, ошибок: %d, %.0f запросов/с%n",
+                latencies.length, errors.get(), latencies.length / measured);
+        if (latencies.length > 0) {
+            System.out.printf("Задержка, мкс: p50 %d, p90 %d, p99 %d, max %d%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1000);
+        }
+    }
+
+    private static long[] run(HttpClient client, String baseUrl, List<String> targets,
+                              long warmupEnd, long end, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < end) {
+            HttpRequest request = request(baseUrl, targets.get(random.nextInt(targets.size())), random);
+            long sent = now;
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+            now = System.nanoTime();
+            if (sent >= warmupEnd) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = now - sent;
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static HttpRequest request(String baseUrl, String target, ThreadLocalRandom random) {
+        int colon = target.indexOf(':');
+        String method = colon > 0 ? target.substring(0, colon) : "GET";
+        StringBuilder path = new StringBuilder(target.length() + 8);
+        for (char c : target.substring(colon + 1).toCharArray()) {
+            if (c == '*') {
+                path.append(1 + random.nextInt(IDS));
+            } else {
+                path.append(c);
+            }
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * quantile)] / 1000;
+    }
+}
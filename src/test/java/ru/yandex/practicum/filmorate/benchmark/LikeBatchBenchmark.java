@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность лайков через HTTP: {@value #OPERATIONS} отдельных
+ * запросов {@code PUT/DELETE /films/{id}/like/{userId}} против одного запроса
+ * {@code POST /films/likes/batch} с теми же операциями.
+ * <p>
+ * Приложение запускается целиком, вместе с Logbook; вывод логов в консоль
+ * отключён, чтобы не мешать отчёту JMH. Чётные вызовы ставят лайки,
+ * нечётные — убирают, поэтому каждая операция действительно меняет данные.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeBatchBenchmark {
+    private static final int OPERATIONS = 1000;
+    private static final int FILMS = 100;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String likeBatch;
+    private String unlikeBatch;
+    private boolean liked;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(FilmorateApplication.class,
+                "--server.port=0", "--logging.pattern.console=");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 0; i < FILMS; i++) {
+            filmService.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+        }
+        for (int i = 0; i < OPERATIONS / FILMS; i++) {
+            userService.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        likeBatch = batch("like");
+        unlikeBatch = batch("unlike");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int singleCalls() throws IOException, InterruptedException {
+        String method = liked ? "DELETE" : "PUT";
+        liked = !liked;
+        int status = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/films/" + filmId(i) + "/like/" + userId(i)))
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .build();
+            status += client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int batch() throws IOException, InterruptedException {
+        String body = liked ? unlikeBatch : likeBatch;
+        liked = !liked;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/films/likes/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String batch(String action) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"filmId\":").append(filmId(i))
+                    .append(",\"userId\":").append(userId(i))
+                    .append(",\"action\":\"").append(action).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static long filmId(int operation) {
+        return 1 + operation % FILMS;
+    }
+
+    private static long userId(int operation) {
+        return 1 + operation / FILMS;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Замер занимаемой памяти для 10 млн лайков: прежняя структура
+ * {@code Map<Long, Set<Long>>} против {@link InMemoryLikeStorage}.
+ * <p>
+ * Лайки распределены по {@value #FILMS} фильмам, каждый фильм лайкают
+ * случайные пользователи из {@value #USERS}.
+ * Запуск: {@code java -Xmx4g -cp <test-classpath> ru.yandex.practicum.filmorate.benchmark.LikeFootprintBenchmark}.
+ */
+public class LikeFootprintBenchmark {
+    private static final int FILMS = 100;
+    private static final int LIKES_PER_FILM = 100_000;
+    private static final int USERS = 1_000_000;
+
+    public static void main(String[] args) {
+        long base = usedHeap();
+        Map<Long, Set<Long>> boxed = new HashMap<>();
+        fill((filmId, userId) -> boxed.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId));
+        long boxedBytes = usedHeap() - base;
+        report("Map<Long, Set<Long>>", boxedBytes);
+        boxed.clear();
+
+        base = usedHeap();
+        InMemoryLikeStorage storage = new InMemoryLikeStorage(new InMemoryFilmStorage());
+        fill(storage::add);
+        long bitmapBytes = usedHeap() - base;
+        report("InMemoryLikeStorage", bitmapBytes);
+
+        if (storage.count(1) == 0) {
+            throw new IllegalStateException("Лайки не сохранены");
+        }
+    }
+
+    private static void fill(LikeSink sink) {
+        SplittableRandom random = new SplittableRandom(42);
+        long likes = 0;
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            for (int i = 0; i < LIKES_PER_FILM; i++) {
+                if (sink.add(filmId, 1 + random.nextInt(USERS))) {
+                    likes++;
+                }
+            }
+        }
+        System.out.printf("лайков: %d%n", likes);
+    }
+
+    private static void report(String name, long bytes) {
+        System.out.printf("%-22s %,d байт, %.1f байт на лайк%n",
+                name, bytes, (double) bytes / ((long) FILMS * LIKES_PER_FILM));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    private interface LikeSink {
+        boolean add(long filmId, long userId);
+    }
+}
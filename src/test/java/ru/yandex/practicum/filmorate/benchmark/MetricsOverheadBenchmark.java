@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена метрик на горячих путях: список популярных фильмов, общие друзья
+ * и список друзей без реестра метрик и с реестром Prometheus,
+ * публикующим гистограммы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"none", "prometheus"})
+    private String registry;
+
+    private FilmService filmService;
+    private UserService userService;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = "prometheus".equals(registry)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(filmStorage);
+        filmService = new FilmService(filmStorage, userStorage, likeStorage, meterRegistry);
+        userService = new UserService(userStorage, meterRegistry);
+        new SyntheticDatasetGenerator(new SyntheticDatasetProperties(42, USERS, 1000, USERS * 10L,
+                USERS * 10L, 1.0, 1.1, 0.8))
+                .generate(userStorage, filmStorage, likeStorage::applyBatch);
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return filmService.popularFilms(10);
+    }
+
+    @Benchmark
+    public List<User> mutualFriends() {
+        return userService.mutualFriends(1L + random.nextInt(USERS), 1L + random.nextInt(USERS));
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(1L + random.nextInt(USERS));
+    }
+}
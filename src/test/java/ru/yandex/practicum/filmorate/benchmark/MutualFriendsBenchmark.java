@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение поиска общих друзей: прежний фильтр с повторной загрузкой
+ * списка друзей второго пользователя против пересечения отсортированных
+ * множеств в {@link UserService#mutualFriends(Long, Long)}.
+ * <p>
+ * У двух пользователей по {@code friends} друзей, половина из них общие.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutualFriendsBenchmark {
+    @Param({"100", "1000", "5000"})
+    private int friends;
+
+    private UserService service;
+
+    @Setup
+    public void setUp() {
+        service = new UserService(new InMemoryUserStorage());
+        int users = 2 + friends * 3 / 2;
+        for (int i = 0; i < users; i++) {
+            service.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (long i = 0; i < friends; i++) {
+            service.addFriend(1L, 3 + i);
+            service.addFriend(2L, 3 + friends / 2 + i);
+        }
+    }
+
+    @Benchmark
+    public List<User> filterByFriendList() {
+        return service.getFriends(1L).stream()
+                .filter(friend -> service.getFriends(2L).contains(friend))
+                .toList();
+    }
+
+    @Benchmark
+    public List<User> sortedIntersection() {
+        return service.mutualFriends(1L, 2L);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.like.PopularityIndex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение выборки популярных фильмов: полная сортировка карты лайков
+ * (прежняя реализация {@code FilmService.popularFilms}) против {@link PopularityIndex}.
+ * <p>
+ * Запуск: {@code java -cp <test-classpath> org.openjdk.jmh.Main PopularFilmsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopularFilmsBenchmark {
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"10"})
+    private int count;
+
+    private final Map<Long, Set<Long>> likesByFilm = new HashMap<>();
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            int likes = 1 + random.nextInt(50);
+            Set<Long> users = new HashSet<>();
+            for (long userId = 1; userId <= likes; userId++) {
+                users.add(userId);
+            }
+            popularityIndex.set(filmId, likes);
+            likesByFilm.put(filmId, users);
+        }
+    }
+
+    @Benchmark
+    public List<Long> fullSort() {
+        return likesByFilm.entrySet().stream()
+                .sorted((e1, e2) -> Integer.compare(e2.getValue().size(), e1.getValue().size()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Long> popularityIndex() {
+        return popularityIndex.top(count);
+    }
+}
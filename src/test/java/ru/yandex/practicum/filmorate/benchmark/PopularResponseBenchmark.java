@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCacheProperties;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ответ {@code GET /films/popular}: построение списка и сериализация
+ * Jackson при каждом запросе против готовых байтов {@link PopularFilmsCache}.
+ * Данные не меняются, поэтому кэш всегда попадает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularResponseBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 1000;
+    private static final int LIKES = 100_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"10", "100"})
+    private int count;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private FilmService service;
+    private PopularFilmsCache cache;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        service = new FilmService(filmStorage, userStorage, new InMemoryLikeStorage(filmStorage));
+        cache = new PopularFilmsCache(service, objectMapper,
+                new PopularFilmsCacheProperties(Duration.ofSeconds(1), 16));
+        for (int i = 0; i < FILMS; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<LikeOperation> likes = new ArrayList<>(LIKES);
+        for (int i = 0; i < LIKES; i++) {
+            likes.add(new LikeOperation(1L + random.nextInt(FILMS), 1L + random.nextInt(USERS),
+                    LikeOperation.Action.LIKE));
+        }
+        for (int from = 0; from < LIKES; from += BATCH) {
+            service.applyLikes(likes.subList(from, from + BATCH));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public byte[] serializeEachTime() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(service.popularFilms(count));
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get(count).json();
+    }
+}
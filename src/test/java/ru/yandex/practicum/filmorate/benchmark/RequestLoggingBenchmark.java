@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.core.BodyFilters;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+import org.zalando.logbook.core.DefaultSink;
+import org.zalando.logbook.json.JsonHttpLogFormatter;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.logging.RequestLoggingConfiguration;
+import ru.yandex.practicum.filmorate.logging.RequestLoggingProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журналирования запросов в потоке запроса: фильтр Logbook
+ * обрабатывает GET-запрос с JSON-ответом размером около 8 КБ,
+ * журнал пишется в файл.
+ * <ul>
+ *     <li>{@code off} — без фильтра Logbook, точка отсчёта;</li>
+ *     <li>{@code trace-sync} — настройки по умолчанию: каждый запрос
+ *     форматируется и пишется в журнал синхронно;</li>
+ *     <li>{@code async} — каждый запрос, запись в фоновом потоке;</li>
+ *     <li>{@code prod} — профиль {@code prod}: 1% запросов, тела
+ *     до 1 КБ, запись в фоновом потоке.</li>
+ * </ul>
+ * Количество потоков задаётся параметром JMH {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLoggingBenchmark {
+    @Param({"off", "trace-sync", "async", "prod"})
+    private String mode;
+
+    private boolean off;
+    private byte[] body;
+    private LogbookFilter filter;
+    private AsyncHttpLogWriter asyncWriter;
+    private SimpleMeterRegistry meterRegistry;
+    private FileAppender<ILoggingEvent> appender;
+    private Path logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < 8192; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i)
+                    .append(",\"email\":\"user").append(i).append("@mail.ru\",\"login\":\"Login").append(i)
+                    .append("\",\"name\":\"Name\",\"birthday\":\"2000-01-01\",\"friends\":[1,2,3]}");
+        }
+        body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        logFile = Files.createTempFile("request-logging", ".log");
+        configureLogback();
+
+        off = "off".equals(mode);
+        meterRegistry = new SimpleMeterRegistry();
+        boolean prod = "prod".equals(mode);
+        HttpLogWriter writer = "trace-sync".equals(mode)
+                ? new DefaultHttpLogWriter()
+                : (asyncWriter = new AsyncHttpLogWriter(10_000, meterRegistry));
+        var builder = Logbook.builder()
+                .condition(new RequestLoggingConfiguration()
+                        .requestCondition(new RequestLoggingProperties(prod ? 0.01 : 1.0, !prod, 10_000)))
+                .sink(new DefaultSink(new JsonHttpLogFormatter(), writer));
+        if (prod) {
+            builder.bodyFilter(BodyFilters.truncate(1024));
+        }
+        filter = new LogbookFilter(builder.build());
+    }
+
+    private void configureLogback() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} %5p --- [%t] %logger{39} : %m%n");
+        encoder.start();
+        appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(logFile.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).addAppender(appender);
+        context.getLogger("org.zalando.logbook").setLevel(Level.TRACE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+            System.out.printf("%nОтброшено сообщений: %.0f%n",
+                    meterRegistry.get("filmorate.request.log.dropped").counter().count());
+        }
+        appender.stop();
+        System.out.printf("Размер журнала: %d КБ%n", Files.size(logFile) >> 10);
+        Files.delete(logFile);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse request() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/9000/friends/common/5000");
+        request.addHeader("Accept", "application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (servletRequest, servletResponse) -> {
+            servletResponse.setContentType("application/json");
+            servletResponse.getOutputStream().write(body);
+        };
+        if (off) {
+            chain.doFilter(request, response);
+        } else {
+            filter.doFilter(request, response, chain);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.FsyncPolicy;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotScheduler;
+import ru.yandex.practicum.filmorate.storage.wal.WalProperties;
+import ru.yandex.practicum.filmorate.storage.wal.WalReplayer;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время запуска хранилищ в памяти: полное воспроизведение журнала против
+ * загрузки снимка и воспроизведения хвоста журнала, записанного после него.
+ * <p>
+ * Однократный замер, а не тест JMH: каждый запуск восстанавливает
+ * хранилища один раз, как при перезапуске приложения.
+ * Аргументы: количество пользователей, лайков, фильмов, дружб и изменений
+ * в хвосте журнала (по умолчанию 1 000 000, 10 000 000, 10 000, 1 000 000
+ * и 100 000). Запускать с кучей не меньше 3 ГБ.
+ */
+public class RestartBenchmark {
+    private static final int CHUNK_SIZE = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        int users = argument(args, 0, 1_000_000);
+        long likes = argument(args, 1, 10_000_000);
+        int films = argument(args, 2, 10_000);
+        int friendships = argument(args, 3, 1_000_000);
+        int tail = argument(args, 4, 100_000);
+        SplittableRandom random = new SplittableRandom(42);
+
+        Path dir = Files.createTempDirectory("restart-benchmark");
+        try {
+            WalProperties properties = new WalProperties(true, dir.resolve("filmorate.wal"), FsyncPolicy.NEVER,
+                    Duration.ofMillis(100), dir.resolve("filmorate.snapshot"), Duration.ZERO);
+
+            Storages source = Storages.open(properties);
+            long started = System.nanoTime();
+            fill(source, random, users, likes, films, friendships);
+            source.wal().close();
+            source = null;
+            System.out.printf("Заполнение: %d мс, журнал %d МБ%n", millis(started), megabytes(dir));
+
+            started = System.nanoTime();
+            Storages cold = Storages.open(properties);
+            System.out.printf("Полное воспроизведение журнала: %d мс%n", millis(started));
+
+            started = System.nanoTime();
+            cold.snapshots().snapshot();
+            System.out.printf("Запись снимка: %d мс, снимок %d МБ%n", millis(started),
+                    Files.size(properties.snapshotPath()) >> 20);
+            for (int i = 0; i < tail; i++) {
+                long filmId = 1 + random.nextInt(films);
+                long userId = 1 + random.nextInt(users);
+                if (!cold.likes().add(filmId, userId)) {
+                    cold.likes().remove(filmId, userId);
+                }
+            }
+            cold.wal().close();
+            cold = null;
+
+            started = System.nanoTime();
+            Storages warm = Storages.open(properties);
+            System.out.printf("Снимок и хвост журнала (%d изменений): %d мс%n", tail, millis(started));
+            warm.wal().close();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void fill(Storages storages, SplittableRandom random,
+                             int users, long likes, int films, int friendships) {
+        List<Film> newFilms = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            newFilms.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 5000))
+                    .duration(90 + i % 60)
+                    .build());
+        }
+        storages.films().addAll(newFilms);
+
+        for (int from = 0; from < users; from += CHUNK_SIZE) {
+            List<User> newUsers = new ArrayList<>(CHUNK_SIZE);
+            for (int i = from; i < Math.min(users, from + CHUNK_SIZE); i++) {
+                newUsers.add(User.builder()
+                        .email("user" + i + "@mail.ru")
+                        .login("Login" + i)
+                        .name("Name" + i)
+                        .birthday(LocalDate.of(1970, 1, 1).plusDays(i % 15000))
+                        .build());
+            }
+            storages.users().addAll(newUsers);
+        }
+
+        for (int i = 0; i < friendships; i++) {
+            long userId = 1 + random.nextInt(users);
+            long friendId = 1 + random.nextInt(users);
+            if (userId != friendId) {
+                storages.users().addFriend(userId, friendId);
+            }
+        }
+
+        for (long done = 0; done < likes; done += CHUNK_SIZE) {
+            List<LikeOperation> operations = new ArrayList<>(CHUNK_SIZE);
+            for (int i = 0; i < Math.min(CHUNK_SIZE, likes - done); i++) {
+                operations.add(new LikeOperation(1L + random.nextInt(films), 1L + random.nextInt(users),
+                        LikeOperation.Action.LIKE));
+            }
+            storages.likes().applyBatch(operations);
+        }
+    }
+
+    private static int argument(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private static long millis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private static long megabytes(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            long bytes = 0;
+            for (Path file : files.toList()) {
+                bytes += Files.size(file);
+            }
+            return bytes >> 20;
+        }
+    }
+
+    /**
+     * Хранилища, восстановленные из журнала и снимка.
+     */
+    private record Storages(WriteAheadLog wal,
+                            InMemoryFilmStorage films,
+                            InMemoryUserStorage users,
+                            InMemoryLikeStorage likes,
+                            SnapshotScheduler snapshots) {
+
+        static Storages open(WalProperties properties) {
+            WriteAheadLog wal = new WriteAheadLog(properties.path(), properties.fsync(), properties.fsyncInterval());
+            InMemoryFilmStorage films = new InMemoryFilmStorage(wal);
+            InMemoryUserStorage users = new InMemoryUserStorage(wal);
+            InMemoryLikeStorage likes = new InMemoryLikeStorage(films, wal);
+            new WalReplayer(wal, properties, films, users, likes).recover();
+            return new Storages(wal, films, users, likes, new SnapshotScheduler(wal, properties, films, users, likes));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.SimilarFilmsProperties;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Похожие фильмы: чтение готовой строки индекса против подсчёта совместных
+ * лайков при каждом запросе, а также цена инкрементального обновления
+ * индекса при лайке и его удалении. 10 000 фильмов, 100 000 пользователей,
+ * 1 000 000 лайков; популярность фильмов неравномерна.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SimilarFilmsBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 100_000;
+    private static final int LIKES = 1_000_000;
+    private static final int BATCH = 10_000;
+
+    private InMemoryLikeStorage likeStorage;
+    private FilmService service;
+    private SimilarFilms similarFilms;
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        likeStorage = new InMemoryLikeStorage(filmStorage);
+        service = new FilmService(filmStorage, userStorage, likeStorage);
+        similarFilms = new SimilarFilms(service, filmStorage, likeStorage, new SimilarFilmsProperties(
+                SimilarFilmsProperties.Mode.INCREMENTAL, 20, 80, 500, Duration.ZERO),
+                BackgroundThreads.PLATFORM, new SimpleMeterRegistry());
+        for (int i = 0; i < FILMS; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        SplittableRandom data = new SplittableRandom(42);
+        List<LikeOperation> likes = new ArrayList<>(BATCH);
+        for (int i = 0; i < LIKES; i++) {
+            likes.add(new LikeOperation(film(data), 1L + data.nextInt(USERS), LikeOperation.Action.LIKE));
+            if (likes.size() == BATCH) {
+                likeStorage.applyBatch(likes);
+                likes.clear();
+            }
+        }
+        long started = System.nanoTime();
+        similarFilms.start();
+        System.out.printf("%nПерестроение индекса: %d мс%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @TearDown
+    public void tearDown() {
+        similarFilms.stop();
+    }
+
+    @Benchmark
+    public List<Film> indexed() {
+        return similarFilms.find(film(random), 10);
+    }
+
+    /**
+     * Подсчёт совместных лайков по лайкам всех фильмов при каждом запросе.
+     */
+    @Benchmark
+    public long[] scan() {
+        long[] likers = likeStorage.likedUserIds(film(random));
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long other : likeStorage.likedFilmIds()) {
+            int common = 0;
+            for (long userId : likeStorage.likedUserIds(other)) {
+                if (Arrays.binarySearch(likers, userId) >= 0) {
+                    common++;
+                }
+            }
+            if (common > 0) {
+                counts.put(other, common);
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(10)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        long filmId = film(random);
+        long userId = 1L + random.nextInt(USERS);
+        if (likeStorage.contains(filmId, userId)) {
+            return;
+        }
+        service.like(filmId, userId);
+        service.disLike(filmId, userId);
+    }
+
+    /** Фильм с неравномерной популярностью: младшие id выбираются чаще. */
+    private static long film(SplittableRandom random) {
+        double u = random.nextDouble();
+        return 1L + (long) (FILMS * u * u);
+    }
+}
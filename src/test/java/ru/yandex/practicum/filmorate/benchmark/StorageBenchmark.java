@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Добавление в хранилища в памяти, уже содержащие {@code size} записей.
+ * <p>
+ * Хранилища создаются и заполняются заново перед каждой итерацией,
+ * чтобы их размер не рос от итерации к итерации.
+ * Количество потоков задаётся параметром JMH {@code -t}. Почта и логин
+ * пользователей уникальны, как того требует хранилище.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+    /** Номер следующего пользователя для уникальных почты и логина. */
+    private static final AtomicLong USER_NUMBER = new AtomicLong();
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        List<Film> films = new ArrayList<>(size);
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            films.add(film());
+            users.add(user());
+        }
+        filmStorage.addAll(films);
+        userStorage.addAll(users);
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return filmStorage.add(film());
+    }
+
+    @Benchmark
+    public User addUser() {
+        return userStorage.add(user());
+    }
+
+    private static Film film() {
+        return Film.builder()
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .build();
+    }
+
+    private static User user() {
+        long number = USER_NUMBER.incrementAndGet();
+        return User.builder()
+                .email("user" + number + "@mail.ru")
+                .login("Login" + number)
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
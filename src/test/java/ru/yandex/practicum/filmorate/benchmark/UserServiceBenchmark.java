@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.SyntheticDatasetProperties;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути {@link UserService}: добавление в друзья, список друзей
+ * и общие друзья на синтетическом графе из {@code size} пользователей
+ * и {@code size * 10} дружб, популярность пользователей в котором
+ * распределена по закону Ципфа.
+ * <p>
+ * Добавление в друзья меряется пачками по {@value #BATCH} операций:
+ * каждый поток работает от имени своего пользователя, у которого перед
+ * итерацией удаляются друзья, добавленные в предыдущей.
+ * Результат этих замеров — время всей пачки.
+ * Количество потоков задаётся параметром JMH {@code -t}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+    static final int BATCH = 1000;
+    static final int MAX_THREADS = 64;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private UserService service;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        service = new UserService(userStorage);
+
+        new SyntheticDatasetGenerator(new SyntheticDatasetProperties(42, size + MAX_THREADS, 0, size * 10L,
+                0, 1.0, 1.1, 0.8))
+                .generate(userStorage, new InMemoryFilmStorage(), likes -> { });
+    }
+
+    /**
+     * Пользователь потока и курсор по будущим друзьям.
+     */
+    @State(Scope.Thread)
+    public static class FriendCursor {
+        long userId;
+        long friendId;
+
+        @Setup(Level.Iteration)
+        public void setUp(UserServiceBenchmark benchmark, ThreadParams threads) {
+            userId = benchmark.size + 1L + threads.getThreadIndex();
+            for (long id = 1; id <= BATCH; id++) {
+                benchmark.service.deleteFriend(userId, id);
+            }
+            friendId = 1;
+        }
+    }
+
+    /**
+     * Генератор случайных пользователей потока.
+     */
+    @State(Scope.Thread)
+    public static class Ids {
+        SplittableRandom random;
+        int size;
+
+        @Setup
+        public void setUp(UserServiceBenchmark benchmark, ThreadParams threads) {
+            random = new SplittableRandom(threads.getThreadIndex());
+            size = benchmark.size;
+        }
+
+        long next() {
+            return 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public List<User> addFriend(FriendCursor cursor) {
+        return service.addFriend(cursor.userId, cursor.friendId++);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public List<User> getFriends(Ids ids) {
+        return service.getFriends(ids.next());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public List<User> mutualFriends(Ids ids) {
+        return service.mutualFriends(ids.next(), ids.next());
+    }
+}
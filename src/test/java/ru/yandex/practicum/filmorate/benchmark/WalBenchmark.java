@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.wal.FsyncPolicy;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Пропускная способность изменений лайков при разных режимах хранения:
+ * только память ({@code memory}), журнал с политиками сброса на диск
+ * {@code never}, {@code interval} и {@code always}, а для сравнения —
+ * база H2 в файле ({@code h2}), где каждое изменение — отдельная транзакция.
+ * <p>
+ * Каждая операция ставит или убирает лайк случайной пары фильм–пользователь.
+ * Восемь потоков позволяют журналу объединять записи в группы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WalBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 1000;
+
+    @Param({"memory", "never", "interval", "always", "h2"})
+    private String mode;
+
+    private Path dir;
+    private WriteAheadLog wal;
+    private HikariDataSource dataSource;
+    private LikeStorage storage;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal-benchmark");
+        switch (mode) {
+            case "memory" -> storage = new InMemoryLikeStorage(new InMemoryFilmStorage(), MutationLog.NOOP);
+            case "h2" -> storage = new LikeDbStorage(h2());
+            default -> {
+                FsyncPolicy policy = FsyncPolicy.valueOf(mode.toUpperCase());
+                wal = new WriteAheadLog(dir.resolve("filmorate.wal"), policy, Duration.ofMillis(100));
+                storage = new InMemoryLikeStorage(new InMemoryFilmStorage(wal), wal);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean toggleLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        return storage.add(filmId, userId) || storage.remove(filmId, userId);
+    }
+
+    private JdbcTemplate h2() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:" + dir.resolve("filmorate"));
+        dataSource.setUsername("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date) "
+                + "SELECT 'Film' || x, 'Description', DATE '2000-01-01' FROM SYSTEM_RANGE(1, ?)", FILMS);
+        jdbcTemplate.update("INSERT INTO users (email, login) "
+                + "SELECT 'user' || x || '@mail.ru', 'Login' || x FROM SYSTEM_RANGE(1, ?)", USERS);
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Те же проверки, что и в {@link FilmControllerTest}, но поверх хранилищ в базе данных.
+ */
+@ActiveProfiles("db")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:filmorate;DB_CLOSE_DELAY=-1")
+public class FilmControllerDbTest extends FilmControllerTest {
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected FilmStorage createFilmStorage() {
+        jdbcTemplate = new JdbcTemplate(new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build());
+        return new FilmDbStorage(jdbcTemplate);
+    }
+
+    @Override
+    protected UserStorage createUserStorage() {
+        return new UserDbStorage(jdbcTemplate);
+    }
+
+    @Override
+    protected LikeStorage createLikeStorage(final FilmStorage filmStorage) {
+        return new LikeDbStorage(jdbcTemplate);
+    }
+}
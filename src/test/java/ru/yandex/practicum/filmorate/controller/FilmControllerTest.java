@@ -1,6 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import org.junit.jupiter.api.Disabled;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
@@ -8,6 +8,7 @@ import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -15,9 +16,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.function.Function;
@@ -26,11 +30,25 @@ import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.NdjsonWriter;
+import ru.yandex.practicum.filmorate.service.FilmSearch;
+import ru.yandex.practicum.filmorate.service.FilmSearchProperties;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCacheProperties;
+import ru.yandex.practicum.filmorate.service.PopularFilmsStream;
+import ru.yandex.practicum.filmorate.service.PopularFilmsStreamProperties;
+import ru.yandex.practicum.filmorate.service.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.SimilarFilmsProperties;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-@Disabled
 @SpringBootTest
 @AutoConfigureMockMvc
 public class FilmControllerTest {
@@ -38,16 +56,29 @@ public class FilmControllerTest {
     private MockMvc mockMvc;
 
     private FilmController controller;
+    private UserStorage userStorage;
+    private ObjectMapper objectMapper;
     private Film film;
     private Film film1;
     private Film film2;
 
     @BeforeEach
     public void beforeEach() {
-        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
-        InMemoryUserStorage userStorage = new InMemoryUserStorage();
-        FilmService service = new FilmService(filmStorage, userStorage);
-        controller = new FilmController(service);
+        FilmStorage filmStorage = createFilmStorage();
+        userStorage = createUserStorage();
+        LikeStorage likeStorage = createLikeStorage(filmStorage);
+        FilmService service = new FilmService(filmStorage, userStorage, likeStorage);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        PopularFilmsCache popularFilmsCache = new PopularFilmsCache(service, objectMapper,
+                new PopularFilmsCacheProperties(Duration.ZERO, 16));
+        controller = new FilmController(service, popularFilmsCache, new NdjsonWriter(objectMapper),
+                new PopularFilmsStream(service, objectMapper, new PopularFilmsStreamProperties(Duration.ofMillis(10),
+                        Duration.ofSeconds(10), Duration.ofMinutes(1), 100, 100, 4), BackgroundThreads.PLATFORM,
+                        new SimpleMeterRegistry()),
+                new SimilarFilms(service, filmStorage, likeStorage, new SimilarFilmsProperties(
+                        SimilarFilmsProperties.Mode.INCREMENTAL, 20, 80, 500, Duration.ZERO),
+                        BackgroundThreads.PLATFORM, new SimpleMeterRegistry()),
+                new FilmSearch(service, filmStorage, new FilmSearchProperties(100, 64), new SimpleMeterRegistry()));
         film = Film.builder()
                 .name("Name")
                 .description("Description")
@@ -70,6 +101,28 @@ public class FilmControllerTest {
                 .build();
     }
 
+    /**
+     * Создаёт хранилище фильмов, с которым работает тестируемый контроллер.
+     * Вызывается первым из методов создания хранилищ.
+     */
+    protected FilmStorage createFilmStorage() {
+        return new InMemoryFilmStorage();
+    }
+
+    /**
+     * Создаёт хранилище пользователей.
+     */
+    protected UserStorage createUserStorage() {
+        return new InMemoryUserStorage();
+    }
+
+    /**
+     * Создаёт хранилище лайков поверх хранилища фильмов.
+     */
+    protected LikeStorage createLikeStorage(final FilmStorage filmStorage) {
+        return new InMemoryLikeStorage(filmStorage);
+    }
+
     @Test
     @DisplayName("тест создания фильма")
     void testCreate() {
@@ -80,6 +133,17 @@ public class FilmControllerTest {
         assertEquals(1, films.size(), "Неверное количество фильмов");
     }
 
+    @Test
+    @DisplayName("тест создания фильма без продолжительности")
+    void testCreateWithoutDuration() {
+        film.setDuration(null);
+        Film added = controller.add(film);
+
+        assertEquals(List.of(added.getId()), controller.findAll().stream().map(Film::getId).toList(),
+                "Фильм без продолжительности не сохранён");
+        assertNull(controller.findAll().iterator().next().getDuration(), "Неверная продолжительность");
+    }
+
     @Test
     @DisplayName("тест создания фильма с отсутствующим названием")
     void testCreateNullName() throws Exception {
@@ -151,6 +215,41 @@ public class FilmControllerTest {
         assertEquals(film1, films.get(1L), "Фильм не совпадает");
     }
 
+    @Test
+    @DisplayName("тест лайков и списка популярных фильмов")
+    void testLikesAndPopular() throws Exception {
+        controller.add(film);
+        controller.add(Film.builder()
+                .name("Other")
+                .description("Description")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(90)
+                .build());
+        for (int i = 0; i < 2; i++) {
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+
+        controller.like(2L, 1L);
+        controller.like(2L, 2L);
+        controller.like(1L, 1L);
+        assertThrows(ConditionsNotMetException.class, () -> controller.like(1L, 1L), "Лайк поставлен дважды");
+        assertEquals(List.of(2L, 1L), popularIds(2), "Неверный порядок популярных фильмов");
+
+        controller.disLike(2L, 1L);
+        controller.disLike(2L, 2L);
+        assertEquals(1L, popularIds(2).get(0), "Удалённые лайки учтены в популярности");
+    }
+
+    private List<Long> popularIds(final int count) throws Exception {
+        return Arrays.stream(objectMapper.readValue(controller.popularFilms(count).getBody(), Film[].class))
+                .map(Film::getId)
+                .toList();
+    }
+
     @Test
     @DisplayName("тест обновления когда номер id некорректен")
     void testUpdateFail() {
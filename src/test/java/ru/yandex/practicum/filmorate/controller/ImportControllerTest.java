@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ImportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("тест импорта фильмов из NDJSON с отчётом об ошибках")
+    void testImportFilmsNdjson() throws Exception {
+        String films = """
+                {"name": "Film0", "description": "Description", "releaseDate": "2000-01-01", "duration": 100}
+                {"name": "", "description": "Description", "releaseDate": "2000-01-01", "duration": 100}
+                {"name": "Film2", "description": "Description", "releaseDate": "1800-01-01", "duration": 100}
+                {"name": "Film3", "description": "Description", "releaseDate": "не дата", "duration": 100}
+                {"name": "Film4", "description": "Description", "releaseDate": "2000-01-01", "duration": 100}
+                """;
+
+        mockMvc.perform(post("/films/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(films))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[0].position").value(1))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value("Название фильма не указано"))
+                .andExpect(jsonPath("$.errors[1].position").value(2))
+                .andExpect(jsonPath("$.errors[1].messages[0]").value(
+                        "Дата релиза должна быть не раньше 28 декабря 1895 года"))
+                .andExpect(jsonPath("$.errors[2].position").value(3));
+    }
+
+    @Test
+    @DisplayName("тест импорта пользователей из массива JSON")
+    void testImportUsersJsonArray() throws Exception {
+        String users = """
+                [
+                  {"email": "user0@mail.ru", "login": "Login0", "birthday": "2000-01-01"},
+                  {"email": "не почта", "login": "Login1", "birthday": "2000-01-01"},
+                  {"email": "user2@mail.ru", "login": "Login2", "name": "Name2", "birthday": "2000-01-01"}
+                ]
+                """;
+
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].position").value(1))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value("Некорректный формат электронной почты"));
+
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"email\": "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("тест отклонения повторяющихся почты и логина внутри импорта")
+    void testImportUsersRepeatedKeys() throws Exception {
+        String users = """
+                {"email": "user0@mail.ru", "login": "Login0", "birthday": "2000-01-01"}
+                {"email": "USER0@Mail.ru", "login": "Login1", "birthday": "2000-01-01"}
+                {"email": "user2@mail.ru", "login": "login0", "birthday": "2000-01-01"}
+                {"email": "user3@mail.ru", "login": "Login1", "birthday": "2000-01-01"}
+                """;
+
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0].position").value(1))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value(
+                        "Электронная почта USER0@Mail.ru повторяется в данных импорта"))
+                .andExpect(jsonPath("$.errors[1].position").value(2))
+                .andExpect(jsonPath("$.errors[1].messages[0]").value("Логин login0 повторяется в данных импорта"));
+    }
+}
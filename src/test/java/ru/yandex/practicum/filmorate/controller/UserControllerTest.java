@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
@@ -10,10 +11,13 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -25,8 +29,10 @@ import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.NdjsonWriter;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -34,7 +40,7 @@ public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    private InMemoryUserStorage storage;
+    private UserStorage storage;
     private UserService service;
     private UserController controller;
     private User user;
@@ -43,9 +49,9 @@ public class UserControllerTest {
 
     @BeforeEach
     public void beforeEach() {
-        storage = new InMemoryUserStorage();
+        storage = createStorage();
         service = new UserService(storage);
-        controller = new UserController(service);
+        controller = new UserController(service, new NdjsonWriter(new ObjectMapper()));
         user = User.builder()
                 .email("email@mail.ru")
                 .login("Login")
@@ -68,6 +74,13 @@ public class UserControllerTest {
                 .build();
     }
 
+    /**
+     * Создаёт хранилище, с которым работает тестируемый контроллер.
+     */
+    protected UserStorage createStorage() {
+        return new InMemoryUserStorage();
+    }
+
     @Test
     @DisplayName("тест создания пользователя")
     void testCreate() {
@@ -104,7 +117,7 @@ public class UserControllerTest {
                 "\"email\": \"email@mail.ru\", " +
                 "\"login\": \"Login\", " +
                 "\"name\": \"NameUser\", " +
-                "\"birthday\": \"2026-02-02\"" +
+                "\"birthday\": \"" + LocalDate.now().plusYears(1) + "\"" +
                 "}";
         mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -165,4 +178,60 @@ public class UserControllerTest {
         assertEquals(1, users.size(), "Неверное количество пользователей");
         assertTrue(users.containsKey(1L), "Пользователь не совпадает");
     }
+
+    @Test
+    @DisplayName("тест уникальности и поиска по электронной почте и логину")
+    void testUniqueEmailAndLogin() {
+        controller.add(user);
+        User other = controller.add(User.builder()
+                .email("other@mail.ru")
+                .login("Other")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build());
+
+        assertEquals(other.getId(), controller.findByEmail(" OTHER@mail.ru").getId(), "Не найден по почте");
+        assertEquals(other.getId(), controller.findByLogin("other").getId(), "Не найден по логину");
+        assertThrows(NotFoundException.class, () -> controller.findByLogin("Nobody"), "Найден несуществующий");
+
+        User sameEmail = User.builder().email("Email@Mail.ru").login("Login2").build();
+        assertThrows(ConditionsNotMetException.class, () -> controller.add(sameEmail), "Почта повторилась");
+        User sameLogin = User.builder().email("email2@mail.ru").login("login").build();
+        assertThrows(ConditionsNotMetException.class, () -> controller.add(sameLogin), "Логин повторился");
+        assertEquals(2, controller.findAll().size(), "Добавлен пользователь с занятыми почтой или логином");
+
+        other.setLogin("LOGIN");
+        assertThrows(ConditionsNotMetException.class, () -> controller.update(other), "Логин занят при обновлении");
+        controller.update(User.builder().id(other.getId()).email("renamed@mail.ru").login("Other").build());
+        assertThrows(NotFoundException.class, () -> controller.findByEmail("other@mail.ru"), "Прежняя почта занята");
+        controller.add(User.builder().email("other@mail.ru").login("Other2").build());
+        assertEquals(other.getId(), controller.findByLogin("Other").getId(), "Логин потерян при обновлении");
+    }
+
+    @Test
+    @DisplayName("тест постраничного получения пользователей по курсору")
+    void testFindPage() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            String userJson = "{ " +
+                    "\"email\": \"page" + i + "@mail.ru\", " +
+                    "\"login\": \"Page" + i + "\", " +
+                    "\"birthday\": \"2000-02-02\"" +
+                    "}";
+            mockMvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(userJson))
+                    .andExpect(status().isOk());
+        }
+
+        String cursor = mockMvc.perform(get("/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists(UserController.NEXT_CURSOR_HEADER))
+                .andReturn()
+                .getResponse()
+                .getHeader(UserController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/users").param("limit", "2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(Long.parseLong(cursor) + 1));
+    }
 }
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SyntheticDatasetGeneratorTest {
+
+    private static SyntheticDatasetProperties properties(long seed) {
+        return new SyntheticDatasetProperties(seed, 2000, 500, 20_000, 50_000, 1.0, 1.1, 0.8);
+    }
+
+    private static Dataset generate(long seed) {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(filmStorage);
+        SyntheticDatasetGenerator.Summary summary = new SyntheticDatasetGenerator(properties(seed))
+                .generate(userStorage, filmStorage, likeStorage::applyBatch);
+        return new Dataset(summary, userStorage, likeStorage);
+    }
+
+    @Test
+    @DisplayName("тест воспроизводимости набора данных по seed")
+    void testReproducible() {
+        Dataset first = generate(7);
+        Dataset second = generate(7);
+        Dataset other = generate(8);
+
+        assertEquals(2000, first.summary().users(), "Неверное количество пользователей");
+        assertEquals(500, first.summary().films(), "Неверное количество фильмов");
+        assertEquals(popular(first), popular(second), "Популярные фильмы различаются при одном seed");
+        for (long id = 1; id <= 50; id++) {
+            assertEquals(friends(first, id), friends(second, id), "Друзья различаются при одном seed");
+        }
+        assertNotEquals(popular(first), popular(other), "Популярные фильмы совпадают при разных seed");
+    }
+
+    @Test
+    @DisplayName("тест степенного распределения лайков и дружб")
+    void testPowerLaw() {
+        Dataset dataset = generate(42);
+        List<Film> films = dataset.likes().findPopularFilms(500);
+        long top = dataset.likes().count(films.getFirst().getId());
+        long median = dataset.likes().count(films.get(films.size() / 2).getId());
+        assertTrue(top > 20 * median, "Лайки распределены слишком равномерно: " + top + " и " + median);
+
+        int maxFriends = 0;
+        long totalFriends = 0;
+        for (long id = 1; id <= 2000; id++) {
+            int count = dataset.users().findById(id).getFriends().size();
+            maxFriends = Math.max(maxFriends, count);
+            totalFriends += count;
+        }
+        assertTrue(maxFriends > 20 * totalFriends / 2000, "Нет пользователей с большим количеством друзей");
+    }
+
+    @Test
+    @DisplayName("тест частот распределения Ципфа")
+    void testZipfSampler() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int samples = 200_000;
+        int[] counts = new int[1001];
+        for (int i = 0; i < samples; i++) {
+            counts[(int) sampler.sample(random)]++;
+        }
+        double harmonic = 0;
+        for (int k = 1; k <= 1000; k++) {
+            harmonic += 1.0 / k;
+        }
+        for (int k : new int[]{1, 2, 10}) {
+            double expected = samples / (k * harmonic);
+            assertEquals(expected, counts[k], expected * 0.05, "Неверная частота ранга " + k);
+        }
+        assertEquals(0, counts[0], "Получен ранг 0");
+    }
+
+    private static List<Long> popular(Dataset dataset) {
+        return dataset.likes().findPopularFilms(20).stream().map(Film::getId).toList();
+    }
+
+    private static List<Long> friends(Dataset dataset, long userId) {
+        return dataset.users().findFriends(userId).stream().map(User::getId).toList();
+    }
+
+    private record Dataset(SyntheticDatasetGenerator.Summary summary,
+                           InMemoryUserStorage users,
+                           InMemoryLikeStorage likes) {
+    }
+}
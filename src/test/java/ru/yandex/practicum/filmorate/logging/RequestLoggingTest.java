@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestLoggingTest {
+    private final RequestLoggingConfiguration configuration = new RequestLoggingConfiguration();
+
+    @Test
+    @DisplayName("тест выборки журналируемых запросов")
+    void testSampling() {
+        Predicate<HttpRequest> all = configuration.requestCondition(new RequestLoggingProperties(1.0, false, 1));
+        Predicate<HttpRequest> none = configuration.requestCondition(new RequestLoggingProperties(0.0, false, 1));
+        Predicate<HttpRequest> tenth = configuration.requestCondition(new RequestLoggingProperties(0.1, false, 1));
+
+        assertTrue(IntStream.range(0, 1000).allMatch(i -> all.test(null)), "Пропущен запрос при полной выборке");
+        assertTrue(IntStream.range(0, 1000).noneMatch(i -> none.test(null)), "Записан запрос при пустой выборке");
+        long sampled = IntStream.range(0, 100_000).filter(i -> tenth.test(null)).count();
+        assertEquals(10_000, sampled, 1000, "Доля журналируемых запросов не соответствует настройке");
+    }
+
+    @Test
+    @DisplayName("тест отбрасывания сообщений после остановки асинхронного писателя")
+    void testAsyncWriterDropsAfterClose() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(16, registry);
+        writer.write(null, "request");
+        writer.close();
+        writer.write(null, "response");
+
+        assertEquals(1, registry.get("filmorate.request.log.dropped").counter().count(),
+                "Сообщение после остановки не учтено как отброшенное");
+    }
+}
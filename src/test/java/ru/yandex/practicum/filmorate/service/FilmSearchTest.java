@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmSearchTest {
+    private FilmService service;
+    private FilmSearch search;
+
+    @BeforeEach
+    public void beforeEach() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        service = new FilmService(filmStorage, new InMemoryUserStorage(), new InMemoryLikeStorage(filmStorage));
+        search = new FilmSearch(service, filmStorage, new FilmSearchProperties(100, 64), new SimpleMeterRegistry());
+        add("Матрица", "Хакер узнаёт, что его мир — компьютерная симуляция");
+        add("Звёздные войны", "Далёкая галактика, повстанцы и Империя");
+        search.start();
+        add("Матрица: Перезагрузка", "Нео и повстанцы защищают Зион от машин");
+        add("Зеленая миля", "Надзиратель тюрьмы и заключённый с даром исцеления");
+    }
+
+    private Film add(String name, String description) {
+        return service.add(Film.builder()
+                .name(name)
+                .description(description)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .build());
+    }
+
+    private List<Long> ids(String query) {
+        return search.find(query, null).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("тест поиска по формам слов и ранжирования")
+    void testSearch() {
+        assertEquals(List.of(1L, 3L), ids("матрицы "), "Не найдены формы слова");
+        assertEquals(List.of(2L), ids("звездная ГАЛАКТИКА "), "Не учтены регистр и буква ё");
+        assertEquals(List.of(2L, 3L), ids("повстанцы "), "Фильм с более коротким текстом ранжирован ниже");
+        assertEquals(List.of(), ids("матрица галактика "), "Найден фильм без одного из слов запроса");
+        assertEquals(List.of(), ids("и "), "Найдены фильмы по служебному слову");
+        assertEquals(List.of(), search.find(" ", null), "Найдены фильмы по пустому запросу");
+    }
+
+    @Test
+    @DisplayName("тест поиска по недописанному слову")
+    void testPrefix() {
+        assertEquals(List.of(1L, 3L), ids("мат"), "Не найдены фильмы по префиксу");
+        assertEquals(List.of(3L), ids("матрица перезаг"), "Префикс не сочетается с другими словами");
+        assertEquals(List.of(), ids("мат "), "Слово с пробелом после него считается префиксом");
+    }
+
+    @Test
+    @DisplayName("тест обновления индекса при изменении фильмов")
+    void testUpdate() {
+        service.update(Film.builder()
+                .id(1L)
+                .name("Начало")
+                .description("Вор проникает в чужие сны")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(148)
+                .build());
+        assertEquals(List.of(3L), ids("матрица "), "Прежнее название осталось в индексе");
+        assertEquals(List.of(1L), ids("сны "), "Новое описание не попало в индекс");
+
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            films.add(Film.builder()
+                    .name("Сиквел " + i)
+                    .description(i % 10 == 0 ? "Сиквел сиквела" : "Продолжение")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+        }
+        service.addAll(films);
+        List<Long> found = ids("сиквел ");
+        assertEquals(10, found.size(), "Неверное количество найденных фильмов");
+        assertTrue(found.containsAll(List.of(5L, 15L, 95L)), "Выше не поставлены фильмы с более частым словом");
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static ru.yandex.practicum.filmorate.model.LikeOperation.Action.LIKE;
+import static ru.yandex.practicum.filmorate.model.LikeOperation.Action.UNLIKE;
+
+public class FilmServiceTest {
+    private FilmService service;
+
+    @BeforeEach
+    public void beforeEach() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        service = new FilmService(filmStorage, userStorage, new InMemoryLikeStorage(filmStorage));
+        for (int i = 0; i < 3; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("тест пакетного применения лайков с результатом по каждой операции")
+    void testApplyLikes() {
+        List<LikeResult> results = service.applyLikes(List.of(
+                new LikeOperation(2L, 1L, LIKE),
+                new LikeOperation(2L, 2L, LIKE),
+                new LikeOperation(3L, 1L, LIKE),
+                new LikeOperation(2L, 1L, LIKE),
+                new LikeOperation(3L, 1L, UNLIKE),
+                new LikeOperation(1L, 3L, UNLIKE),
+                new LikeOperation(99L, 1L, LIKE),
+                new LikeOperation(1L, 99L, LIKE),
+                new LikeOperation(1L, null, LIKE)));
+
+        assertEquals(List.of(
+                        LikeResult.Status.APPLIED,
+                        LikeResult.Status.APPLIED,
+                        LikeResult.Status.APPLIED,
+                        LikeResult.Status.UNCHANGED,
+                        LikeResult.Status.APPLIED,
+                        LikeResult.Status.UNCHANGED,
+                        LikeResult.Status.NOT_FOUND,
+                        LikeResult.Status.NOT_FOUND,
+                        LikeResult.Status.INVALID),
+                results.stream().map(LikeResult::status).toList(),
+                "Неверные результаты операций");
+        assertEquals(List.of(2L), service.popularFilms(10).stream().map(Film::getId).toList(),
+                "Неверный рейтинг после пакета");
+    }
+}
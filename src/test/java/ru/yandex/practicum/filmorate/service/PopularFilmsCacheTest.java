@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PopularFilmsCacheTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private FilmService service;
+    private PopularFilmsCache cache;
+
+    private void createCache(Duration maxStaleness) {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        service = new FilmService(filmStorage, userStorage, new InMemoryLikeStorage(filmStorage));
+        cache = new PopularFilmsCache(service, objectMapper, new PopularFilmsCacheProperties(maxStaleness, 16));
+        for (int i = 0; i < 3; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        cache.shutdown();
+    }
+
+    @Test
+    @DisplayName("тест готового ответа и ETag популярных фильмов")
+    void testResponseAndEtag() throws Exception {
+        createCache(Duration.ZERO);
+        service.like(1L, 1L);
+
+        PopularFilmsCache.Response first = cache.get(1);
+        assertEquals(objectMapper.writeValueAsString(service.popularFilms(1)), new String(first.json()),
+                "Ответ не совпадает со списком популярных фильмов");
+        assertSame(first, cache.get(1), "Ответ без изменений построен заново");
+
+        service.like(2L, 1L);
+        PopularFilmsCache.Response unchanged = cache.get(1);
+        assertEquals(first.etag(), unchanged.etag(), "ETag изменился, хотя ответ тот же");
+
+        service.like(2L, 2L);
+        PopularFilmsCache.Response changed = cache.get(1);
+        assertNotEquals(first.etag(), changed.etag(), "ETag не изменился вместе с ответом");
+        assertEquals(objectMapper.writeValueAsString(service.popularFilms(1)), new String(changed.json()),
+                "Ответ не обновлён после изменения лайков");
+    }
+
+    @Test
+    @DisplayName("тест фонового обновления устаревшего ответа")
+    void testAsyncRefresh() throws Exception {
+        createCache(Duration.ofMinutes(1));
+        PopularFilmsCache.Response empty = cache.get(10);
+        service.like(1L, 1L);
+
+        assertSame(empty, cache.get(10), "Устаревший ответ не отдан сразу");
+        String expected = objectMapper.writeValueAsString(service.popularFilms(10));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!expected.equals(new String(cache.get(10).json())) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, new String(cache.get(10).json()), "Ответ не обновлён в фоне");
+    }
+}
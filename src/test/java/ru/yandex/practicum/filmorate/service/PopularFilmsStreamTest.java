@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+import ru.yandex.practicum.filmorate.util.NdjsonWriter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class PopularFilmsStreamTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private FilmService service;
+    private PopularFilmsCache cache;
+    private PopularFilmsStream stream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void beforeEach() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(filmStorage);
+        service = new FilmService(filmStorage, userStorage, likeStorage);
+        cache = new PopularFilmsCache(service, objectMapper, new PopularFilmsCacheProperties(Duration.ZERO, 16));
+        stream = new PopularFilmsStream(service, objectMapper, new PopularFilmsStreamProperties(
+                Duration.ofMillis(10), Duration.ofSeconds(10), Duration.ofMinutes(1), 100, 100, 4),
+                BackgroundThreads.PLATFORM, new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new FilmController(service, cache, new NdjsonWriter(objectMapper), stream,
+                        new SimilarFilms(service, filmStorage, likeStorage, new SimilarFilmsProperties(
+                                SimilarFilmsProperties.Mode.INCREMENTAL, 20, 80, 500, Duration.ZERO),
+                                BackgroundThreads.PLATFORM, new SimpleMeterRegistry()),
+                        new FilmSearch(service, filmStorage, new FilmSearchProperties(100, 64),
+                                new SimpleMeterRegistry()))).build();
+        for (int i = 0; i < 3; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        stream.shutdown();
+        cache.shutdown();
+    }
+
+    @Test
+    @DisplayName("тест событий об изменении списка популярных фильмов")
+    void testChangeEvents() throws Exception {
+        service.like(1L, 1L);
+        service.like(1L, 2L);
+        service.like(2L, 1L);
+        MockHttpServletResponse response = mockMvc.perform(get("/films/popular/stream")
+                        .param("count", "2")
+                        .param("changes", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+        String top = awaitEvent(response, 1);
+        assertTrue(top.startsWith("event:top\ndata:[{\"id\":1,") && top.contains("},{\"id\":2,"),
+                "Нет первого события со списком: " + top);
+
+        service.applyLikes(List.of(
+                new LikeOperation(3L, 1L, LikeOperation.Action.LIKE),
+                new LikeOperation(3L, 2L, LikeOperation.Action.LIKE),
+                new LikeOperation(3L, 3L, LikeOperation.Action.LIKE)));
+        String change = awaitEvent(response, 2);
+        assertTrue(change.startsWith("event:change\ndata:{\"ids\":[3,1],\"added\":[{\"id\":3,")
+                && change.endsWith("\"removed\":[2]}"), "Неверное изменение списка: " + change);
+
+        service.like(2L, 2L);
+        service.like(2L, 3L);
+        service.like(1L, 3L);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!lastEvent(response).contains("\"ids\":[1,2]") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String last = lastEvent(response);
+        assertTrue(last.startsWith("event:change\ndata:{\"ids\":[1,2],") && last.endsWith("\"removed\":[3]}"),
+                "Изменение не посчитано от последнего события: " + last);
+
+        int events = count(response.getContentAsString());
+        service.disLike(3L, 1L);
+        Thread.sleep(100);
+        assertEquals(events, count(response.getContentAsString()),
+                "Отправлено событие, хотя первые два фильма не изменились");
+    }
+
+    private static String lastEvent(MockHttpServletResponse response) throws Exception {
+        String[] events = response.getContentAsString().split("\n\n");
+        return events[events.length - 1].replaceFirst("^id:\\d+\n", "");
+    }
+
+    /**
+     * Ждёт событие с заданным номером и возвращает его без поля id.
+     */
+    private static String awaitEvent(MockHttpServletResponse response, int number) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (count(response.getContentAsString()) < number && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String[] events = response.getContentAsString().split("\n\n");
+        assertTrue(events.length >= number, "Нет события номер " + number);
+        return events[number - 1].replaceFirst("^id:\\d+\n", "");
+    }
+
+    private static int count(String content) {
+        return content.split("\n\n", -1).length - 1;
+    }
+}
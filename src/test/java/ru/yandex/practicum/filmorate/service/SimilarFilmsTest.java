@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.BackgroundThreads;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SimilarFilmsTest {
+    private static final int FILMS = 30;
+    private static final int USERS = 100;
+
+    private FilmService service;
+    private SimilarFilms similarFilms;
+
+    private void createIndex(SimilarFilmsProperties.Mode mode, int candidates, int maxUserLikes) {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(filmStorage);
+        service = new FilmService(filmStorage, userStorage, likeStorage);
+        similarFilms = new SimilarFilms(service, filmStorage, likeStorage,
+                new SimilarFilmsProperties(mode, FILMS, candidates, maxUserLikes, Duration.ZERO),
+                BackgroundThreads.PLATFORM, new SimpleMeterRegistry());
+        for (int i = 0; i < FILMS; i++) {
+            service.add(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(120)
+                    .build());
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        similarFilms.stop();
+    }
+
+    @Test
+    @DisplayName("тест похожих фильмов по совместным лайкам")
+    void testFind() {
+        createIndex(SimilarFilmsProperties.Mode.INCREMENTAL, FILMS, 500);
+        service.like(1L, 1L);
+        service.like(2L, 1L);
+        similarFilms.start();
+
+        service.like(1L, 2L);
+        service.like(3L, 2L);
+        service.like(3L, 3L);
+        service.like(1L, 3L);
+        service.like(4L, 3L);
+
+        assertEquals(List.of(3L, 2L, 4L), similarFilms.find(1L, null).stream().map(Film::getId).toList(),
+                "Неверные похожие фильмы");
+        assertEquals(List.of(3L), similarFilms.find(1L, 1).stream().map(Film::getId).toList(),
+                "Не учтено количество фильмов");
+
+        service.disLike(3L, 2L);
+        service.disLike(3L, 3L);
+        assertEquals(List.of(2L, 4L), similarFilms.find(1L, null).stream().map(Film::getId).toList(),
+                "Удалённые лайки остались в индексе");
+        assertThrows(NotFoundException.class, () -> similarFilms.find(42L, null),
+                "Найдены похожие фильмы для несуществующего фильма");
+    }
+
+    @Test
+    @DisplayName("тест совпадения инкрементального индекса с перестроенным")
+    void testIncrementalMatchesRebuild() {
+        createIndex(SimilarFilmsProperties.Mode.INCREMENTAL, FILMS, 500);
+        similarFilms.start();
+        SplittableRandom random = new SplittableRandom(42);
+        List<LikeOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            operations.add(new LikeOperation(1L + random.nextInt(FILMS), 1L + random.nextInt(USERS),
+                    random.nextInt(4) == 0 ? LikeOperation.Action.UNLIKE : LikeOperation.Action.LIKE));
+            if (operations.size() == 100) {
+                service.applyLikes(operations);
+                operations.clear();
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            long filmId = 1L + random.nextInt(FILMS);
+            long userId = 1L + random.nextInt(USERS);
+            try {
+                service.like(filmId, userId);
+            } catch (RuntimeException e) {
+                service.disLike(filmId, userId);
+            }
+        }
+
+        long[][] incremental = new long[FILMS][];
+        for (int i = 0; i < FILMS; i++) {
+            incremental[i] = similarFilms.neighbours(i + 1, FILMS);
+        }
+        similarFilms.rebuild();
+        for (int i = 0; i < FILMS; i++) {
+            assertArrayEquals(similarFilms.neighbours(i + 1, FILMS), incremental[i],
+                    "Соседи фильма id = " + (i + 1) + " отличаются от перестроенных");
+        }
+    }
+
+    @Test
+    @DisplayName("тест пакетного режима и ограничения лайков пользователя")
+    void testBatchMode() {
+        createIndex(SimilarFilmsProperties.Mode.BATCH, FILMS, 2);
+        similarFilms.start();
+        service.like(1L, 1L);
+        service.like(2L, 1L);
+        assertEquals(0, similarFilms.find(1L, null).size(), "Пакетный индекс изменён до перестроения");
+
+        service.like(1L, 2L);
+        service.like(2L, 2L);
+        service.like(3L, 2L);
+        similarFilms.rebuild();
+        assertEquals(List.of(2L), similarFilms.find(1L, null).stream().map(Film::getId).toList(),
+                "Учтены лайки пользователя сверх ограничения");
+    }
+}
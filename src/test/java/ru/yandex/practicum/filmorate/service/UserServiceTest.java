@@ -0,0 +1,254 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserServiceTest {
+    private static final int USERS = 50;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 50_000;
+
+    private UserService service;
+
+    @BeforeEach
+    public void beforeEach() {
+        service = new UserService(new InMemoryUserStorage());
+        for (int i = 0; i < USERS; i++) {
+            service.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("тест параллельного добавления пользователей с одинаковой почтой")
+    void testConcurrentAddSameEmail() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    service.add(User.builder()
+                            .email("Same@mail.ru")
+                            .login("Same" + thread)
+                            .birthday(LocalDate.of(2000, 1, 1))
+                            .build());
+                    return true;
+                } catch (ConditionsNotMetException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int added = 0;
+        for (Future<Boolean> future : futures) {
+            added += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, added, "Почту заняли несколько пользователей");
+        assertEquals(USERS + 1, service.findAll().size(), "Неверное количество пользователей");
+        String login = service.findByEmail("same@mail.ru").getLogin();
+        assertEquals(login, service.findByLogin(login).getLogin(), "Почта и логин у разных пользователей");
+    }
+
+    @Test
+    @DisplayName("тест параллельного изменения дружбы без односторонних связей")
+    void testConcurrentFriendshipIsSymmetric() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    long id = 1 + random.nextInt(USERS);
+                    long friendId = 1 + random.nextInt(USERS);
+                    if (id == friendId) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        service.addFriend(id, friendId);
+                    } else {
+                        service.deleteFriend(id, friendId);
+                    }
+                }
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    service.getFriends(1L + random.nextInt(USERS));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (long id = 1; id <= USERS; id++) {
+            for (Long friendId : service.findById(id).getFriends()) {
+                assertTrue(service.findById(friendId).getFriends().contains(id),
+                        String.format("Дружба %d -> %d односторонняя", id, friendId));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("тест встречного добавления в друзья без взаимной блокировки")
+    void testOppositeFriendRequestsDoNotDeadlock() {
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> forward = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    service.addFriend(1L, 2L);
+                    service.deleteFriend(1L, 2L);
+                }
+                return null;
+            });
+            Future<?> backward = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    service.addFriend(2L, 1L);
+                    service.deleteFriend(2L, 1L);
+                }
+                return null;
+            });
+            start.countDown();
+            forward.get();
+            backward.get();
+            executor.shutdown();
+        });
+
+        assertEquals(service.findById(1L).getFriends().contains(2L),
+                service.findById(2L).getFriends().contains(1L), "Дружба односторонняя");
+    }
+
+    @Test
+    @DisplayName("тест метрик общих друзей, размеров списков друзей и объёма данных")
+    void testMetrics() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserService metered = new UserService(storage, registry);
+        for (int i = 0; i < 3; i++) {
+            metered.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        metered.addFriend(1L, 2L);
+        metered.addFriend(1L, 3L);
+
+        metered.mutualFriends(2L, 3L);
+        metered.getFriends(1L);
+        metered.getFriends(2L);
+
+        assertEquals(1, registry.get("filmorate.users.friends.common").timer().count(),
+                "Неверное количество замеров общих друзей");
+        assertEquals(2, registry.get("filmorate.users.friends.size").summary().count(),
+                "Неверное количество замеров размера списка друзей");
+        assertEquals(2, registry.get("filmorate.users.friends.size").summary().max(),
+                "Неверный максимальный размер списка друзей");
+        assertEquals(3, storage.count(), "Неверное количество пользователей");
+        assertEquals(2, storage.countFriendships(), "Неверное количество дружб");
+    }
+
+    @Test
+    @DisplayName("тест рекомендаций друзей и их обновления при изменении дружбы")
+    void testFriendRecommendations() {
+        service.addFriend(1L, 2L);
+        service.addFriend(1L, 3L);
+        service.addFriend(1L, 4L);
+        service.addFriend(2L, 5L);
+        service.addFriend(2L, 6L);
+        service.addFriend(3L, 5L);
+        service.addFriend(4L, 5L);
+        service.addFriend(4L, 6L);
+        service.addFriend(4L, 7L);
+
+        assertEquals(List.of(new FriendRecommendation(service.findById(5L), 3),
+                        new FriendRecommendation(service.findById(6L), 2),
+                        new FriendRecommendation(service.findById(7L), 1)),
+                service.recommendFriends(1L, null), "Неверные рекомендации");
+        assertEquals(1, service.recommendFriends(1L, 1).size(), "Неверное количество рекомендаций");
+
+        service.addFriend(3L, 6L);
+        assertEquals(3, service.recommendFriends(1L, null).get(1).mutualFriends(),
+                "Рекомендации не обновлены после добавления друга у друга");
+        service.addFriend(1L, 5L);
+        assertEquals(List.of(6L, 7L), service.recommendFriends(1L, null).stream()
+                .map(recommendation -> recommendation.user().getId())
+                .toList(), "Рекомендован пользователь, уже ставший другом");
+        service.deleteFriend(4L, 7L);
+        assertEquals(1, service.recommendFriends(1L, null).size(),
+                "Рекомендации не обновлены после удаления друга у друга");
+    }
+
+    @Test
+    @DisplayName("тест ограничения обхода друзей при большом количестве друзей")
+    void testFriendRecommendationsDegreeCap() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < 300; i++) {
+            storage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (long friend = 2; friend <= 201; friend++) {
+            storage.addFriend(1L, friend);
+            storage.addFriend(friend, 202L);
+            if (friend % 2 == 0) {
+                storage.addFriend(friend, 203L);
+            }
+        }
+
+        FriendRecommendations unbounded = new FriendRecommendations(storage,
+                FriendRecommendationsProperties.defaults(), new SimpleMeterRegistry());
+        assertEquals(List.of(200, 100), unbounded.recommend(1L, null).stream()
+                .map(FriendRecommendation::mutualFriends)
+                .toList(), "Неверное количество общих друзей");
+
+        FriendRecommendations bounded = new FriendRecommendations(storage,
+                new FriendRecommendationsProperties(50, 1000, 100, 100, Duration.ofMinutes(1)),
+                new SimpleMeterRegistry());
+        assertEquals(50, bounded.recommend(1L, null).getFirst().mutualFriends(),
+                "Обойдено больше друзей, чем разрешено");
+    }
+}
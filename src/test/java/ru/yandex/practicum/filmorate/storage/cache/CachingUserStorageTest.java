@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachingUserStorageTest {
+    private EmbeddedDatabase database;
+    private AsyncCache<Long, User> cache;
+    private CachingUserStorage storage;
+
+    @BeforeEach
+    public void beforeEach() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        cache = Caffeine.newBuilder().maximumSize(100).recordStats().buildAsync();
+        storage = new CachingUserStorage(new UserDbStorage(new JdbcTemplate(database)), cache);
+        for (int i = 0; i < 2; i++) {
+            storage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("тест чтения пользователя из кэша после первого обращения")
+    void testFindByIdIsCached() {
+        User first = storage.findById(1L);
+        User second = storage.findById(1L);
+
+        assertSame(first, second, "Пользователь не взят из кэша");
+        assertEquals(1, cache.synchronous().stats().hitCount(), "Неверное количество попаданий");
+        assertEquals(1, cache.synchronous().stats().missCount(), "Неверное количество промахов");
+        assertThrows(NotFoundException.class, () -> storage.findById(42L), "Найден несуществующий пользователь");
+        assertEquals(1, cache.synchronous().estimatedSize(), "Закэширован несуществующий пользователь");
+    }
+
+    @Test
+    @DisplayName("тест удаления из кэша при обновлении пользователя и изменении дружбы")
+    void testInvalidation() {
+        storage.findById(1L);
+        storage.findById(2L);
+
+        storage.update(User.builder()
+                .id(1L)
+                .email("new@mail.ru")
+                .login("NewLogin")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build());
+        assertEquals("new@mail.ru", storage.findById(1L).getEmail(), "В кэше осталась старая версия");
+
+        storage.addFriend(1L, 2L);
+        assertTrue(storage.findById(1L).getFriends().contains(2L), "Друзья пользователя не обновлены");
+        assertTrue(storage.findById(2L).getFriends().contains(1L), "Друзья друга не обновлены");
+
+        storage.deleteFriend(2L, 1L);
+        assertTrue(storage.findById(1L).getFriends().isEmpty(), "Удалённый друг остался в кэше");
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryFilmStorageTest {
+    private static final int THREADS = 16;
+    private static final int FILMS_PER_THREAD = 20_000;
+
+    private static Film film(String name) {
+        return film(name, LocalDate.of(2000, 1, 1));
+    }
+
+    private static Film film(String name, LocalDate releaseDate) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(releaseDate)
+                .duration(120)
+                .build();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("тест выборки фильмов по диапазону дат релиза")
+    void testFindByReleaseDate() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        int[] years = {2005, 1999, 2010, 2005, 2020};
+        for (int year : years) {
+            storage.add(film("Name", LocalDate.of(year, 1, 1)));
+        }
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2010, 12, 31);
+
+        assertEquals(List.of(1L, 4L, 3L), ids(storage.findByReleaseDate(from, to, null, false, 10)),
+                "Неверный порядок фильмов в диапазоне");
+        assertEquals(List.of(5L, 3L), ids(storage.findByReleaseDate(null, null, null, true, 2)),
+                "Неверные самые новые фильмы");
+        Film after = storage.findById(1L).orElseThrow();
+        assertEquals(List.of(4L, 3L), ids(storage.findByReleaseDate(from, to, after, false, 10)),
+                "Неверная следующая страница");
+        assertEquals(List.of(2L), ids(storage.findByReleaseDate(null, null, after, true, 10)),
+                "Неверная следующая страница в обратном порядке");
+        assertEquals(List.of(), ids(storage.findByReleaseDate(null, from, storage.findById(5L).orElseThrow(),
+                false, 10)), "Найдены фильмы после конца диапазона");
+
+        Film moved = film("Name", LocalDate.of(1990, 1, 1));
+        moved.setId(3L);
+        storage.update(moved);
+        assertEquals(List.of(1L, 4L), ids(storage.findByReleaseDate(from, to, null, false, 10)),
+                "Фильм с изменённой датой остался в прежнем месте индекса");
+        assertEquals(List.of(3L, 2L), ids(storage.findByReleaseDate(null, from, null, false, 10)),
+                "Фильм с изменённой датой не найден по новой дате");
+    }
+
+    @Test
+    @DisplayName("тест параллельного добавления фильмов без потерь и дублей id")
+    void testConcurrentAdd() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>(FILMS_PER_THREAD);
+                for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                    ids.add(storage.add(film("Name")).getId());
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            for (Long id : future.get()) {
+                assertTrue(ids.add(id), "Выдан повторяющийся id = " + id);
+            }
+        }
+        executor.shutdown();
+
+        int expected = THREADS * FILMS_PER_THREAD;
+        assertEquals(expected, ids.size(), "Неверное количество выданных id");
+        assertEquals(expected, storage.findAll().size(), "Неверное количество фильмов");
+        for (long id = 1; id <= expected; id++) {
+            assertTrue(storage.findById(id).isPresent(), "Потерян фильм id = " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("тест обновления фильмов параллельно с добавлением")
+    void testUpdateRacingAdd() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> adder = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                storage.add(film("Name"));
+            }
+            return null;
+        });
+        Future<Integer> updater = executor.submit(() -> {
+            start.await();
+            int updated = 0;
+            for (long id = 1; id <= FILMS_PER_THREAD; id++) {
+                while (storage.findById(id).isEmpty()) {
+                    Thread.onSpinWait();
+                }
+                Film newFilm = film("Updated");
+                newFilm.setId(id);
+                storage.update(newFilm);
+                updated++;
+            }
+            return updated;
+        });
+        start.countDown();
+
+        adder.get();
+        assertEquals(FILMS_PER_THREAD, updater.get(), "Неверное количество обновлений");
+        executor.shutdown();
+
+        assertEquals(FILMS_PER_THREAD, storage.findAll().size(), "Неверное количество фильмов");
+        assertTrue(storage.findAll().stream().allMatch(f -> f.getName().equals("Updated")),
+                "Обновление потеряно");
+    }
+}
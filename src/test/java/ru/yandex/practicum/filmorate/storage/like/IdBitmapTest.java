@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdBitmapTest {
+
+    @Test
+    @DisplayName("тест совпадения сжатого множества с TreeSet")
+    void testMatchesTreeSet() {
+        IdBitmap bitmap = new IdBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long id = 1 + random.nextInt(300_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), bitmap.remove(id), "Неверный результат удаления");
+            } else {
+                assertEquals(expected.add(id), bitmap.add(id), "Неверный результат добавления");
+            }
+        }
+
+        assertEquals(expected.size(), bitmap.cardinality(), "Неверное количество элементов");
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), bitmap.toArray(),
+                "Неверный порядок или состав элементов");
+        for (long id = 0; id < 1_000; id++) {
+            assertEquals(expected.contains(id), bitmap.contains(id), "Неверная проверка наличия");
+        }
+    }
+
+    @Test
+    @DisplayName("тест удаления всех элементов из плотного контейнера")
+    void testDenseContainerShrinks() {
+        IdBitmap bitmap = new IdBitmap();
+        for (long id = 0; id < IdBitmap.ARRAY_MAX * 2; id++) {
+            bitmap.add(id);
+        }
+        for (long id = 0; id < IdBitmap.ARRAY_MAX * 2; id++) {
+            assertTrue(bitmap.remove(id), "Элемент не удалён");
+        }
+
+        assertTrue(bitmap.isEmpty(), "Множество не пустое");
+        assertEquals(0, bitmap.toArray().length, "Множество не пустое");
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InMemoryLikeStorageTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 50_000;
+    private static final int FILMS = 3;
+    private static final int USERS = 4;
+
+    @Test
+    @DisplayName("тест совпадения рейтинга с лайками при встречных лайках и дизлайках")
+    void testConcurrentLikeAndUnlike() throws Exception {
+        InMemoryLikeStorage storage = new InMemoryLikeStorage(new InMemoryFilmStorage());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    long filmId = 1 + random.nextInt(FILMS);
+                    long userId = 1 + random.nextInt(USERS);
+                    switch (random.nextInt(3)) {
+                        case 0 -> storage.add(filmId, userId);
+                        case 1 -> storage.remove(filmId, userId);
+                        default -> storage.applyBatch(List.of(
+                                new LikeOperation(filmId, userId, LikeOperation.Action.LIKE),
+                                new LikeOperation(filmId, userId, LikeOperation.Action.UNLIKE)));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            assertEquals(storage.likedUserIds(filmId).length, storage.count(filmId),
+                    "Рейтинг фильма id = " + filmId + " разошёлся с его лайками");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PopularityIndexTest {
+
+    @Test
+    @DisplayName("тест порядка фильмов с равным количеством лайков по возрастанию id")
+    void testTieBreakById() {
+        PopularityIndex index = new PopularityIndex();
+        index.set(7L, 2);
+        index.set(3L, 2);
+        index.set(5L, 1);
+        index.set(9L, 3);
+        index.set(1L, 2);
+
+        assertEquals(List.of(9L, 1L, 3L, 7L, 5L), index.top(10), "Неверный порядок при равных лайках");
+        assertEquals(List.of(9L, 1L), index.top(2), "Неверное начало списка");
+
+        index.set(9L, 2);
+        index.set(5L, 0);
+        assertEquals(List.of(1L, 3L, 7L, 9L), index.top(10), "Неверный порядок после изменения лайков");
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryUserStorageTest {
+
+    @Test
+    @DisplayName("тест освобождения почты и логина при ошибке записи в журнал")
+    void testAddReleasesKeysWhenLogFails() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        InMemoryUserStorage storage = new InMemoryUserStorage(record -> failing.get()
+                ? CompletableFuture.failedFuture(new UncheckedIOException(new IOException("Диск недоступен")))
+                : MutationLog.DONE);
+
+        assertThrows(RuntimeException.class, () -> storage.add(user()), "Ошибка журнала не передана");
+        assertEquals(0, storage.count(), "Несохранённый пользователь остался в хранилище");
+        assertTrue(storage.findByEmail("user@mail.ru").isEmpty(), "Почта осталась занятой");
+
+        failing.set(false);
+        User saved = storage.add(user());
+        assertEquals(saved, storage.findByLogin("Login").orElseThrow(), "Логин остался занятым");
+    }
+
+    private static User user() {
+        return User.builder()
+                .email("user@mail.ru")
+                .login("Login")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
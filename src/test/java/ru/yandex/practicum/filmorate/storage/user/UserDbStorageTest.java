@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserDbStorageTest {
+    private EmbeddedDatabase database;
+    private UserDbStorage storage;
+
+    @BeforeEach
+    public void beforeEach() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        storage = new UserDbStorage(new JdbcTemplate(database));
+        for (int i = 0; i < 4; i++) {
+            storage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("тест взаимной дружбы и общих друзей в базе данных")
+    void testFriendsAndCommonFriends() {
+        storage.addFriend(1, 3);
+        storage.addFriend(2, 3);
+        storage.addFriend(1, 4);
+        storage.addFriend(1, 4);
+
+        assertEquals(List.of(3L, 4L), ids(storage.findFriends(1)), "Неверный список друзей");
+        assertEquals(List.of(1L, 2L), ids(storage.findFriends(3)), "Дружба не взаимна");
+        assertEquals(List.of(3L), ids(storage.findCommonFriends(1, 2)), "Неверные общие друзья");
+        assertArrayEquals(new long[]{3L, 4L}, storage.findFriendIds(1), "Неверные id друзей");
+        assertTrue(storage.findById(4L).getFriends().contains(1L), "Друзья пользователя не загружены");
+
+        assertTrue(storage.deleteFriend(3, 1).join(), "Дружба не удалена");
+        assertFalse(storage.deleteFriend(1, 3).join(), "Дружба удалена повторно");
+        assertEquals(List.of(4L), ids(storage.findFriends(1)), "Дружба удалена не с обеих сторон");
+    }
+
+    @Test
+    @DisplayName("тест потоковой выгрузки пользователей с друзьями из базы данных")
+    void testStreamAll() {
+        List<User> more = new ArrayList<>();
+        for (int i = 4; i < 1100; i++) {
+            more.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        storage.addAll(more);
+        storage.addFriend(1, 1050).join();
+
+        List<User> users;
+        try (Stream<User> stream = storage.streamAll()) {
+            users = stream.toList();
+        }
+        assertEquals(LongStream.rangeClosed(1, 1100).boxed().toList(), ids(users), "Выгружены не все пользователи");
+        assertTrue(users.get(1049).getFriends().contains(1L), "Друзья пользователя не загружены");
+        assertTrue(users.get(0).getFriends().contains(1050L), "Друзья пользователя не загружены");
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
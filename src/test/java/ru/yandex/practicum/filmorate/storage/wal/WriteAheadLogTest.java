@@ -0,0 +1,252 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Хранилища в памяти, подключённые к журналу.
+     */
+    private record Storages(WriteAheadLog wal,
+                            InMemoryFilmStorage films,
+                            InMemoryUserStorage users,
+                            InMemoryLikeStorage likes,
+                            SnapshotScheduler snapshots) {
+
+        static Storages open(Path path, FsyncPolicy policy) {
+            WalProperties properties = new WalProperties(true, path, policy, Duration.ofMillis(10),
+                    path.resolveSibling(path.getFileName() + ".snapshot"), Duration.ZERO);
+            WriteAheadLog wal = new WriteAheadLog(path, policy, properties.fsyncInterval());
+            InMemoryFilmStorage films = new InMemoryFilmStorage(wal);
+            InMemoryUserStorage users = new InMemoryUserStorage(wal);
+            InMemoryLikeStorage likes = new InMemoryLikeStorage(films, wal);
+            new WalReplayer(wal, properties, films, users, likes).recover();
+            return new Storages(wal, films, users, likes,
+                    new SnapshotScheduler(wal, properties, films, users, likes));
+        }
+    }
+
+    @Test
+    @DisplayName("тест восстановления всех изменений из журнала после перезапуска")
+    void testReplayRestoresState() {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path path = dir.resolve(policy + ".wal");
+            Storages before = Storages.open(path, policy);
+            fill(before);
+            before.wal().close();
+
+            Storages after = Storages.open(path, policy);
+            assertState(before, after);
+            after.wal().close();
+        }
+    }
+
+    @Test
+    @DisplayName("тест отбрасывания недописанной записи в конце журнала")
+    void testTornTailIsTruncated() throws IOException {
+        Path path = dir.resolve("filmorate.wal");
+        Storages before = Storages.open(path, FsyncPolicy.ALWAYS);
+        fill(before);
+        before.wal().close();
+        Path segment = WriteAheadLog.segmentPath(path, 1);
+        long size = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Storages after = Storages.open(path, FsyncPolicy.ALWAYS);
+        assertState(before, after);
+        assertEquals(size, Files.size(segment), "Недописанная запись не отброшена");
+
+        assertEquals(3L, after.films().add(film("После восстановления")).getId(), "Счётчик id не восстановлен");
+        after.wal().close();
+        Storages reopened = Storages.open(path, FsyncPolicy.ALWAYS);
+        assertEquals(3, reopened.films().findAll().size(), "Запись после восстановления потеряна");
+        reopened.wal().close();
+    }
+
+    @Test
+    @DisplayName("тест восстановления из снимка и хвоста журнала")
+    void testRecoveryFromSnapshotAndTail() {
+        Path path = dir.resolve("filmorate.wal");
+        Storages before = Storages.open(path, FsyncPolicy.NEVER);
+        fill(before);
+        before.snapshots().snapshot();
+        assertFalse(Files.exists(WriteAheadLog.segmentPath(path, 1)), "Сегмент до снимка не удалён");
+
+        Film third = before.films().add(film("После снимка"));
+        before.likes().add(third.getId(), 1L);
+        before.likes().add(1L, 1L);
+        before.users().addFriend(2L, 3L);
+        before.users().deleteFriend(1L, 2L);
+        before.wal().close();
+
+        Storages after = Storages.open(path, FsyncPolicy.NEVER);
+        assertState(before, after);
+        assertEquals(4L, after.films().add(film("После восстановления")).getId(), "Счётчик id не восстановлен");
+        after.wal().close();
+    }
+
+    @Test
+    @DisplayName("тест восстановления дружбы, удалённой во время записи снимка")
+    void testFriendshipDeletedDuringSnapshot() throws IOException {
+        Path path = dir.resolve("filmorate.wal");
+        Storages before = Storages.open(path, FsyncPolicy.NEVER);
+        List<User> users = before.users().addAll(List.of(user(1), user(2)));
+        long first = users.get(0).getId();
+        long second = users.get(1).getId();
+        before.users().addFriend(first, second).join();
+
+        // Второй пользователь удаляет дружбу, когда первый уже записан в снимок, а сам он ещё нет
+        InMemoryUserStorage changing = new InMemoryUserStorage() {
+            @Override
+            public Collection<User> findAll() {
+                Collection<User> all = before.users().findAll();
+                return new AbstractCollection<>() {
+                    @Override
+                    public Iterator<User> iterator() {
+                        Iterator<User> iterator = all.iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public User next() {
+                                User user = iterator.next();
+                                if (user.getId() == second) {
+                                    before.users().deleteFriend(second, first).join();
+                                }
+                                return user;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return all.size();
+                    }
+                };
+            }
+        };
+        long segment = before.wal().rotate().join();
+        SnapshotFile.write(path.resolveSibling(path.getFileName() + ".snapshot"), segment,
+                before.films(), changing, before.likes());
+        before.wal().close();
+
+        Storages after = Storages.open(path, FsyncPolicy.NEVER);
+        assertEquals(0, after.users().findFriendIds(first).length, "Дружба осталась у первого пользователя");
+        assertEquals(0, after.users().findFriendIds(second).length, "Дружба осталась у второго пользователя");
+        assertState(before, after);
+        after.wal().close();
+    }
+
+    @Test
+    @DisplayName("тест отказа хранилищ в изменениях после ошибки записи журнала")
+    void testWritesRefusedAfterLogFailure() throws IOException {
+        Path path = dir.resolve("filmorate.wal");
+        Storages before = Storages.open(path, FsyncPolicy.ALWAYS);
+        fill(before);
+        Files.createDirectory(WriteAheadLog.segmentPath(path, 2));
+        assertThrows(CompletionException.class, () -> before.wal().rotate().join(),
+                "Ошибка записи журнала не передана");
+
+        assertThrows(IllegalStateException.class, () -> before.likes().add(1L, 1L),
+                "Лайк принят после ошибки журнала");
+        assertThrows(IllegalStateException.class, () -> before.likes().applyBatch(List.of(
+                new LikeOperation(2L, 1L, LikeOperation.Action.LIKE))), "Пакет лайков принят после ошибки журнала");
+        assertThrows(IllegalStateException.class, () -> before.users().addFriend(2L, 3L),
+                "Дружба принята после ошибки журнала");
+        assertThrows(IllegalStateException.class, () -> before.users().deleteFriend(1L, 2L),
+                "Удаление дружбы принято после ошибки журнала");
+        assertFalse(before.likes().contains(1L, 1L), "Лайк остался в памяти");
+        assertFalse(before.likes().contains(2L, 1L), "Лайк из пакета остался в памяти");
+        assertEquals(List.of(2L), Arrays.stream(before.users().findFriendIds(1L)).boxed().toList(),
+                "Друзья изменились в памяти");
+        assertEquals(List.of(1L), Arrays.stream(before.users().findFriendIds(2L)).boxed().toList(),
+                "Друзья изменились в памяти");
+        before.wal().close();
+        Files.delete(WriteAheadLog.segmentPath(path, 2));
+
+        Storages after = Storages.open(path, FsyncPolicy.ALWAYS);
+        assertState(before, after);
+        after.wal().close();
+    }
+
+    private static void fill(Storages storages) {
+        Film first = storages.films().add(film("Первый"));
+        Film second = storages.films().add(film("Второй"));
+        storages.films().update(Film.builder()
+                .id(second.getId())
+                .name("Второй, обновлён")
+                .description("Описание")
+                .releaseDate(LocalDate.of(2001, 2, 3))
+                .build());
+        List<User> users = storages.users().addAll(List.of(user(1), user(2), user(3)));
+        storages.users().addFriend(users.get(0).getId(), users.get(1).getId());
+        storages.users().addFriend(users.get(0).getId(), users.get(2).getId());
+        storages.users().deleteFriend(users.get(2).getId(), users.get(0).getId());
+        storages.likes().add(first.getId(), users.get(0).getId());
+        storages.likes().add(second.getId(), users.get(1).getId());
+        storages.likes().add(second.getId(), users.get(2).getId());
+        storages.likes().remove(first.getId(), users.get(0).getId());
+    }
+
+    private static void assertState(Storages expected, Storages actual) {
+        assertEquals(List.copyOf(expected.films().findAll()), List.copyOf(actual.films().findAll()),
+                "Фильмы не восстановлены");
+        for (Film film : expected.films().findAll()) {
+            Film restored = actual.films().findById(film.getId()).orElseThrow();
+            assertEquals(film.getName(), restored.getName(), "Название фильма не восстановлено");
+            assertEquals(film.getDuration(), restored.getDuration(), "Продолжительность не восстановлена");
+            assertEquals(expected.likes().count(film.getId()), actual.likes().count(film.getId()),
+                    "Лайки не восстановлены");
+        }
+        assertEquals(List.copyOf(expected.users().findAll()), List.copyOf(actual.users().findAll()),
+                "Пользователи или их друзья не восстановлены");
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private static User user(int i) {
+        return User.builder()
+                .email("user" + i + "@mail.ru")
+                .login("Login" + i)
+                .name("Имя " + i)
+                .birthday(LocalDate.of(2000, 1, i))
+                .build();
+    }
+}
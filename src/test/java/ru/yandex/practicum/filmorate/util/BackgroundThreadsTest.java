@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BackgroundThreadsTest {
+
+    @Test
+    @DisplayName("тест вида и имени фоновых потоков")
+    void testThreadKind() throws Exception {
+        CompletableFuture<Thread> platform = new CompletableFuture<>();
+        BackgroundThreads.PLATFORM.start("platform-worker", () -> platform.complete(Thread.currentThread()));
+        assertFalse(platform.get().isVirtual(), "Создан виртуальный поток вместо потока платформы");
+        assertTrue(platform.get().isDaemon(), "Поток платформы не демон");
+        assertEquals("platform-worker", platform.get().getName(), "Неверное имя потока");
+
+        CompletableFuture<Thread> virtual = new CompletableFuture<>();
+        BackgroundThreads.VIRTUAL.start("virtual-worker", () -> virtual.complete(Thread.currentThread()));
+        assertTrue(virtual.get().isVirtual(), "Создан поток платформы вместо виртуального");
+        assertEquals("virtual-worker", virtual.get().getName(), "Неверное имя потока");
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.OutputStream;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NdjsonWriterTest {
+    private static final int USERS = 100_000;
+    /** Выгрузка занимает около 10 МБ: если бы она копилась в памяти, предел был бы превышен. */
+    private static final long MAX_EXPORT_HEAP_BYTES = 4L * 1024 * 1024;
+    /** Через сколько записей в поток замеряется занятая память. */
+    private static final int SAMPLE_EVERY = 64;
+
+    /**
+     * Поток, который не хранит данные, а только считает их и замеряет
+     * занятую память во время выгрузки.
+     */
+    private static class CountingSink extends OutputStream {
+        private long bytes;
+        private long lines;
+        private int maxChunk;
+        private long writes;
+        private long peakHeap;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+            bytes += len;
+            writes++;
+            maxChunk = Math.max(maxChunk, len);
+            if (writes % SAMPLE_EVERY == 1) {
+                peakHeap = Math.max(peakHeap, usedHeapAfterGc());
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    @DisplayName("тест потоковой выгрузки пользователей с ограниченным буфером и памятью")
+    void testExportIsStreamed() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < USERS; i++) {
+            storage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        NdjsonWriter writer = new NdjsonWriter(new ObjectMapper().findAndRegisterModules());
+        CountingSink sink = new CountingSink();
+
+        long before = usedHeapAfterGc();
+        long written;
+        try (Stream<User> users = storage.streamAll()) {
+            written = writer.write(users::iterator, sink);
+        }
+        // Индексы почты и логина не должны освободиться во время выгрузки и исказить замер
+        Reference.reachabilityFence(storage);
+
+        assertEquals(USERS, written, "Неверное количество выгруженных пользователей");
+        assertEquals(USERS, sink.lines, "Неверное количество строк");
+        assertTrue(sink.maxChunk <= NdjsonWriter.BUFFER_SIZE,
+                "Запись превысила размер буфера: " + sink.maxChunk);
+        assertTrue(sink.writes >= sink.bytes / NdjsonWriter.BUFFER_SIZE,
+                "Данные не выгружались по частям");
+        assertTrue(sink.peakHeap - before < MAX_EXPORT_HEAP_BYTES,
+                "Во время выгрузки занято " + (sink.peakHeap - before) + " байт сверх хранилища");
+    }
+}
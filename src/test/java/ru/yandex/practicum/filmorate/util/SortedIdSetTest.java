@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SortedIdSetTest {
+
+    private static long[] randomIds(Random random, int size, int bound) {
+        return random.longs(size, 1, bound).sorted().distinct().toArray();
+    }
+
+    private static long[] expectedIntersection(long[] a, long[] b) {
+        TreeSet<Long> set = new TreeSet<>();
+        for (long id : a) {
+            set.add(id);
+        }
+        TreeSet<Long> other = new TreeSet<>();
+        for (long id : b) {
+            other.add(id);
+        }
+        set.retainAll(other);
+        return set.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    @DisplayName("тест пересечения массивов близкой длины слиянием")
+    void testMergeIntersection() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            long[] a = randomIds(random, 1 + random.nextInt(500), 2_000);
+            long[] b = randomIds(random, 1 + random.nextInt(500), 2_000);
+            assertArrayEquals(expectedIntersection(a, b), SortedIdSet.intersect(a, b),
+                    "Неверное пересечение");
+        }
+    }
+
+    @Test
+    @DisplayName("тест пересечения короткого и длинного массивов галопирующим поиском")
+    void testGallopIntersection() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            long[] small = randomIds(random, 1 + random.nextInt(20), 100_000);
+            long[] large = randomIds(random, 20_000, 100_000);
+            assertArrayEquals(expectedIntersection(small, large), SortedIdSet.intersect(small, large),
+                    "Неверное пересечение");
+            assertArrayEquals(expectedIntersection(small, large), SortedIdSet.intersect(large, small),
+                    "Неверное пересечение");
+        }
+    }
+
+    @Test
+    @DisplayName("тест пакетного добавления с повторами")
+    void testAddAll() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            SortedIdSet set = new SortedIdSet(random.longs(random.nextInt(50), 1, 200).toArray());
+            TreeSet<Long> expected = new TreeSet<>(set);
+            long[] added = random.longs(random.nextInt(50), 1, 200).toArray();
+            for (long id : added) {
+                expected.add(id);
+            }
+            assertEquals(expected.size() != set.size(), set.addAll(added), "Неверный признак изменения");
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.snapshot(),
+                    "Неверное множество после добавления");
+        }
+    }
+}